@@ -0,0 +1,34 @@
+package com.trustworthyreviews.config;
+
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a Hystrix request context around each request, so service calls can remember their
+ * results for the rest of it (see RequestMemo), and closes it when the response is done
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMemoFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HystrixRequestContext context = HystrixRequestContext.initializeContext();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            context.shutdown();
+            HystrixRequestContext.setContextOnCurrentThread(null);
+        }
+    }
+}
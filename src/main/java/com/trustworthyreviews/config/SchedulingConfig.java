@@ -0,0 +1,14 @@
+package com.trustworthyreviews.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled refresh jobs for the in-memory indexes and caches.
+ * The jobs share a pool sized by spring.task.scheduling.pool.size, so a long full reload
+ * does not delay the rating flush.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,8 +2,11 @@ package com.trustworthyreviews.controller;
 
 import com.netflix.hystrix.HystrixCommandMetrics;
 import com.netflix.hystrix.HystrixCommandKey;
+import com.trustworthyreviews.service.AdaptiveTimeouts;
+import com.trustworthyreviews.service.DatabaseBulkheads;
 import com.trustworthyreviews.service.HystrixProductService;
 import com.trustworthyreviews.service.HystrixUserService;
+import com.trustworthyreviews.service.LastKnownGood;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -42,6 +45,18 @@ public class CircuitBreakerDebugController {
     @Autowired
     private HystrixProductService hystrixProductService;
 
+    /** Thread pools the database commands run on */
+    @Autowired
+    private DatabaseBulkheads databaseBulkheads;
+
+    /** Last known good results served by fallbacks */
+    @Autowired
+    private LastKnownGood lastKnownGood;
+
+    /** Timeouts derived from each operation's observed latency */
+    @Autowired
+    private AdaptiveTimeouts adaptiveTimeouts;
+
     /**
      * Flag to enable/disable failure simulation for UserService.
      * When enabled, test requests will include a failure marker that causes exceptions.
@@ -63,6 +78,10 @@ public class CircuitBreakerDebugController {
      * - Circuit breaker state (OPEN/CLOSED) for each command
      * - Total requests, error count, error percentage
      * - Current concurrent execution count
+     * - Single-flight executions and collapsed call counts
+     * - Database bulkhead sizes, usage and rejections
+     * - Fallbacks served from last known good results versus served empty
+     * - Declared and effective timeout of each operation, with the p99 latency behind it
      * - Simulation flags status
      * 
      * @return Map containing circuit breaker metrics for UserService and ProductService commands
@@ -73,11 +92,28 @@ public class CircuitBreakerDebugController {
         
         // Get metrics for all UserService Hystrix commands
         // Command names must match the HystrixCommandKey defined in HystrixUserService
-        status.put("userService", getCommandMetrics("SearchUsers", "GetUserById", "GetFollowing", "GetFollowers"));
+        status.put("userService", getCommandMetrics(
+                "SearchUsers", "SearchUsersResident", "GetUsersByIds", "GetFollowing", "GetFollowers"));
         
         // Get metrics for all ProductService Hystrix commands
         // Command names must match the HystrixCommandKey defined in HystrixProductService
-        status.put("productService", getCommandMetrics("GetAllProducts", "GetProductById", "SearchProducts"));
+        status.put("productService", getCommandMetrics(
+                "GetAllProducts", "GetAllProductsResident", "GetProductsByIds", "SearchProducts", "SearchProductsResident"));
+        
+        // Calls collapsed into an identical in-flight call by the single-flight layer
+        Map<String, Object> singleFlight = new HashMap<>();
+        singleFlight.putAll(hystrixUserService.getSingleFlightStats());
+        singleFlight.putAll(hystrixProductService.getSingleFlightStats());
+        status.put("singleFlight", singleFlight);
+
+        // Threads and queue of each database bulkhead, with calls rejected because it was full
+        status.put("bulkheads", databaseBulkheads.getStats());
+
+        // Fallbacks that served a stale last known good result instead of an empty one
+        status.put("lastKnownGood", lastKnownGood.getStats());
+
+        // Timeouts currently in effect, adapted from each operation's rolling p99 latency
+        status.put("timeouts", adaptiveTimeouts.getStats());
         
         // Include current simulation flags so frontend knows if failures are enabled
         Map<String, Boolean> simulation = new HashMap<>();
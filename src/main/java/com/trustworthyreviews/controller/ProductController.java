@@ -1,8 +1,17 @@
 package com.trustworthyreviews.controller;
 
+import com.trustworthyreviews.model.Product;
 import com.trustworthyreviews.security.SupabaseUser;
+import com.trustworthyreviews.service.EncodedResponse;
 import com.trustworthyreviews.service.HystrixProductService;
+import com.trustworthyreviews.service.ProductCatalog;
+import com.trustworthyreviews.service.ProductCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
@@ -17,10 +26,42 @@ public class ProductController {
     @Autowired
     private HystrixProductService hystrixProductService;
 
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_SUGGESTIONS = 10;
+
+    /**
+     * List products, optionally by category or reviewed by people the caller follows.
+     *
+     * Unpersonalised listings are written straight from the catalog's pre-encoded bodies
+     * (gzip when the client accepts it) and revalidated through their ETag.
+     *
+     * Passing limit or cursor switches to a keyset-paginated response
+     * ({items, nextCursor, hasMore}) ordered by sort: name, or rating (highest first).
+     * By default the whole catalog is ordered by name, and a category or the products
+     * reviewed by people the caller follows by rating, as in the unpaged listings.
+     */
     @GetMapping
-    public List<Map<String, Object>> getAllProducts(
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(required = false) String category,
-            @RequestParam(required = false, defaultValue = "false") boolean onlyFollowing) {
+            @RequestParam(required = false, defaultValue = "false") boolean onlyFollowing,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        boolean allCategories = category == null || category.isEmpty() || "all".equalsIgnoreCase(category);
+        boolean paged = limit != null || cursor != null || sort != null;
+        if (!onlyFollowing && !paged) {
+            EncodedResponse encoded = productCatalog.encodedProducts(allCategories ? null : category);
+            if (encoded != null) {
+                return writeEncoded(encoded, ifNoneMatch, acceptEncoding);
+            }
+        }
         
         String userId = null;
         if (onlyFollowing) {
@@ -30,18 +71,37 @@ public class ProductController {
             }
         }
         
-        if ((category == null || category.isEmpty() || "all".equalsIgnoreCase(category)) && !onlyFollowing) {
-            return hystrixProductService.getAllProducts();
+        if (paged) {
+            ProductCursor.Sort order;
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+            try {
+                order = ProductCursor.Sort.parse(sort,
+                        allCategories && !onlyFollowing ? ProductCursor.Sort.NAME : ProductCursor.Sort.RATING);
+                if (cursor != null && !cursor.isEmpty()) {
+                    ProductCursor.decode(cursor, order);
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+            }
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of("message", "limit must be between 1 and " + MAX_PAGE_SIZE));
+            }
+            return ResponseEntity.ok(hystrixProductService.getProductsPage(
+                    allCategories ? null : category, userId, onlyFollowing, order, cursor, pageSize));
+        }
+
+        if (allCategories && !onlyFollowing) {
+            return ResponseEntity.ok(hystrixProductService.getAllProducts());
         }
         
-        return hystrixProductService.getProductsFiltered(category, userId, onlyFollowing);
+        return ResponseEntity.ok(hystrixProductService.getProductsFiltered(category, userId, onlyFollowing));
     }
 
     /**
      * Get a single product by ID
      */
     @GetMapping("/{id}")
-    public Map<String, Object> getProductById(@PathVariable("id") int productId) {
+    public Product getProductById(@PathVariable("id") int productId) {
         return hystrixProductService.getProductById(productId);
     }
 
@@ -49,10 +109,23 @@ public class ProductController {
      * Search products by query (name or category)
      */
     @GetMapping("/search")
-    public List<Map<String, Object>> searchProducts(@RequestParam("q") String query) {
+    public List<Product> searchProducts(@RequestParam("q") String query) {
         return hystrixProductService.searchProducts(query);
     }
 
+    /**
+     * Autocomplete: products whose name, a word of the name, or category starts with the prefix
+     */
+    @GetMapping("/suggest")
+    public List<Product> suggestProducts(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return hystrixProductService.suggestProducts(prefix.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
     /**
      * Get all distinct categories
      */
@@ -61,4 +134,35 @@ public class ProductController {
         return hystrixProductService.getAllCategories();
     }
 
+    private ResponseEntity<byte[]> writeEncoded(EncodedResponse encoded, String ifNoneMatch, String acceptEncoding) {
+        boolean gzipped = acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(encoded.etag(gzipped));
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+
+        if (encoded.matches(ifNoneMatch, gzipped)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzipped) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(encoded.gzip(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(encoded.identity(), headers, HttpStatus.OK);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
@@ -1,14 +1,22 @@
 package com.trustworthyreviews.controller;
 
+import com.trustworthyreviews.model.EnrichedReviews;
+import com.trustworthyreviews.model.ReviewPage;
 import com.trustworthyreviews.security.SupabaseUser;
+import com.trustworthyreviews.service.ReviewCursor;
+import com.trustworthyreviews.service.ReviewImportService;
 import com.trustworthyreviews.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Map;
 
 @RestController
@@ -18,6 +26,18 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private ReviewImportService reviewImportService;
+
+    @Value("${reviews.import.token:}")
+    private String importToken;
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 50;
+
+    /** Set to true when reviewer details or viewer metrics were cut off by the enrichment deadline */
+    static final String PARTIAL_HEADER = "X-Enrichment-Partial";
+
     @PostMapping("/reviews")
     public ResponseEntity<?> addReview(@RequestBody Map<String, Object> reviewData) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -48,32 +68,118 @@ public class ReviewController {
         }
     }
 
+    /**
+     * Reviews of a product, newest first or (sort=similarity, signed in) most similar first.
+     *
+     * Passing limit or cursor switches to a keyset-paginated response
+     * ({items, nextCursor, hasMore}); only the returned page is enriched.
+     */
     @GetMapping("/products/{id}/reviews")
     public ResponseEntity<?> getProductReviews(
             @PathVariable("id") int productId,
-            @RequestParam(value = "sort", required = false) String sortBy) {
+            @RequestParam(value = "sort", required = false) String sortBy,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentUserId = null;
         if (authentication != null && authentication.getPrincipal() instanceof SupabaseUser user) {
             currentUserId = user.getId();
         }
 
+        if (limit != null || cursor != null) {
+            ReviewCursor.Sort sort = currentUserId == null ? ReviewCursor.Sort.NEWEST : ReviewCursor.Sort.parse(sortBy);
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of("message", "limit must be between 1 and " + MAX_PAGE_SIZE));
+            }
+            try {
+                if (cursor != null && !cursor.isEmpty()) {
+                    ReviewCursor.decode(cursor, sort);
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+            }
+            try {
+                ReviewPage page = reviewService.getReviewsPage(productId, currentUserId, sort, cursor, pageSize);
+                return ResponseEntity.ok().header(PARTIAL_HEADER, String.valueOf(page.partial())).body(page);
+            } catch (Exception e) {
+                return ResponseEntity.status(500).body(Map.of("message", "Error fetching reviews: " + e.getMessage()));
+            }
+        }
+
         try {
-            List<Map<String, Object>> reviews = reviewService.getReviewsForProduct(productId, currentUserId, sortBy);
-            return ResponseEntity.ok(reviews);
+            EnrichedReviews reviews = reviewService.getEnrichedReviewsForProduct(productId, currentUserId, sortBy);
+            return ResponseEntity.ok().header(PARTIAL_HEADER, String.valueOf(reviews.partial())).body(reviews.reviews());
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("message", "Error fetching reviews: " + e.getMessage()));
         }
     }
 
+    /**
+     * Review count, average and distribution. With personalized=true and a signed-in viewer
+     * the summary also carries the viewer's trust-weighted average.
+     */
     @GetMapping("/products/{id}/summary")
-    public ResponseEntity<?> getProductReviewSummary(@PathVariable("id") int productId) {
+    public ResponseEntity<?> getProductReviewSummary(
+            @PathVariable("id") int productId,
+            @RequestParam(value = "personalized", defaultValue = "false") boolean personalized) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String currentUserId = null;
+        if (authentication != null && authentication.getPrincipal() instanceof SupabaseUser user) {
+            currentUserId = user.getId();
+        }
+
         try {
-            Map<String, Object> summary = reviewService.getReviewSummary(productId);
+            Map<String, Object> summary = personalized && currentUserId != null
+                    ? reviewService.getPersonalizedReviewSummary(productId, currentUserId)
+                    : reviewService.getReviewSummary(productId);
             return ResponseEntity.ok(summary);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("message", "Error fetching review summary: " + e.getMessage()));
         }
     }
-}
 
+    /**
+     * Bulk import of reviews from an uploaded file, or a file in the configured import
+     * directory, as NDJSON or CSV. Requires the X-Import-Token header to match
+     * reviews.import.token; the endpoint is disabled when no token is configured.
+     */
+    @PostMapping("/admin/reviews/import")
+    public ResponseEntity<?> importReviews(
+            @RequestHeader(value = "X-Import-Token", required = false) String token,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "path", required = false) String path,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "offset", defaultValue = "0") long offset) {
+        if (importToken == null || importToken.isBlank()) {
+            return ResponseEntity.status(404).body(Map.of("message", "Review import is not enabled"));
+        }
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                importToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(403).body(Map.of("message", "Invalid import token"));
+        }
+        if ((file == null) == (path == null)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Provide either a file or a path"));
+        }
+        if (offset < 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "offset must not be negative"));
+        }
+
+        try {
+            if (file != null) {
+                ReviewImportService.Format importFormat = ReviewImportService.Format.parse(format, file.getOriginalFilename());
+                try (InputStream in = file.getInputStream()) {
+                    return ResponseEntity.ok(reviewImportService.importReviews(in, importFormat, offset));
+                }
+            }
+            ReviewImportService.Format importFormat = ReviewImportService.Format.parse(format, path);
+            return ResponseEntity.ok(reviewImportService.importFile(path, importFormat, offset));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(404).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", "Error importing reviews: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.trustworthyreviews.controller;
+
+import com.trustworthyreviews.service.LastKnownGood;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks responses built from last known good results served by a circuit breaker fallback.
+ *
+ * Adds {@code X-Stale-Age} with the age in seconds of the oldest stale result used, and a
+ * {@code Warning: 110} header, so clients can tell a degraded response from a fresh one.
+ */
+@ControllerAdvice
+public class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STALE_AGE_HEADER = "X-Stale-Age";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(LastKnownGood.STALE_AGE_ATTRIBUTE) instanceof Long ageMs) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(STALE_AGE_HEADER, Long.toString(ageMs / 1000));
+            headers.set(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        }
+        return body;
+    }
+}
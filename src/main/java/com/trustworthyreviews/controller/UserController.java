@@ -1,7 +1,10 @@
 package com.trustworthyreviews.controller;
 
+import com.trustworthyreviews.model.UserSummary;
 import com.trustworthyreviews.security.SupabaseUser;
+import com.trustworthyreviews.service.FollowingProductsIndex;
 import com.trustworthyreviews.service.HystrixUserService;
+import com.trustworthyreviews.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,6 +20,12 @@ public class UserController {
     @Autowired
     private HystrixUserService hystrixUserService;
 
+    @Autowired
+    private FollowingProductsIndex followingProductsIndex;
+
+    @Autowired
+    private ReviewService reviewService;
+
     @GetMapping("/whoami")
     public ResponseEntity<?> whoAmI() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -89,6 +98,26 @@ public class UserController {
         }
     }
 
+    /**
+     * Called by the browser after it follows or unfollows someone, so the
+     * "reviewed by people I follow" listing reflects the change immediately
+     */
+    @PostMapping("/users/me/following/changed")
+    public ResponseEntity<?> followingChanged() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof SupabaseUser user)) {
+            return ResponseEntity.status(401).body(Map.of("message", "Not authenticated"));
+        }
+
+        try {
+            followingProductsIndex.refreshUser(user.getId());
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", "Error refreshing following: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/users/me/followers")
     public ResponseEntity<?> getCurrentUserFollowers() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -104,6 +133,33 @@ public class UserController {
         }
     }
 
+    /**
+     * Reviews by the people the current user follows, newest first, keyset-paginated
+     * ({items, nextCursor, hasMore})
+     */
+    @GetMapping("/users/me/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof SupabaseUser user)) {
+            return ResponseEntity.status(401).body(Map.of("message", "Not authenticated"));
+        }
+
+        if (limit < 1 || limit > ReviewController.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("message", "limit must be between 1 and " + ReviewController.MAX_PAGE_SIZE));
+        }
+
+        try {
+            return ResponseEntity.ok(reviewService.getFeed(user.getId(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("message", "Error fetching feed: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/users/me/similar")
     public ResponseEntity<?> getSimilarUsers(
             @RequestParam(defaultValue = "10") int limit,
@@ -161,7 +217,7 @@ public class UserController {
         }
 
         try {
-            List<Map<String, Object>> mostFollowed = hystrixUserService.getMostFollowedUsers(limit);
+            List<UserSummary> mostFollowed = hystrixUserService.getMostFollowedUsers(limit);
             return ResponseEntity.ok(mostFollowed);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("message", "Error fetching most followed users: " + e.getMessage()));
@@ -0,0 +1,10 @@
+package com.trustworthyreviews.model;
+
+import java.util.List;
+
+/**
+ * A product's reviews with reviewer details and viewer metrics. partial is true when some
+ * of them are missing because enrichment ran out of time.
+ */
+public record EnrichedReviews(List<Review> reviews, boolean partial) {
+}
@@ -0,0 +1,23 @@
+package com.trustworthyreviews.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Immutable row of the products table. Serialises to the same JSON object the
+ * column-map queries produced (snake_case keys, in column order).
+ */
+@JsonPropertyOrder({"product_id", "name", "avg_rating", "description", "image", "link", "category"})
+public record Product(
+        @JsonProperty("product_id") int productId,
+        String name,
+        @JsonProperty("avg_rating") Double avgRating,
+        String description,
+        String image,
+        String link,
+        String category) {
+
+    public Product withAvgRating(Double newAvgRating) {
+        return new Product(productId, name, newAvgRating, description, image, link, category);
+    }
+}
@@ -0,0 +1,13 @@
+package com.trustworthyreviews.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing
+ */
+public record ProductPage(List<Product> items, String nextCursor, boolean hasMore) {
+
+    public static ProductPage empty() {
+        return new ProductPage(List.of(), null, false);
+    }
+}
@@ -0,0 +1,28 @@
+package com.trustworthyreviews.model;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a products row selected with the standard product column aliases
+ */
+public class ProductRowMapper implements RowMapper<Product> {
+
+    public static final ProductRowMapper INSTANCE = new ProductRowMapper();
+
+    @Override
+    public Product mapRow(ResultSet rs, int rowNum) throws SQLException {
+        double avgRating = rs.getDouble("avg_rating");
+        Double nullableAvgRating = rs.wasNull() ? null : avgRating;
+        return new Product(
+                rs.getInt("product_id"),
+                rs.getString("name"),
+                nullableAvgRating,
+                rs.getString("description"),
+                rs.getString("image"),
+                rs.getString("link"),
+                rs.getString("category"));
+    }
+}
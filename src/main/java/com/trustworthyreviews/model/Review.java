@@ -0,0 +1,37 @@
+package com.trustworthyreviews.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.sql.Timestamp;
+
+/**
+ * A product review as returned by the reviews endpoint: the product_reviews row plus the
+ * reviewer's email and display name and, for a signed-in viewer, how close the reviewer is
+ * to them. Enrichment fields that were not computed are left out of the JSON.
+ */
+@JsonPropertyOrder({"review_id", "product_id", "review_rating", "review_desc", "uid", "created_at", "email", "display_name", "degree_of_separation", "similarity_score", "is_own_review"})
+public record Review(
+        @JsonProperty("review_id") int reviewId,
+        @JsonProperty("product_id") int productId,
+        @JsonProperty("review_rating") Integer reviewRating,
+        @JsonProperty("review_desc") String reviewDesc,
+        String uid,
+        @JsonProperty("created_at") Timestamp createdAt,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String email,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("display_name") String displayName,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("degree_of_separation") Integer degreeOfSeparation,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("similarity_score") Double similarityScore,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("is_own_review") Boolean isOwnReview) {
+
+    public Review withReviewer(String newEmail, String newDisplayName) {
+        return new Review(reviewId, productId, reviewRating, reviewDesc, uid, createdAt,
+                newEmail, newDisplayName, degreeOfSeparation, similarityScore, isOwnReview);
+    }
+
+    public Review withRelation(Integer newDegreeOfSeparation, Double newSimilarityScore, Boolean newIsOwnReview) {
+        return new Review(reviewId, productId, reviewRating, reviewDesc, uid, createdAt,
+                email, displayName, newDegreeOfSeparation, newSimilarityScore, newIsOwnReview);
+    }
+}
@@ -0,0 +1,10 @@
+package com.trustworthyreviews.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated review listing. partial is true when reviewer details or
+ * viewer metrics are missing from some items because enrichment ran out of time.
+ */
+public record ReviewPage(List<Review> items, String nextCursor, boolean hasMore, boolean partial) {
+}
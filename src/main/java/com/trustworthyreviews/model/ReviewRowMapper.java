@@ -0,0 +1,29 @@
+package com.trustworthyreviews.model;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a product_reviews row selected as review_id, product_id, review_rating,
+ * review_desc, uid and created_at
+ */
+public class ReviewRowMapper implements RowMapper<Review> {
+
+    public static final ReviewRowMapper INSTANCE = new ReviewRowMapper();
+
+    @Override
+    public Review mapRow(ResultSet rs, int rowNum) throws SQLException {
+        int reviewRating = rs.getInt("review_rating");
+        Integer nullableReviewRating = rs.wasNull() ? null : reviewRating;
+        return new Review(
+                rs.getInt("review_id"),
+                rs.getInt("product_id"),
+                nullableReviewRating,
+                rs.getString("review_desc"),
+                rs.getString("uid"),
+                rs.getTimestamp("created_at"),
+                null, null, null, null, null);
+    }
+}
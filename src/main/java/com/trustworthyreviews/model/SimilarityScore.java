@@ -0,0 +1,13 @@
+package com.trustworthyreviews.model;
+
+import java.sql.Timestamp;
+
+/**
+ * A cached similarity between two users, as stored in user_similarity_cache
+ */
+public record SimilarityScore(
+        double similarityScore,
+        double productSimilarity,
+        double ratingSimilarity,
+        Timestamp lastCalculated) {
+}
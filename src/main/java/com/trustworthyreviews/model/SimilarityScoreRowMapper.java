@@ -0,0 +1,23 @@
+package com.trustworthyreviews.model;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a user_similarity_cache row selected with its score columns and last_calculated
+ */
+public class SimilarityScoreRowMapper implements RowMapper<SimilarityScore> {
+
+    public static final SimilarityScoreRowMapper INSTANCE = new SimilarityScoreRowMapper();
+
+    @Override
+    public SimilarityScore mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new SimilarityScore(
+                rs.getDouble("similarity_score"),
+                rs.getDouble("product_similarity"),
+                rs.getDouble("rating_similarity"),
+                rs.getTimestamp("last_calculated"));
+    }
+}
@@ -0,0 +1,18 @@
+package com.trustworthyreviews.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A user as listed in following, followers and most-followed results. The display name
+ * comes from the user's metadata and is left out when not set; follower_count is only
+ * present in the most-followed listing.
+ */
+@JsonPropertyOrder({"id", "email", "follower_count", "display_name"})
+public record UserSummary(
+        String id,
+        String email,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("follower_count") Long followerCount,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("display_name") String displayName) {
+}
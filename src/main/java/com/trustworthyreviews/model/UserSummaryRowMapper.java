@@ -0,0 +1,56 @@
+package com.trustworthyreviews.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.StringUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a user row selected as id, email and raw_user_meta_data (plus follower_count when
+ * requested), taking the display name out of the metadata JSON
+ */
+public class UserSummaryRowMapper implements RowMapper<UserSummary> {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSummaryRowMapper.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean withFollowerCount;
+
+    public UserSummaryRowMapper(ObjectMapper objectMapper, boolean withFollowerCount) {
+        this.objectMapper = objectMapper;
+        this.withFollowerCount = withFollowerCount;
+    }
+
+    @Override
+    public UserSummary mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String id = rs.getString("id");
+        Long followerCount = null;
+        if (withFollowerCount) {
+            long count = rs.getLong("follower_count");
+            followerCount = rs.wasNull() ? null : count;
+        }
+        return new UserSummary(id, rs.getString("email"), followerCount,
+                displayName(id, rs.getString("raw_user_meta_data")));
+    }
+
+    private String displayName(String id, String metadata) {
+        if (!StringUtils.hasText(metadata) || !metadata.trim().startsWith("{")) {
+            return null;
+        }
+        try {
+            JsonNode displayName = objectMapper.readTree(metadata).get("display_name");
+            if (displayName == null || displayName.isNull()) {
+                return null;
+            }
+            return displayName.isTextual() ? displayName.asText() : displayName.toString();
+        } catch (Exception e) {
+            log.debug("Failed to parse user metadata for user {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+}
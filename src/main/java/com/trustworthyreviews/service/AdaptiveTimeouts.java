@@ -0,0 +1,107 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.trustworthyreviews.service.ProtectedCall.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sets the timeout of each protected operation from its observed latency.
+ *
+ * Every run reads the rolling p99 execution time of each operation and sets its timeout to a
+ * multiple of it, bounded below by a floor and above by a factor of the timeout the operation
+ * was declared with. Operations with too few recent calls to trust their p99 keep their current
+ * timeout. Timeouts are applied as Hystrix command properties, which take effect on the next call.
+ */
+@Component
+public class AdaptiveTimeouts {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveTimeouts.class);
+
+    private final boolean enabled;
+    private final double multiplier;
+    private final int minTimeoutMs;
+    private final double maxFactor;
+    private final long minSamples;
+    private final Map<String, Integer> effective = new ConcurrentHashMap<>();
+    private final Map<String, Integer> observedP99 = new ConcurrentHashMap<>();
+
+    public AdaptiveTimeouts(@Value("${hystrix.adaptive-timeouts.enabled:true}") boolean enabled,
+                            @Value("${hystrix.adaptive-timeouts.p99-multiplier:3.0}") double multiplier,
+                            @Value("${hystrix.adaptive-timeouts.min-ms:250}") int minTimeoutMs,
+                            @Value("${hystrix.adaptive-timeouts.max-factor:2.0}") double maxFactor,
+                            @Value("${hystrix.adaptive-timeouts.min-samples:20}") long minSamples) {
+        this.enabled = enabled;
+        this.multiplier = multiplier;
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxFactor = maxFactor;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Timeout for an operation declared with the given timeout whose p99 latency is observed
+     */
+    int timeoutFor(int p99Ms, int declaredTimeoutMs) {
+        int ceiling = Math.max(minTimeoutMs, (int) Math.round(declaredTimeoutMs * maxFactor));
+        int timeout = (int) Math.ceil(p99Ms * multiplier);
+        return Math.max(minTimeoutMs, Math.min(ceiling, timeout));
+    }
+
+    @Scheduled(initialDelayString = "${hystrix.adaptive-timeouts.interval-ms:10000}",
+               fixedDelayString = "${hystrix.adaptive-timeouts.interval-ms:10000}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+        for (Operation operation : Operation.all()) {
+            try {
+                adjust(operation);
+            } catch (Exception e) {
+                log.warn("Failed to adjust the timeout of {}: {}", operation.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void adjust(Operation operation) {
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(HystrixCommandKey.Factory.asKey(operation.getName()));
+        if (metrics == null || metrics.getHealthCounts().getTotalRequests() < minSamples) {
+            return;
+        }
+        int p99 = metrics.getExecutionTimePercentile(99);
+        if (p99 <= 0) {
+            return;
+        }
+        observedP99.put(operation.getName(), p99);
+        int timeout = timeoutFor(p99, operation.getTimeoutMs());
+        Integer previous = effective.put(operation.getName(), timeout);
+        if (previous == null || previous != timeout) {
+            ConfigurationManager.getConfigInstance().setProperty(
+                    "hystrix.command." + operation.getName() + ".execution.isolation.thread.timeoutInMilliseconds", timeout);
+            log.debug("Timeout of {} set to {} ms from p99 of {} ms", operation.getName(), timeout, p99);
+        }
+    }
+
+    /**
+     * Declared and effective timeout of each operation, with the p99 the effective one came from
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Operation operation : Operation.all()) {
+            Map<String, Object> operationStats = new HashMap<>();
+            operationStats.put("declaredMs", operation.getTimeoutMs());
+            operationStats.put("effectiveMs", effective.getOrDefault(operation.getName(), operation.getTimeoutMs()));
+            operationStats.put("p99Ms", observedP99.get(operation.getName()));
+            stats.put(operation.getName(), operationStats);
+        }
+        return stats;
+    }
+}
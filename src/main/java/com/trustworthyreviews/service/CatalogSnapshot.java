@@ -0,0 +1,223 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Immutable view of the product catalog.
+ *
+ * Holds an id-indexed array of products plus pre-sorted views (by name, and by
+ * avg_rating DESC NULLS LAST then name) for the whole catalog and for every category.
+ * Changes never mutate a snapshot; {@link #withAvgRating} returns a patched copy that
+ * shares every list it did not need to touch. Besides its version, a snapshot carries the
+ * version at which product text (name, category, description) last changed, which rating
+ * patches keep, so text-derived indexes can skip them.
+ */
+public final class CatalogSnapshot {
+
+    /** Product ids are serial; beyond this the id-indexed array would be mostly empty */
+    static final int MAX_DENSE_ID = 4_000_000;
+
+    /**
+     * Unicode code point order: the byte order of UTF-8, so the order of PostgreSQL's "C"
+     * collation. String.compareTo differs from it only for characters outside the BMP.
+     */
+    static final Comparator<String> CODE_POINT_ORDER = (a, b) -> {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                if (Character.isSurrogate(ca) != Character.isSurrogate(cb)) {
+                    return Character.isSurrogate(ca) ? 1 : -1;
+                }
+                return ca - cb;
+            }
+        }
+        return a.length() - b.length();
+    };
+
+    /** Same order as the keyset queries: LOWER(name), name NULLS LAST, product_id, in the "C" collation */
+    static final Comparator<Product> BY_NAME = Comparator
+            .comparing((Product product) -> product.name() == null ? null : product.name().toLowerCase(Locale.ROOT),
+                    Comparator.nullsLast(CODE_POINT_ORDER))
+            .thenComparing(Product::name, Comparator.nullsLast(CODE_POINT_ORDER))
+            .thenComparingInt(Product::productId);
+
+    static final Comparator<Product> BY_RATING = Comparator
+            .comparing(Product::avgRating, Comparator.nullsLast(Comparator.<Double>reverseOrder()))
+            .thenComparing(BY_NAME);
+
+    private final long version;
+    private final long textVersion;
+    private final Product[] byId;
+    private final int size;
+    private final List<Product> byName;
+    private final List<Product> byRating;
+    private final Map<String, List<Product>> categoryByName;
+    private final Map<String, List<Product>> categoryByRating;
+    private final List<String> categories;
+
+    private CatalogSnapshot(long version, long textVersion, Product[] byId, int size,
+                            List<Product> byName, List<Product> byRating,
+                            Map<String, List<Product>> categoryByName,
+                            Map<String, List<Product>> categoryByRating,
+                            List<String> categories) {
+        this.version = version;
+        this.textVersion = textVersion;
+        this.byId = byId;
+        this.size = size;
+        this.byName = byName;
+        this.byRating = byRating;
+        this.categoryByName = categoryByName;
+        this.categoryByRating = categoryByRating;
+        this.categories = categories;
+    }
+
+    public static CatalogSnapshot build(Collection<Product> products, long version) {
+        int maxId = -1;
+        for (Product product : products) {
+            if (product.productId() < 0 || product.productId() > MAX_DENSE_ID) {
+                throw new IllegalArgumentException("Product id " + product.productId() + " outside catalog index range");
+            }
+            maxId = Math.max(maxId, product.productId());
+        }
+
+        Product[] byId = new Product[maxId + 1];
+        Map<String, List<Product>> grouped = new HashMap<>();
+        TreeSet<String> categorySet = new TreeSet<>();
+        for (Product product : products) {
+            byId[product.productId()] = product;
+            if (product.category() != null) {
+                grouped.computeIfAbsent(product.category(), key -> new ArrayList<>()).add(product);
+                categorySet.add(product.category());
+            }
+        }
+
+        Map<String, List<Product>> categoryByName = new HashMap<>();
+        Map<String, List<Product>> categoryByRating = new HashMap<>();
+        grouped.forEach((category, members) -> {
+            categoryByName.put(category, sorted(members, BY_NAME));
+            categoryByRating.put(category, sorted(members, BY_RATING));
+        });
+
+        return new CatalogSnapshot(version, version, byId, products.size(),
+                sorted(products, BY_NAME), sorted(products, BY_RATING),
+                Collections.unmodifiableMap(categoryByName), Collections.unmodifiableMap(categoryByRating),
+                List.copyOf(categorySet));
+    }
+
+    /**
+     * Copy of this snapshot with one product's avg_rating replaced.
+     * Returns this snapshot unchanged when the product is unknown or the rating is the same.
+     */
+    public CatalogSnapshot withAvgRating(int productId, Double avgRating, long newVersion) {
+        Product current = get(productId);
+        if (current == null || Objects.equals(current.avgRating(), avgRating)) {
+            return this;
+        }
+        Product updated = current.withAvgRating(avgRating);
+
+        Product[] newById = byId.clone();
+        newById[productId] = updated;
+
+        Map<String, List<Product>> newCategoryByName = categoryByName;
+        Map<String, List<Product>> newCategoryByRating = categoryByRating;
+        if (current.category() != null) {
+            newCategoryByName = new HashMap<>(categoryByName);
+            newCategoryByName.put(current.category(), replaced(categoryByName.get(current.category()), current, updated));
+            newCategoryByName = Collections.unmodifiableMap(newCategoryByName);
+
+            newCategoryByRating = new HashMap<>(categoryByRating);
+            newCategoryByRating.put(current.category(), resorted(categoryByRating.get(current.category()), current, updated));
+            newCategoryByRating = Collections.unmodifiableMap(newCategoryByRating);
+        }
+
+        return new CatalogSnapshot(newVersion, textVersion, newById, size,
+                replaced(byName, current, updated), resorted(byRating, current, updated),
+                newCategoryByName, newCategoryByRating, categories);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Version of the build this snapshot's product text comes from; unchanged by rating patches
+     */
+    public long textVersion() {
+        return textVersion;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Product get(int productId) {
+        return productId >= 0 && productId < byId.length ? byId[productId] : null;
+    }
+
+    public List<Product> allByName() {
+        return byName;
+    }
+
+    public List<Product> allByRating() {
+        return byRating;
+    }
+
+    public List<Product> byName(String category) {
+        return categoryByName.getOrDefault(category, Collections.emptyList());
+    }
+
+    public List<Product> byRating(String category) {
+        return categoryByRating.getOrDefault(category, Collections.emptyList());
+    }
+
+    public List<String> categories() {
+        return categories;
+    }
+
+    public boolean hasCategory(String category) {
+        return categoryByRating.containsKey(category);
+    }
+
+    /**
+     * True when both snapshots hold exactly the same products
+     */
+    public boolean sameContent(CatalogSnapshot other) {
+        return other != null && byName.equals(other.byName);
+    }
+
+    private static List<Product> sorted(Collection<Product> products, Comparator<Product> order) {
+        List<Product> list = new ArrayList<>(products);
+        list.sort(order);
+        return Collections.unmodifiableList(list);
+    }
+
+    /** Replace an element whose sort position does not change under BY_NAME */
+    private static List<Product> replaced(List<Product> list, Product current, Product updated) {
+        List<Product> copy = new ArrayList<>(list);
+        int index = Collections.binarySearch(copy, current, BY_NAME);
+        copy.set(index, updated);
+        return Collections.unmodifiableList(copy);
+    }
+
+    /** Move an element to its new position under BY_RATING */
+    private static List<Product> resorted(List<Product> list, Product current, Product updated) {
+        List<Product> copy = new ArrayList<>(list);
+        copy.remove(Collections.binarySearch(copy, current, BY_RATING));
+        int insertAt = Collections.binarySearch(copy, updated, BY_RATING);
+        copy.add(insertAt < 0 ? -insertAt - 1 : insertAt, updated);
+        return Collections.unmodifiableList(copy);
+    }
+}
@@ -0,0 +1,95 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.trustworthyreviews.service.ProtectedCall.Bulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizes the database bulkheads from the JDBC connection pool.
+ *
+ * Each bulkhead gets a share of the pool's connections as threads (at least one), so the
+ * threads that can block on JDBC stay close to the connections available and heavy
+ * operations can never hold every connection. The sizes are applied as Hystrix thread pool
+ * properties when the application starts.
+ */
+@Component
+public class DatabaseBulkheads {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBulkheads.class);
+
+    private final Map<Bulkhead, Integer> threads = new EnumMap<>(Bulkhead.class);
+    private final Map<Bulkhead, Integer> queueSizes = new EnumMap<>(Bulkhead.class);
+
+    public DatabaseBulkheads(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections,
+                             @Value("${hystrix.bulkheads.point-reads.share:1.0}") double pointReadsShare,
+                             @Value("${hystrix.bulkheads.point-reads.queue-size:20}") int pointReadsQueueSize,
+                             @Value("${hystrix.bulkheads.list-reads.share:0.6}") double listReadsShare,
+                             @Value("${hystrix.bulkheads.list-reads.queue-size:10}") int listReadsQueueSize,
+                             @Value("${hystrix.bulkheads.heavy.share:0.4}") double heavyShare,
+                             @Value("${hystrix.bulkheads.heavy.queue-size:5}") int heavyQueueSize) {
+        size(Bulkhead.POINT_READS, threadsFor(connections, pointReadsShare), pointReadsQueueSize);
+        size(Bulkhead.LIST_READS, threadsFor(connections, listReadsShare), listReadsQueueSize);
+        size(Bulkhead.HEAVY, threadsFor(connections, heavyShare), heavyQueueSize);
+        log.info("Database bulkheads sized for {} connections: {} threads, queues {}", connections, threads, queueSizes);
+    }
+
+    /**
+     * Threads for a bulkhead given its share of the connection pool
+     */
+    static int threadsFor(int connections, double share) {
+        return Math.max(1, (int) Math.round(connections * share));
+    }
+
+    private void size(Bulkhead bulkhead, int threadCount, int queueSize) {
+        // a threshold of 0 would reject every call, and the queue itself cannot grow past its capacity
+        int queue = Math.max(1, Math.min(queueSize, ProtectedCall.BULKHEAD_MAX_QUEUE_SIZE));
+        String prefix = "hystrix.threadpool." + bulkhead.getName() + ".";
+        ConfigurationManager.getConfigInstance().setProperty(prefix + "coreSize", threadCount);
+        ConfigurationManager.getConfigInstance().setProperty(prefix + "maximumSize", threadCount);
+        ConfigurationManager.getConfigInstance().setProperty(prefix + "queueSizeRejectionThreshold", queue);
+        threads.put(bulkhead, threadCount);
+        queueSizes.put(bulkhead, queue);
+    }
+
+    public int getThreads(Bulkhead bulkhead) {
+        return threads.get(bulkhead);
+    }
+
+    public int getQueueSize(Bulkhead bulkhead) {
+        return queueSizes.get(bulkhead);
+    }
+
+    /**
+     * Size, current use and rejections of each bulkhead
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Bulkhead bulkhead : Bulkhead.values()) {
+            Map<String, Object> bulkheadStats = new HashMap<>();
+            bulkheadStats.put("threads", threads.get(bulkhead));
+            bulkheadStats.put("queueSize", queueSizes.get(bulkhead));
+            HystrixThreadPoolMetrics metrics = HystrixThreadPoolMetrics.getInstance(bulkhead.getKey());
+            if (metrics != null) {
+                bulkheadStats.put("activeThreads", metrics.getCurrentActiveCount());
+                bulkheadStats.put("queued", metrics.getCurrentQueueSize());
+                bulkheadStats.put("rollingRejected", metrics.getRollingCountThreadsRejected());
+                bulkheadStats.put("cumulativeRejected", metrics.getCumulativeCountThreadsRejected());
+            } else {
+                bulkheadStats.put("activeThreads", 0);
+                bulkheadStats.put("queued", 0);
+                bulkheadStats.put("rollingRejected", 0L);
+                bulkheadStats.put("cumulativeRejected", 0L);
+            }
+            stats.put(bulkhead.getName(), bulkheadStats);
+        }
+        return stats;
+    }
+}
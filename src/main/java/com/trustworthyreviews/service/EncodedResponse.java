@@ -0,0 +1,38 @@
+package com.trustworthyreviews.service;
+
+/**
+ * Pre-serialised JSON response body in identity and gzip encodings, with its strong ETag.
+ * The gzip body is a different representation, so it is tagged with a "-gz" suffix.
+ */
+public record EncodedResponse(String etag, byte[] identity, byte[] gzip) {
+
+    /**
+     * The ETag of the identity or gzip body
+     */
+    public String etag(boolean gzipped) {
+        return gzipped ? etag.substring(0, etag.length() - 1) + "-gz\"" : etag;
+    }
+
+    /**
+     * True when an If-None-Match header value matches the ETag of the body in that encoding
+     */
+    public boolean matches(String ifNoneMatch, boolean gzipped) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = etag(gzipped);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
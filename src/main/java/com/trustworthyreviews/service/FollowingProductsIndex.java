@@ -0,0 +1,330 @@
+package com.trustworthyreviews.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resident follow graph and review sets, answering "which products were reviewed by
+ * people this user follows" without joining relations and product_reviews.
+ *
+ * Each user's answer is a bitset of product ids, computed on first use from the resident
+ * structures and cached. A cached set is dropped when the user's followees change or one
+ * of them reviews a product. Reviews written through this backend are applied as they
+ * commit; follows are written by the browser straight to Supabase, so the graph is also
+ * reconciled against the database periodically and on request for a single user. Reviews
+ * recorded while a reconcile is reading are re-applied after its swap, since the rows it
+ * read may predate them. Cached bitsets are shared and must not be modified by callers.
+ */
+@Component
+public class FollowingProductsIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowingProductsIndex.class);
+
+    private static final String RELATIONS_SQL = "SELECT uid AS \"uid\", following AS \"following\" FROM relations";
+    private static final String USER_RELATIONS_SQL =
+            "SELECT following AS \"following\" FROM relations WHERE uid = ?::uuid";
+    private static final String REVIEWS_SQL =
+            "SELECT DISTINCT uid AS \"uid\", product_id AS \"product_id\" FROM product_reviews WHERE uid IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object lock = new Object();
+    private final Map<String, Set<String>> following = new HashMap<>();
+    private final Map<String, Set<String>> followers = new HashMap<>();
+    private final Map<String, BitSet> reviewed = new HashMap<>();
+    private final Map<String, BitSet> cache = new ConcurrentHashMap<>();
+    /** Reviews recorded since the running reconcile started reading; null when none is running */
+    private Map<String, BitSet> reviewedDuringLoad;
+    private volatile boolean ready;
+
+    @Value("${social.following-index.enabled:true}")
+    private boolean enabled;
+
+    public FollowingProductsIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public int cachedUsers() {
+        return cache.size();
+    }
+
+    /**
+     * Product ids reviewed by anyone the user follows, or null when the index is not ready
+     */
+    public BitSet productsReviewedByFollowees(String userId) {
+        if (!isReady() || userId == null) {
+            return null;
+        }
+        BitSet cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (lock) {
+            BitSet products = new BitSet();
+            for (String followee : following.getOrDefault(userId, Collections.emptySet())) {
+                BitSet theirs = reviewed.get(followee);
+                if (theirs != null) {
+                    products.or(theirs);
+                }
+            }
+            cache.put(userId, products);
+            return products;
+        }
+    }
+
+    /**
+     * Users the given user follows, or null when the index is not ready
+     */
+    public Set<String> followeesOf(String userId) {
+        if (!isReady() || userId == null) {
+            return null;
+        }
+        synchronized (lock) {
+            return new HashSet<>(following.getOrDefault(userId, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Users following the given user, or null when the index is not ready
+     */
+    public Set<String> followersOf(String userId) {
+        if (!isReady() || userId == null) {
+            return null;
+        }
+        synchronized (lock) {
+            return new HashSet<>(followers.getOrDefault(userId, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Number of users following the given user, or -1 when the index is not ready
+     */
+    public int followerCount(String userId) {
+        if (!isReady() || userId == null) {
+            return -1;
+        }
+        synchronized (lock) {
+            return followers.getOrDefault(userId, Collections.emptySet()).size();
+        }
+    }
+
+    /**
+     * Follow-graph distance (1 = followed directly) from the user to each target reachable
+     * within maxDegree hops, found by one breadth-first walk; null when the index is not ready
+     */
+    public Map<String, Integer> degreesOfSeparation(String fromUserId, Set<String> targets, int maxDegree) {
+        if (!isReady() || fromUserId == null) {
+            return null;
+        }
+        Map<String, Integer> degrees = new HashMap<>();
+        synchronized (lock) {
+            Set<String> visited = new HashSet<>();
+            visited.add(fromUserId);
+            List<String> frontier = List.of(fromUserId);
+            for (int degree = 1; degree <= maxDegree && !frontier.isEmpty() && degrees.size() < targets.size(); degree++) {
+                List<String> next = new ArrayList<>();
+                for (String user : frontier) {
+                    for (String followee : following.getOrDefault(user, Collections.emptySet())) {
+                        if (visited.add(followee)) {
+                            next.add(followee);
+                            if (targets.contains(followee)) {
+                                degrees.put(followee, degree);
+                            }
+                        }
+                    }
+                }
+                frontier = next;
+            }
+        }
+        return degrees;
+    }
+
+    /**
+     * Record a review so the reviewer's followers see the product, once the surrounding
+     * transaction commits (or immediately when there is none).
+     */
+    public void recordReviewAfterCommit(String userId, int productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordReview(userId, productId);
+                }
+            });
+        } else {
+            recordReview(userId, productId);
+        }
+    }
+
+    public void recordReview(String userId, int productId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (reviewedDuringLoad != null) {
+                reviewedDuringLoad.computeIfAbsent(userId, key -> new BitSet()).set(productId);
+            }
+            if (!ready) {
+                return;
+            }
+            BitSet products = reviewed.computeIfAbsent(userId, key -> new BitSet());
+            if (!products.get(productId)) {
+                products.set(productId);
+                invalidateFollowersOf(userId);
+            }
+        }
+    }
+
+    /**
+     * Reload one user's followees, after they followed or unfollowed someone
+     */
+    public void refreshUser(String userId) {
+        if (!isReady() || userId == null) {
+            return;
+        }
+        List<String> rows = jdbcTemplate.queryForList(USER_RELATIONS_SQL, String.class, userId);
+        synchronized (lock) {
+            setFollowees(userId, new HashSet<>(rows));
+        }
+    }
+
+    /**
+     * Reconcile the resident graph and review sets with the database. Only users whose
+     * followees changed, and followers of users whose reviews changed, lose their cached set.
+     */
+    @Scheduled(initialDelayString = "${social.following-index.initial-delay-ms:0}",
+               fixedDelayString = "${social.following-index.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            reviewedDuringLoad = new HashMap<>();
+        }
+        try {
+            Map<String, Set<String>> loadedFollowing = new HashMap<>();
+            jdbcTemplate.query(RELATIONS_SQL, rs -> {
+                loadedFollowing.computeIfAbsent(rs.getString("uid"), key -> new HashSet<>()).add(rs.getString("following"));
+            });
+            Map<String, BitSet> loadedReviewed = new HashMap<>();
+            jdbcTemplate.query(REVIEWS_SQL, rs -> {
+                loadedReviewed.computeIfAbsent(rs.getString("uid"), key -> new BitSet()).set(rs.getInt("product_id"));
+            });
+            int invalidated = apply(loadedFollowing, loadedReviewed);
+            if (invalidated > 0) {
+                log.info("Following index reconciled: {} cached users invalidated", invalidated);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load following index: {}", e.getMessage());
+        } finally {
+            synchronized (lock) {
+                reviewedDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Replace the resident state with the loaded one, invalidating what changed
+     *
+     * @return number of cached sets dropped
+     */
+    int apply(Map<String, Set<String>> loadedFollowing, Map<String, BitSet> loadedReviewed) {
+        synchronized (lock) {
+            int before = cache.size();
+            if (!ready) {
+                cache.clear();
+            }
+
+            for (String userId : union(following.keySet(), loadedFollowing.keySet())) {
+                setFollowees(userId, loadedFollowing.getOrDefault(userId, Collections.emptySet()));
+            }
+
+            for (String userId : union(reviewed.keySet(), loadedReviewed.keySet())) {
+                BitSet loaded = loadedReviewed.get(userId);
+                if (!Objects.equals(reviewed.get(userId), loaded)) {
+                    if (loaded == null) {
+                        reviewed.remove(userId);
+                    } else {
+                        reviewed.put(userId, loaded);
+                    }
+                    invalidateFollowersOf(userId);
+                }
+            }
+
+            if (reviewedDuringLoad != null) {
+                for (Map.Entry<String, BitSet> recorded : reviewedDuringLoad.entrySet()) {
+                    BitSet products = reviewed.computeIfAbsent(recorded.getKey(), key -> new BitSet());
+                    BitSet missing = (BitSet) recorded.getValue().clone();
+                    missing.andNot(products);
+                    if (!missing.isEmpty()) {
+                        products.or(missing);
+                        invalidateFollowersOf(recorded.getKey());
+                    }
+                }
+            }
+
+            ready = true;
+            return before - cache.size();
+        }
+    }
+
+    private void setFollowees(String userId, Set<String> followees) {
+        Set<String> current = following.getOrDefault(userId, Collections.emptySet());
+        if (current.equals(followees)) {
+            return;
+        }
+        for (String removed : current) {
+            if (!followees.contains(removed)) {
+                Set<String> theirFollowers = followers.get(removed);
+                if (theirFollowers != null) {
+                    theirFollowers.remove(userId);
+                    if (theirFollowers.isEmpty()) {
+                        followers.remove(removed);
+                    }
+                }
+            }
+        }
+        for (String added : followees) {
+            followers.computeIfAbsent(added, key -> new HashSet<>()).add(userId);
+        }
+        if (followees.isEmpty()) {
+            following.remove(userId);
+        } else {
+            following.put(userId, new HashSet<>(followees));
+        }
+        cache.remove(userId);
+    }
+
+    private void invalidateFollowersOf(String userId) {
+        for (String follower : followers.getOrDefault(userId, Collections.emptySet())) {
+            cache.remove(follower);
+        }
+    }
+
+    private static Set<String> union(Collection<String> a, Collection<String> b) {
+        Set<String> all = new HashSet<>(a);
+        all.addAll(b);
+        return all;
+    }
+}
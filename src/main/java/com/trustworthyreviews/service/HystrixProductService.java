@@ -1,216 +1,264 @@
 package com.trustworthyreviews.service;
 
+import com.netflix.hystrix.HystrixCollapser;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserProperties;
 import com.netflix.hystrix.HystrixCommand;
-import com.netflix.hystrix.HystrixCommandGroupKey;
-import com.netflix.hystrix.HystrixCommandKey;
-import com.netflix.hystrix.HystrixCommandProperties;
+import com.trustworthyreviews.model.Product;
+import com.trustworthyreviews.model.ProductPage;
+import com.trustworthyreviews.service.ProtectedCall.Bulkhead;
+import com.trustworthyreviews.service.ProtectedCall.Operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Hystrix-wrapped ProductService methods for circuit breaker protection
+ * Hystrix-wrapped ProductService methods for circuit breaker protection.
+ * Fallbacks serve the last known good result for the same arguments when there is one.
  */
 @Service
 public class HystrixProductService {
 
     private static final Logger log = LoggerFactory.getLogger(HystrixProductService.class);
     
+    private static final String ALL_PRODUCTS_KEY = "all";
+
+    private static final Operation GET_ALL_PRODUCTS = Operation.database("GetAllProducts", Bulkhead.LIST_READS, 3000);
+    private static final Operation GET_ALL_PRODUCTS_RESIDENT = Operation.resident("GetAllProductsResident", 1000);
+    private static final Operation GET_PRODUCTS_BY_IDS = Operation.database("GetProductsByIds", Bulkhead.POINT_READS, 3000);
+    private static final Operation SEARCH_PRODUCTS = Operation.database("SearchProducts", Bulkhead.LIST_READS, 3000);
+    private static final Operation SEARCH_PRODUCTS_RESIDENT = Operation.resident("SearchProductsResident", 1000);
+    private static final Operation SUGGEST_PRODUCTS = Operation.database("SuggestProducts", Bulkhead.LIST_READS, 1000);
+    private static final Operation GET_PRODUCTS_FILTERED = Operation.database("GetProductsFiltered", Bulkhead.LIST_READS, 3000);
+    private static final Operation GET_PRODUCTS_FILTERED_RESIDENT = Operation.resident("GetProductsFilteredResident", 1000);
+    private static final Operation GET_PRODUCTS_PAGE = Operation.database("GetProductsPage", Bulkhead.LIST_READS, 3000);
+    private static final Operation GET_PRODUCTS_PAGE_RESIDENT = Operation.resident("GetProductsPageResident", 1000);
+    private static final Operation GET_ALL_CATEGORIES = Operation.database("GetAllCategories", Bulkhead.LIST_READS, 3000);
+    private static final Operation GET_ALL_CATEGORIES_RESIDENT = Operation.resident("GetAllCategoriesResident", 1000);
+
+    /**
+     * Global-scope collapsers are shared by key across the JVM and batch through the service of
+     * the instance that created them, so each instance of this service gets its own key
+     */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
     private final ProductService productService;
+    private final LastKnownGood lastKnownGood;
+    private final HystrixCollapserKey byIdCollapserKey;
+    private final SingleFlight<String, LastKnownGood.Result<List<Product>>> allProductsFlight = new SingleFlight<>("GetAllProducts");
+    private final SingleFlight<Integer, LastKnownGood.Result<Product>> productByIdFlight = new SingleFlight<>("GetProductById");
+
+    @Value("${hystrix.collapsing.window-ms:10}")
+    private int collapsingWindowMs = 10;
+
+    @Value("${hystrix.collapsing.max-batch-size:50}")
+    private int collapsingMaxBatchSize = 50;
 
     public HystrixProductService(ProductService productService) {
+        this(productService, new LastKnownGood());
+    }
+
+    @Autowired
+    public HystrixProductService(ProductService productService, LastKnownGood lastKnownGood) {
         this.productService = productService;
+        this.lastKnownGood = lastKnownGood;
+        this.byIdCollapserKey = HystrixCollapserKey.Factory.asKey("GetProductById-" + INSTANCES.incrementAndGet());
     }
 
     /**
-     * Get all products with circuit breaker protection
+     * Get all products with circuit breaker protection.
+     * Concurrent callers share one command execution.
      */
-    public List<Map<String, Object>> getAllProducts() {
-        return new GetAllProductsCommand(productService).execute();
+    public List<Product> getAllProducts() {
+        Operation operation = productService.isCatalogResident() ? GET_ALL_PRODUCTS_RESIDENT : GET_ALL_PRODUCTS;
+        return LastKnownGood.served(allProductsFlight.execute(ALL_PRODUCTS_KEY, () -> operation.execute(
+                lastKnownGood, LastKnownGood.key("GetAllProducts"), () -> SingleFlight.sharedList(productService.getAllProducts()), () -> {
+            log.warn("GetAllProducts circuit breaker opened or timed out. Returning empty list.");
+            return Collections.emptyList();
+        })));
     }
 
     /**
-     * Get product by ID with circuit breaker protection
+     * Get product by ID with circuit breaker protection.
+     * Concurrent callers for the same product share one command execution, and lookups for
+     * different products arriving within the collapsing window are fetched with one query.
+     * Answered directly from the catalog when it is resident.
      */
-    public Map<String, Object> getProductById(int productId) {
-        return new GetProductByIdCommand(productId, productService).execute();
+    public Product getProductById(int productId) {
+        if (productService.isCatalogResident()) {
+            return productService.getProductById(productId);
+        }
+        return LastKnownGood.served(productByIdFlight.execute(productId, () -> new GetProductByIdCollapser(
+                byIdCollapserKey, productId, productService, lastKnownGood,
+                collapsingWindowMs, collapsingMaxBatchSize).execute()));
     }
 
     /**
      * Search products with circuit breaker protection
      */
-    public List<Map<String, Object>> searchProducts(String query) {
-        return new SearchProductsCommand(query, productService).execute();
+    public List<Product> searchProducts(String query) {
+        Operation operation = productService.isSearchResident() ? SEARCH_PRODUCTS_RESIDENT : SEARCH_PRODUCTS;
+        return LastKnownGood.served(operation.execute(lastKnownGood, LastKnownGood.key("SearchProducts", query),
+                () -> productService.searchProducts(query), () -> {
+            log.warn("SearchProducts circuit breaker opened or timed out for query '{}'. Returning empty list.", query);
+            return Collections.emptyList();
+        }));
     }
 
     /**
-     * Get products with filters with circuit breaker protection
+     * Autocomplete suggestions. Answered in-process from the suggestion trie when it is
+     * built; only the SQL fallback runs under the circuit breaker.
      */
-    public List<Map<String, Object>> getProductsFiltered(String category, String userId, boolean onlyFollowing) {
-        return new GetProductsFilteredCommand(category, userId, onlyFollowing, productService).execute();
+    public List<Product> suggestProducts(String prefix, int limit) {
+        List<Product> resident = productService.suggestProductsFromCatalog(prefix, limit);
+        if (resident != null) {
+            return resident;
+        }
+        return LastKnownGood.served(SUGGEST_PRODUCTS.execute(lastKnownGood,
+                LastKnownGood.key("SuggestProducts", prefix, limit), () -> productService.suggestProducts(prefix, limit), () -> {
+            log.warn("SuggestProducts circuit breaker opened or timed out for prefix '{}'. Returning empty list.", prefix);
+            return Collections.emptyList();
+        }));
     }
 
     /**
-     * Get all categories with circuit breaker protection
+     * Get products with filters with circuit breaker protection
      */
-    public List<String> getAllCategories() {
-        return new GetAllCategoriesCommand(productService).execute();
+    public List<Product> getProductsFiltered(String category, String userId, boolean onlyFollowing) {
+        Operation operation = productService.isListingResident(userId, onlyFollowing)
+                ? GET_PRODUCTS_FILTERED_RESIDENT : GET_PRODUCTS_FILTERED;
+        return LastKnownGood.served(operation.execute(lastKnownGood,
+                LastKnownGood.key("GetProductsFiltered", category, userId, onlyFollowing),
+                () -> productService.getProductsFiltered(category, userId, onlyFollowing), () -> {
+            log.warn("GetProductsFiltered circuit breaker opened or timed out. Returning empty list.");
+            return Collections.emptyList();
+        }));
     }
 
-    // Hystrix Commands
-
-    private static class GetAllProductsCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final ProductService productService;
-
-        protected GetAllProductsCommand(ProductService productService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetAllProducts"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.productService = productService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return productService.getAllProducts();
-        }
+    /**
+     * Get one page of a product listing with circuit breaker protection
+     */
+    public ProductPage getProductsPage(String category, String userId, boolean onlyFollowing,
+                                       ProductCursor.Sort sort, String cursor, int limit) {
+        Operation operation = productService.isListingResident(userId, onlyFollowing)
+                ? GET_PRODUCTS_PAGE_RESIDENT : GET_PRODUCTS_PAGE;
+        return LastKnownGood.served(operation.execute(lastKnownGood,
+                LastKnownGood.key("GetProductsPage", category, userId, onlyFollowing, sort, cursor, limit),
+                () -> productService.getProductsPage(category, userId, onlyFollowing, sort, cursor, limit), () -> {
+            log.warn("GetProductsPage circuit breaker opened or timed out. Returning empty page.");
+            return ProductPage.empty();
+        }));
+    }
 
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("GetAllProducts circuit breaker opened or timed out. Returning empty list.");
+    /**
+     * Get all categories with circuit breaker protection
+     */
+    public List<String> getAllCategories() {
+        Operation operation = productService.isCatalogResident() ? GET_ALL_CATEGORIES_RESIDENT : GET_ALL_CATEGORIES;
+        return LastKnownGood.served(operation.execute(lastKnownGood, LastKnownGood.key("GetAllCategories"),
+                productService::getAllCategories, () -> {
+            log.warn("GetAllCategories circuit breaker opened or timed out. Returning empty list.");
             return Collections.emptyList();
-        }
+        }));
     }
 
-    private static class GetProductByIdCommand extends HystrixCommand<Map<String, Object>> {
-        private final int productId;
-        private final ProductService productService;
-
-        protected GetProductByIdCommand(int productId, ProductService productService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetProductById"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.productId = productId;
-            this.productService = productService;
-        }
-
-        @Override
-        protected Map<String, Object> run() throws Exception {
-            return productService.getProductById(productId);
-        }
-
-        @Override
-        protected Map<String, Object> getFallback() {
-            log.warn("GetProductById circuit breaker opened or timed out for product {}. Returning null.", productId);
-            return null;
-        }
+    /**
+     * Executions and collapsed calls for the single-flight wrapped entry points
+     */
+    public Map<String, Object> getSingleFlightStats() {
+        return Map.of(
+                allProductsFlight.getName(), allProductsFlight.getStats(),
+                productByIdFlight.getName(), productByIdFlight.getStats());
     }
 
-    private static class SearchProductsCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final String query;
-        private final ProductService productService;
-
-        protected SearchProductsCommand(String query, ProductService productService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("SearchProducts"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.query = query;
-            this.productService = productService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return productService.searchProducts(query);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("SearchProducts circuit breaker opened or timed out for query '{}'. Returning empty list.", query);
-            return Collections.emptyList();
-        }
-    }
+    // Request collapsing
 
-    private static class GetProductsFilteredCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final String category;
-        private final String userId;
-        private final boolean onlyFollowing;
+    /**
+     * Gathers product lookups from all threads over a short window into one GetProductsByIds call.
+     * Each product found is recorded as last known good, and when the batch falls back each
+     * lookup is answered from its last known good product.
+     */
+    private static class GetProductByIdCollapser
+            extends HystrixCollapser<Map<Integer, LastKnownGood.Result<Product>>, LastKnownGood.Result<Product>, Integer> {
+        private final int productId;
         private final ProductService productService;
-
-        protected GetProductsFilteredCommand(String category, String userId, boolean onlyFollowing, ProductService productService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetProductsFiltered"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.category = category;
-            this.userId = userId;
-            this.onlyFollowing = onlyFollowing;
+        private final LastKnownGood lastKnownGood;
+
+        protected GetProductByIdCollapser(HystrixCollapserKey collapserKey, int productId, ProductService productService,
+                                          LastKnownGood lastKnownGood, int windowMs, int maxBatchSize) {
+            super(Setter.withCollapserKey(collapserKey)
+                    .andScope(Scope.GLOBAL)
+                    .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter()
+                            .withTimerDelayInMilliseconds(windowMs)
+                            .withMaxRequestsInBatch(maxBatchSize)
+                            .withRequestCacheEnabled(false)));
+            this.productId = productId;
             this.productService = productService;
+            this.lastKnownGood = lastKnownGood;
         }
 
         @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return productService.getProductsFiltered(category, userId, onlyFollowing);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("GetProductsFiltered circuit breaker opened or timed out. Returning empty list.");
-            return Collections.emptyList();
-        }
-    }
-
-    private static class GetAllCategoriesCommand extends HystrixCommand<List<String>> {
-        private final ProductService productService;
-
-        protected GetAllCategoriesCommand(ProductService productService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetAllCategories"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.productService = productService;
+        public Integer getRequestArgument() {
+            return productId;
         }
 
         @Override
-        protected List<String> run() throws Exception {
-            return productService.getAllCategories();
+        protected HystrixCommand<Map<Integer, LastKnownGood.Result<Product>>> createCommand(
+                Collection<CollapsedRequest<LastKnownGood.Result<Product>, Integer>> requests) {
+            Set<Integer> productIds = new LinkedHashSet<>();
+            for (CollapsedRequest<LastKnownGood.Result<Product>, Integer> request : requests) {
+                productIds.add(request.getArgument());
+            }
+            return GET_PRODUCTS_BY_IDS.command(() -> {
+                Map<Integer, Product> products;
+                if (productIds.size() == 1) {
+                    int productId = productIds.iterator().next();
+                    Product product = productService.getProductById(productId);
+                    products = product == null ? Map.of() : Map.of(productId, product);
+                } else {
+                    products = productService.getProductsByIds(productIds);
+                }
+                Map<Integer, LastKnownGood.Result<Product>> results = new HashMap<>();
+                products.forEach((id, product) -> {
+                    lastKnownGood.record(LastKnownGood.key("GetProductById", id), product);
+                    results.put(id, LastKnownGood.Result.fresh(product));
+                });
+                return results;
+            }, () -> {
+                Map<Integer, LastKnownGood.Result<Product>> results = new HashMap<>();
+                for (Integer id : productIds) {
+                    LastKnownGood.Entry entry = lastKnownGood.lookup(LastKnownGood.key("GetProductById", id));
+                    if (entry != null) {
+                        lastKnownGood.countStaleServe(GET_PRODUCTS_BY_IDS.getName());
+                        results.put(id, new LastKnownGood.Result<>((Product) entry.value(), entry.ageMs()));
+                    } else {
+                        lastKnownGood.countEmptyFallback(GET_PRODUCTS_BY_IDS.getName());
+                    }
+                }
+                log.warn("GetProductsByIds circuit breaker opened or timed out for {} products. "
+                        + "Serving {} from last known good, null for the rest.", productIds.size(), results.size());
+                return results;
+            });
         }
 
         @Override
-        protected List<String> getFallback() {
-            log.warn("GetAllCategories circuit breaker opened or timed out. Returning empty list.");
-            return Collections.emptyList();
+        protected void mapResponseToRequests(Map<Integer, LastKnownGood.Result<Product>> products,
+                                             Collection<CollapsedRequest<LastKnownGood.Result<Product>, Integer>> requests) {
+            for (CollapsedRequest<LastKnownGood.Result<Product>, Integer> request : requests) {
+                LastKnownGood.Result<Product> result = products.get(request.getArgument());
+                request.setResponse(result != null ? result : LastKnownGood.Result.fresh(null));
+            }
         }
     }
 }
-
@@ -1,327 +1,252 @@
 package com.trustworthyreviews.service;
 
+import com.netflix.hystrix.HystrixCollapser;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserProperties;
 import com.netflix.hystrix.HystrixCommand;
-import com.netflix.hystrix.HystrixCommandGroupKey;
-import com.netflix.hystrix.HystrixCommandKey;
-import com.netflix.hystrix.HystrixCommandProperties;
+import com.trustworthyreviews.model.UserSummary;
+import com.trustworthyreviews.service.ProtectedCall.Bulkhead;
+import com.trustworthyreviews.service.ProtectedCall.Operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Hystrix-wrapped UserService methods for circuit breaker protection
+ * Hystrix-wrapped UserService methods for circuit breaker protection.
+ * Fallbacks serve the last known good result for the same arguments when there is one.
  */
 @Service
 public class HystrixUserService {
 
     private static final Logger log = LoggerFactory.getLogger(HystrixUserService.class);
-    
+
+    private static final Operation SEARCH_USERS = Operation.database("SearchUsers", Bulkhead.LIST_READS, 3000);
+    private static final Operation SEARCH_USERS_RESIDENT = Operation.resident("SearchUsersResident", 1000);
+    private static final Operation GET_USER_BY_ID = Operation.database("GetUserById", Bulkhead.POINT_READS, 3000);
+    private static final Operation GET_USERS_BY_IDS = Operation.database("GetUsersByIds", Bulkhead.POINT_READS, 3000);
+    private static final Operation GET_FOLLOWING = Operation.database("GetFollowing", Bulkhead.LIST_READS, 3000);
+    private static final Operation GET_FOLLOWERS = Operation.database("GetFollowers", Bulkhead.LIST_READS, 3000);
+    // Longer timeout for similarity calculation
+    private static final Operation FIND_SIMILAR_USERS = Operation.database("FindSimilarUsers", Bulkhead.HEAVY, 10000);
+    private static final Operation CALCULATE_COMBINED_SIMILARITY = Operation.database("CalculateCombinedSimilarity", Bulkhead.HEAVY, 5000);
+    private static final Operation GET_USER_PROFILE_WITH_METRICS = Operation.database("GetUserProfileWithMetrics", Bulkhead.HEAVY, 5000);
+    private static final Operation GET_MOST_FOLLOWED_USERS = Operation.database("GetMostFollowedUsers", Bulkhead.HEAVY, 3000);
+
+    /**
+     * Global-scope collapsers are shared by key across the JVM and batch through the service of
+     * the instance that created them, so each instance of this service gets its own key
+     */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
     private final UserService userService;
+    private final LastKnownGood lastKnownGood;
+    private final HystrixCollapserKey byIdCollapserKey;
+    private final SingleFlight<String, LastKnownGood.Result<List<Map<String, Object>>>> searchUsersFlight =
+            new SingleFlight<>("SearchUsers");
+
+    @Value("${hystrix.collapsing.window-ms:10}")
+    private int collapsingWindowMs = 10;
+
+    @Value("${hystrix.collapsing.max-batch-size:50}")
+    private int collapsingMaxBatchSize = 50;
 
     public HystrixUserService(UserService userService) {
+        this(userService, new LastKnownGood());
+    }
+
+    @Autowired
+    public HystrixUserService(UserService userService, LastKnownGood lastKnownGood) {
         this.userService = userService;
+        this.lastKnownGood = lastKnownGood;
+        this.byIdCollapserKey = HystrixCollapserKey.Factory.asKey("GetUserById-" + INSTANCES.incrementAndGet());
     }
 
     /**
-     * Search users with circuit breaker protection
+     * Search users with circuit breaker protection.
+     * Concurrent searches for the same query share one command execution.
      */
     public List<Map<String, Object>> searchUsers(String query) {
-        return new SearchUsersCommand(query, userService).execute();
+        Operation operation = userService.isSearchResident() ? SEARCH_USERS_RESIDENT : SEARCH_USERS;
+        return LastKnownGood.served(searchUsersFlight.execute(query, () -> operation.execute(
+                lastKnownGood, LastKnownGood.key("SearchUsers", query), () -> SingleFlight.sharedRows(userService.searchUsers(query)), () -> {
+            log.warn("SearchUsers circuit breaker opened or timed out. Returning empty list.");
+            return Collections.emptyList();
+        })));
     }
 
     /**
-     * Get user by ID with circuit breaker protection
+     * Get user by ID with circuit breaker protection.
+     * Lookups arriving from any thread within the collapsing window are fetched with one query.
      */
     public Map<String, Object> getUserById(String userId) {
-        return new GetUserByIdCommand(userId, userService).execute();
+        if (userId == null) {
+            return GET_USER_BY_ID.execute(() -> userService.getUserById(null), () -> {
+                log.warn("GetUserById circuit breaker opened or timed out for user {}. Returning null.", userId);
+                return null;
+            });
+        }
+        return LastKnownGood.served(new GetUserByIdCollapser(
+                byIdCollapserKey, userId, userService, lastKnownGood, collapsingWindowMs, collapsingMaxBatchSize).execute());
     }
 
     /**
      * Get following users with circuit breaker protection
      */
-    public List<Map<String, Object>> getFollowingForUser(String userId) {
-        return new GetFollowingCommand(userId, userService).execute();
+    public List<UserSummary> getFollowingForUser(String userId) {
+        return LastKnownGood.served(GET_FOLLOWING.execute(lastKnownGood, LastKnownGood.key("GetFollowing", userId),
+                () -> userService.getFollowingForUser(userId), () -> {
+            log.warn("GetFollowing circuit breaker opened or timed out for user {}. Returning empty list.", userId);
+            return Collections.emptyList();
+        }));
     }
 
     /**
      * Get followers with circuit breaker protection
      */
-    public List<Map<String, Object>> getFollowersForUser(String userId) {
-        return new GetFollowersCommand(userId, userService).execute();
+    public List<UserSummary> getFollowersForUser(String userId) {
+        return LastKnownGood.served(GET_FOLLOWERS.execute(lastKnownGood, LastKnownGood.key("GetFollowers", userId),
+                () -> userService.getFollowersForUser(userId), () -> {
+            log.warn("GetFollowers circuit breaker opened or timed out for user {}. Returning empty list.", userId);
+            return Collections.emptyList();
+        }));
     }
 
     public List<Map<String, Object>> findSimilarUsers(String userId, int limit, double minSimilarity) {
-        return new FindSimilarUsersCommand(userId, limit, minSimilarity, userService).execute();
+        return LastKnownGood.served(FIND_SIMILAR_USERS.execute(lastKnownGood,
+                LastKnownGood.key("FindSimilarUsers", userId, limit, minSimilarity),
+                () -> userService.findSimilarUsers(userId, limit, minSimilarity), () -> {
+            log.warn("FindSimilarUsers circuit breaker opened or timed out for user {}. Returning empty list.", userId);
+            return Collections.emptyList();
+        }));
     }
 
     public double calculateCombinedJaccardSimilarity(String userId1, String userId2) {
-        return new CalculateCombinedSimilarityCommand(userId1, userId2, userService).execute();
+        return LastKnownGood.served(CALCULATE_COMBINED_SIMILARITY.execute(lastKnownGood,
+                LastKnownGood.key("CalculateCombinedSimilarity", userId1, userId2),
+                () -> userService.calculateCombinedJaccardSimilarity(userId1, userId2), () -> {
+            log.warn("CalculateCombinedSimilarity circuit breaker opened or timed out for users {} and {}. Returning 0.0.", userId1, userId2);
+            return 0.0;
+        }));
     }
 
     public Map<String, Object> getUserProfileWithMetrics(String targetUserId, String viewerUserId) {
-        return new GetUserProfileWithMetricsCommand(targetUserId, viewerUserId, userService).execute();
+        return LastKnownGood.served(GET_USER_PROFILE_WITH_METRICS.execute(lastKnownGood,
+                LastKnownGood.key("GetUserProfileWithMetrics", targetUserId, viewerUserId),
+                () -> userService.getUserProfileWithMetrics(targetUserId, viewerUserId), () -> {
+            log.warn("GetUserProfileWithMetrics circuit breaker opened or timed out. Returning basic profile.");
+            // Fallback: try to get just the user profile without metrics
+            return userService.getUserById(targetUserId);
+        }));
     }
 
     /**
      * Get most followed users with circuit breaker protection
      */
-    public List<Map<String, Object>> getMostFollowedUsers(int limit) {
-        return new GetMostFollowedUsersCommand(limit, userService).execute();
-    }
-
-    // Hystrix Commands
-    
-    private static class SearchUsersCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final String query;
-        private final UserService userService;
-
-        protected SearchUsersCommand(String query, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("SearchUsers"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.query = query;
-            this.userService = userService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return userService.searchUsers(query);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("SearchUsers circuit breaker opened or timed out. Returning empty list.");
+    public List<UserSummary> getMostFollowedUsers(int limit) {
+        return LastKnownGood.served(GET_MOST_FOLLOWED_USERS.execute(lastKnownGood,
+                LastKnownGood.key("GetMostFollowedUsers", limit), () -> userService.getMostFollowedUsers(limit), () -> {
+            log.warn("GetMostFollowedUsers circuit breaker opened or timed out. Returning empty list.");
             return Collections.emptyList();
-        }
+        }));
     }
 
-    private static class GetUserByIdCommand extends HystrixCommand<Map<String, Object>> {
-        private final String userId;
-        private final UserService userService;
-
-        protected GetUserByIdCommand(String userId, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetUserById"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.userId = userId;
-            this.userService = userService;
-        }
-
-        @Override
-        protected Map<String, Object> run() throws Exception {
-            return userService.getUserById(userId);
-        }
-
-        @Override
-        protected Map<String, Object> getFallback() {
-            log.warn("GetUserById circuit breaker opened or timed out for user {}. Returning null.", userId);
-            return null;
-        }
-    }
-
-    private static class GetFollowingCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final String userId;
-        private final UserService userService;
-
-        protected GetFollowingCommand(String userId, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetFollowing"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.userId = userId;
-            this.userService = userService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return userService.getFollowingForUser(userId);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("GetFollowing circuit breaker opened or timed out for user {}. Returning empty list.", userId);
-            return Collections.emptyList();
-        }
+    /**
+     * Executions and collapsed calls for the single-flight wrapped entry points
+     */
+    public Map<String, Object> getSingleFlightStats() {
+        return Map.of(searchUsersFlight.getName(), searchUsersFlight.getStats());
     }
 
-    private static class GetFollowersCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final String userId;
-        private final UserService userService;
+    // Request collapsing
 
-        protected GetFollowersCommand(String userId, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetFollowers"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.userId = userId;
-            this.userService = userService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return userService.getFollowersForUser(userId);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("GetFollowers circuit breaker opened or timed out for user {}. Returning empty list.", userId);
-            return Collections.emptyList();
-        }
-    }
-
-    private static class FindSimilarUsersCommand extends HystrixCommand<List<Map<String, Object>>> {
+    /**
+     * Gathers user lookups from all threads over a short window into one GetUsersByIds call.
+     * Each user found is recorded as last known good, and when the batch falls back each
+     * lookup is answered from its last known good user.
+     */
+    private static class GetUserByIdCollapser extends HystrixCollapser<
+            Map<String, LastKnownGood.Result<Map<String, Object>>>, LastKnownGood.Result<Map<String, Object>>, String> {
         private final String userId;
-        private final int limit;
-        private final double minSimilarity;
         private final UserService userService;
-
-        protected FindSimilarUsersCommand(String userId, int limit, double minSimilarity, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("FindSimilarUsers"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(10000) // Longer timeout for similarity calculation
-                            .withFallbackEnabled(true)));
+        private final LastKnownGood lastKnownGood;
+
+        protected GetUserByIdCollapser(HystrixCollapserKey collapserKey, String userId, UserService userService,
+                                       LastKnownGood lastKnownGood, int windowMs, int maxBatchSize) {
+            super(Setter.withCollapserKey(collapserKey)
+                    .andScope(Scope.GLOBAL)
+                    .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter()
+                            .withTimerDelayInMilliseconds(windowMs)
+                            .withMaxRequestsInBatch(maxBatchSize)
+                            .withRequestCacheEnabled(false)));
             this.userId = userId;
-            this.limit = limit;
-            this.minSimilarity = minSimilarity;
-            this.userService = userService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return userService.findSimilarUsers(userId, limit, minSimilarity);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("FindSimilarUsers circuit breaker opened or timed out for user {}. Returning empty list.", userId);
-            return Collections.emptyList();
-        }
-    }
-
-    private static class CalculateCombinedSimilarityCommand extends HystrixCommand<Double> {
-        private final String userId1;
-        private final String userId2;
-        private final UserService userService;
-
-        protected CalculateCombinedSimilarityCommand(String userId1, String userId2, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("CalculateCombinedSimilarity"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(5000)
-                            .withFallbackEnabled(true)));
-            this.userId1 = userId1;
-            this.userId2 = userId2;
-            this.userService = userService;
-        }
-
-        @Override
-        protected Double run() throws Exception {
-            return userService.calculateCombinedJaccardSimilarity(userId1, userId2);
-        }
-
-        @Override
-        protected Double getFallback() {
-            log.warn("CalculateCombinedSimilarity circuit breaker opened or timed out for users {} and {}. Returning 0.0.", userId1, userId2);
-            return 0.0;
-        }
-    }
-
-    private static class GetUserProfileWithMetricsCommand extends HystrixCommand<Map<String, Object>> {
-        private final String targetUserId;
-        private final String viewerUserId;
-        private final UserService userService;
-
-        protected GetUserProfileWithMetricsCommand(String targetUserId, String viewerUserId, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetUserProfileWithMetrics"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(5000)
-                            .withFallbackEnabled(true)));
-            this.targetUserId = targetUserId;
-            this.viewerUserId = viewerUserId;
-            this.userService = userService;
-        }
-
-        @Override
-        protected Map<String, Object> run() throws Exception {
-            return userService.getUserProfileWithMetrics(targetUserId, viewerUserId);
-        }
-
-        @Override
-        protected Map<String, Object> getFallback() {
-            log.warn("GetUserProfileWithMetrics circuit breaker opened or timed out. Returning basic profile.");
-            // Fallback: try to get just the user profile without metrics
-            return userService.getUserById(targetUserId);
-        }
-    }
-
-    private static class GetMostFollowedUsersCommand extends HystrixCommand<List<Map<String, Object>>> {
-        private final int limit;
-        private final UserService userService;
-
-        protected GetMostFollowedUsersCommand(int limit, UserService userService) {
-            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
-                    .andCommandKey(HystrixCommandKey.Factory.asKey("GetMostFollowedUsers"))
-                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
-                            .withCircuitBreakerEnabled(true)
-                            .withCircuitBreakerRequestVolumeThreshold(10)
-                            .withCircuitBreakerErrorThresholdPercentage(50)
-                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
-                            .withExecutionTimeoutInMilliseconds(3000)
-                            .withFallbackEnabled(true)));
-            this.limit = limit;
             this.userService = userService;
-        }
-
-        @Override
-        protected List<Map<String, Object>> run() throws Exception {
-            return userService.getMostFollowedUsers(limit);
-        }
-
-        @Override
-        protected List<Map<String, Object>> getFallback() {
-            log.warn("GetMostFollowedUsers circuit breaker opened or timed out. Returning empty list.");
-            return Collections.emptyList();
+            this.lastKnownGood = lastKnownGood;
+        }
+
+        @Override
+        public String getRequestArgument() {
+            return userId;
+        }
+
+        @Override
+        protected HystrixCommand<Map<String, LastKnownGood.Result<Map<String, Object>>>> createCommand(
+                Collection<CollapsedRequest<LastKnownGood.Result<Map<String, Object>>, String>> requests) {
+            Set<String> userIds = new LinkedHashSet<>();
+            for (CollapsedRequest<LastKnownGood.Result<Map<String, Object>>, String> request : requests) {
+                userIds.add(request.getArgument());
+            }
+            return GET_USERS_BY_IDS.command(() -> {
+                Map<String, Map<String, Object>> users;
+                if (userIds.size() == 1) {
+                    String userId = userIds.iterator().next();
+                    Map<String, Object> user = userService.getUserById(userId);
+                    users = user == null ? Map.of() : Map.of(userId, user);
+                } else {
+                    users = userService.getUsersByIds(userIds);
+                }
+                Map<String, LastKnownGood.Result<Map<String, Object>>> results = new HashMap<>();
+                users.forEach((id, user) -> {
+                    lastKnownGood.record(LastKnownGood.key("GetUserById", id), user);
+                    results.put(id, LastKnownGood.Result.fresh(user));
+                });
+                return results;
+            }, () -> {
+                Map<String, LastKnownGood.Result<Map<String, Object>>> results = new HashMap<>();
+                for (String id : userIds) {
+                    LastKnownGood.Entry entry = lastKnownGood.lookup(LastKnownGood.key("GetUserById", id));
+                    if (entry != null) {
+                        lastKnownGood.countStaleServe(GET_USERS_BY_IDS.getName());
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> user = (Map<String, Object>) entry.value();
+                        results.put(id, new LastKnownGood.Result<>(user, entry.ageMs()));
+                    } else {
+                        lastKnownGood.countEmptyFallback(GET_USERS_BY_IDS.getName());
+                    }
+                }
+                log.warn("GetUsersByIds circuit breaker opened or timed out for {} users. "
+                        + "Serving {} from last known good, null for the rest.", userIds.size(), results.size());
+                return results;
+            });
+        }
+
+        @Override
+        protected void mapResponseToRequests(Map<String, LastKnownGood.Result<Map<String, Object>>> users,
+                                             Collection<CollapsedRequest<LastKnownGood.Result<Map<String, Object>>, String>> requests) {
+            for (CollapsedRequest<LastKnownGood.Result<Map<String, Object>>, String> request : requests) {
+                LastKnownGood.Result<Map<String, Object>> result = users.get(request.getArgument());
+                request.setResponse(result != null ? result : LastKnownGood.Result.fresh(null));
+            }
         }
     }
 }
-
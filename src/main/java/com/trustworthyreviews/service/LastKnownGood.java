@@ -0,0 +1,218 @@
+package com.trustworthyreviews.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last successful result of each protected call, keyed by operation and arguments.
+ *
+ * Successful calls record their result in the background; when a call later falls back
+ * (open circuit, timeout, rejection or failure) the fallback serves the recorded result
+ * together with its age instead of an empty value. The store keeps a bounded number of
+ * entries, evicting the least recently used, and never serves entries older than the
+ * maximum age.
+ */
+@Component
+public class LastKnownGood {
+
+    /** Request attribute holding the age in milliseconds of the oldest stale result served for the request */
+    public static final String STALE_AGE_ATTRIBUTE = LastKnownGood.class.getName() + ".staleAgeMs";
+
+    private static final int RECORD_QUEUE_CAPACITY = 1024;
+
+    private final int maxEntries;
+    private final long maxAgeMs;
+    private final Executor recorder;
+    private final Map<List<Object>, Entry> entries;
+    private final Map<String, AtomicLong> staleServes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> emptyFallbacks = new ConcurrentHashMap<>();
+
+    public LastKnownGood() {
+        this(1000, TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Autowired
+    public LastKnownGood(@Value("${hystrix.last-known-good.max-entries:1000}") int maxEntries,
+                         @Value("${hystrix.last-known-good.max-age-ms:86400000}") long maxAgeMs) {
+        this(maxEntries, maxAgeMs, newRecorder());
+    }
+
+    LastKnownGood(int maxEntries, long maxAgeMs, Executor recorder) {
+        this.maxEntries = maxEntries;
+        this.maxAgeMs = maxAgeMs;
+        this.recorder = recorder;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                return size() > LastKnownGood.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * A recorded result and when it was recorded
+     */
+    public record Entry(Object value, long recordedAt) {
+        public long ageMs() {
+            return System.currentTimeMillis() - recordedAt;
+        }
+    }
+
+    /**
+     * The value a protected call returned, and how old it is when it was served from this store
+     * (-1 when it is fresh)
+     */
+    public record Result<T>(T value, long staleAgeMs) {
+        public static <T> Result<T> fresh(T value) {
+            return new Result<>(value, -1);
+        }
+
+        public boolean isStale() {
+            return staleAgeMs >= 0;
+        }
+    }
+
+    /**
+     * Key for an operation and its arguments; arguments may be null
+     */
+    public static List<Object> key(String operation, Object... arguments) {
+        if (arguments == null) {
+            // a lone null argument arrives as a null array
+            arguments = new Object[] {null};
+        }
+        Object[] parts = new Object[arguments.length + 1];
+        parts[0] = operation;
+        System.arraycopy(arguments, 0, parts, 1, arguments.length);
+        return Arrays.asList(parts);
+    }
+
+    /**
+     * Record a successful result without holding up the caller
+     */
+    public void record(List<Object> key, Object value) {
+        if (value == null) {
+            return;
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis());
+        recorder.execute(() -> {
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        });
+    }
+
+    /**
+     * The recorded result for a key, or null when there is none young enough to serve
+     */
+    public Entry lookup(List<Object> key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.ageMs() > maxAgeMs) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    void countStaleServe(String operation) {
+        staleServes.computeIfAbsent(operation, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    void countEmptyFallback(String operation) {
+        emptyFallbacks.computeIfAbsent(operation, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Unwrap a result on the request thread, noting on the current request when it was served stale
+     */
+    public static <T> T served(Result<T> result) {
+        if (result.isStale()) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes != null) {
+                Object previous = attributes.getAttribute(STALE_AGE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                long age = previous instanceof Long previousAge ? Math.max(previousAge, result.staleAgeMs()) : result.staleAgeMs();
+                attributes.setAttribute(STALE_AGE_ATTRIBUTE, age, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+        return result.value();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Entries held, and per operation the fallbacks served stale versus served empty
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> byOperation = new HashMap<>();
+        long totalStale = 0;
+        long totalEmpty = 0;
+        for (String operation : union(staleServes.keySet(), emptyFallbacks.keySet())) {
+            long stale = count(staleServes, operation);
+            long empty = count(emptyFallbacks, operation);
+            byOperation.put(operation, Map.of("staleServes", stale, "emptyFallbacks", empty));
+            totalStale += stale;
+            totalEmpty += empty;
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("staleServes", totalStale);
+        stats.put("emptyFallbacks", totalEmpty);
+        stats.put("byOperation", byOperation);
+        return stats;
+    }
+
+    private static long count(Map<String, AtomicLong> counters, String operation) {
+        AtomicLong counter = counters.get(operation);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        Set<String> all = new TreeSet<>(a);
+        all.addAll(b);
+        return all;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (recorder instanceof ThreadPoolExecutor executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * One background thread records results; when it falls behind the oldest pending records are dropped
+     */
+    private static ThreadPoolExecutor newRecorder() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(RECORD_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "last-known-good-recorder");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+}
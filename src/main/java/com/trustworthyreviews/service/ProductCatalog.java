@@ -0,0 +1,239 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.model.Product;
+import com.trustworthyreviews.model.ProductRowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Resident copy of the products table.
+ *
+ * The current {@link CatalogSnapshot} is swapped atomically and read without locking: a
+ * periodic reload replaces it when the table content changed, and avg_rating updates from
+ * the review write path patch it copy-on-write. Patches that land while a reload is reading
+ * the table are re-applied to the reloaded rows, which may predate them. Until the first
+ * load succeeds (or when disabled) the catalog is not ready and callers keep querying the
+ * database.
+ */
+@Component
+public class ProductCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private static final String LOAD_SQL = """
+        SELECT
+            product_id AS "product_id",
+            name AS "name",
+            avg_rating AS "avg_rating",
+            description AS "description",
+            image AS "image",
+            link AS "link",
+            category AS "category"
+        FROM products
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Object writeLock = new Object();
+    private volatile CatalogSnapshot current;
+    private long version;
+    /** Ratings patched since the running reload started reading; null when none is running */
+    private Map<Integer, Double> patchedDuringLoad;
+    private volatile EncodedBodies encodedBodies = new EncodedBodies(-1);
+    private volatile EncodedResponse encodedEmpty;
+
+    @Value("${products.catalog.enabled:true}")
+    private boolean enabled;
+
+    public ProductCatalog(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && current != null;
+    }
+
+    /**
+     * Current snapshot, or null when the catalog is not ready
+     */
+    public CatalogSnapshot snapshot() {
+        return enabled ? current : null;
+    }
+
+    @Scheduled(initialDelayString = "${products.catalog.initial-delay-ms:0}",
+               fixedDelayString = "${products.catalog.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            patchedDuringLoad = new LinkedHashMap<>();
+        }
+        try {
+            List<Product> products = jdbcTemplate.query(LOAD_SQL, ProductRowMapper.INSTANCE);
+            if (install(products)) {
+                log.info("Product catalog loaded: {} products, version {}", products.size(), current.version());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load product catalog: {}", e.getMessage());
+        } finally {
+            synchronized (writeLock) {
+                patchedDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Swap in a snapshot built from the given products unless the content is unchanged.
+     *
+     * @return true when a new snapshot was installed
+     */
+    boolean install(Collection<Product> products) {
+        synchronized (writeLock) {
+            CatalogSnapshot candidate = CatalogSnapshot.build(products, version + 1);
+            if (patchedDuringLoad != null) {
+                for (Map.Entry<Integer, Double> patch : patchedDuringLoad.entrySet()) {
+                    candidate = candidate.withAvgRating(patch.getKey(), patch.getValue(), version + 1);
+                }
+            }
+            if (candidate.sameContent(current)) {
+                return false;
+            }
+            version++;
+            current = candidate;
+            return true;
+        }
+    }
+
+    /**
+     * Patch a product's avg_rating in the resident snapshot without reloading it
+     */
+    public void updateAverageRating(int productId, Double avgRating) {
+        synchronized (writeLock) {
+            if (patchedDuringLoad != null) {
+                patchedDuringLoad.put(productId, avgRating);
+            }
+            if (current == null) {
+                return;
+            }
+            CatalogSnapshot next = current.withAvgRating(productId, avgRating, version + 1);
+            if (next != current) {
+                version++;
+                current = next;
+            }
+        }
+    }
+
+    /**
+     * Patch avg_rating once the surrounding transaction commits, or immediately
+     * when no transaction is active, so rolled back writes never reach the snapshot.
+     */
+    public void updateAverageRatingAfterCommit(int productId, Double avgRating) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateAverageRating(productId, avgRating);
+                }
+            });
+        } else {
+            updateAverageRating(productId, avgRating);
+        }
+    }
+
+    /**
+     * Pre-encoded body of the product list served by /api/products: the whole catalog by
+     * name when category is null, otherwise the category sorted by rating. Bodies are
+     * encoded once per snapshot version for the whole catalog and each known category;
+     * unknown categories share one empty body. The ETag is a hash of the body, so it
+     * stays valid across restarts and instances.
+     *
+     * @return the encoded body, or null when the catalog is not ready
+     */
+    public EncodedResponse encodedProducts(String category) {
+        CatalogSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return null;
+        }
+
+        EncodedBodies bodies = encodedBodies;
+        if (bodies.version != snapshot.version()) {
+            bodies = new EncodedBodies(snapshot.version());
+            encodedBodies = bodies;
+        }
+
+        if (category == null) {
+            return bodies.byKey.computeIfAbsent("", k -> encode(snapshot.allByName()));
+        }
+        if (!snapshot.hasCategory(category)) {
+            EncodedResponse empty = encodedEmpty;
+            if (empty == null) {
+                empty = encode(List.of());
+                encodedEmpty = empty;
+            }
+            return empty;
+        }
+        return bodies.byKey.computeIfAbsent(category, k -> encode(snapshot.byRating(category)));
+    }
+
+    private EncodedResponse encode(List<Product> products) {
+        try {
+            byte[] identity = objectMapper.writeValueAsBytes(products);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(identity.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(identity);
+            }
+            return new EncodedResponse(etagOf(identity), identity, buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode product list", e);
+        }
+    }
+
+    /**
+     * Strong ETag from the first 128 bits of the body's SHA-256, URL-safe base64
+     */
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class EncodedBodies {
+        private final long version;
+        private final Map<String, EncodedResponse> byKey = new ConcurrentHashMap<>();
+
+        private EncodedBodies(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Keyset position in a product listing: the sort keys of the last product on a page.
+ *
+ * Encoded as an opaque URL-safe token. Ties on name are broken by product_id, so every
+ * product has a unique position in both sort orders.
+ */
+public record ProductCursor(Sort sort, Double avgRating, String name, int productId) {
+
+    public enum Sort {
+        NAME, RATING;
+
+        public static Sort parse(String value, Sort defaultSort) {
+            if (value == null || value.isBlank()) {
+                return defaultSort;
+            }
+            try {
+                return Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("sort must be 'name' or 'rating'");
+            }
+        }
+    }
+
+    public static ProductCursor after(Sort sort, Product product) {
+        return new ProductCursor(sort, product.avgRating(), product.name(), product.productId());
+    }
+
+    /**
+     * Position as a product carrying only the sort keys, for searching sorted views
+     */
+    public Product probe() {
+        return new Product(productId, name, avgRating, null, null, null, null);
+    }
+
+    public String encode() {
+        String raw = sort.name().charAt(0) + "|" + (avgRating == null ? "" : avgRating) + "|" + productId + "|"
+                + (name == null ? "\u0000" : name);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token, Sort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            Sort sort = parts[0].equals("N") ? Sort.NAME : parts[0].equals("R") ? Sort.RATING : null;
+            if (parts.length != 4 || sort != expectedSort) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Double avgRating = parts[1].isEmpty() ? null : Double.valueOf(parts[1]);
+            String name = parts[3].equals("\u0000") ? null : parts[3];
+            return new ProductCursor(sort, avgRating, name, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Resident inverted index over product name, category and description, ranked with BM25.
+ *
+ * Documents come from the {@link ProductCatalog} snapshot. Rating patches keep the
+ * snapshot's text version and are skipped outright; after a reload, a sync diffs the
+ * snapshot against the indexed text and only re-indexes products whose text changed. Results are read back from the snapshot, so they always carry
+ * the current avg_rating. Every query term also matches indexed terms it is a prefix of,
+ * at a reduced weight, which keeps partially typed words useful.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    static final float NAME_WEIGHT = 3.0f;
+    static final float CATEGORY_WEIGHT = 2.0f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+    static final float PREFIX_WEIGHT = 0.7f;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ProductCatalog productCatalog;
+
+    @Value("${products.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${products.search-index.max-results:50}")
+    private int maxResults = 50;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    private final TreeMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private double totalLength;
+    private long indexedTextVersion = -1;
+
+    public ProductSearchIndex(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+    }
+
+    public boolean isReady() {
+        return enabled && productCatalog.isReady();
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the index close to the catalog between searches, so the first query after a
+     * reload does not pay for re-indexing.
+     */
+    @Scheduled(initialDelayString = "${products.search-index.initial-delay-ms:5000}",
+               fixedDelayString = "${products.search-index.sync-interval-ms:10000}")
+    public void syncWithCatalog() {
+        if (!enabled) {
+            return;
+        }
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            int changes = sync(snapshot);
+            if (changes > 0) {
+                log.info("Product search index synced: {} documents changed, {} indexed", changes, size());
+            }
+        }
+    }
+
+    /**
+     * Bring the index in line with the given snapshot's text. Snapshots with the indexed
+     * text version are skipped; otherwise products whose name, category and description
+     * are unchanged are left alone.
+     *
+     * @return number of documents added, removed or re-indexed
+     */
+    int sync(CatalogSnapshot snapshot) {
+        if (snapshot.textVersion() == indexedTextVersionForRead()) {
+            return 0;
+        }
+
+        int changes = 0;
+        lock.writeLock().lock();
+        try {
+            if (snapshot.textVersion() == indexedTextVersion) {
+                return 0;
+            }
+            Set<Integer> present = new HashSet<>();
+            for (Product product : snapshot.allByName()) {
+                present.add(product.productId());
+                Doc existing = docs.get(product.productId());
+                if (existing != null && existing.sameText(product)) {
+                    continue;
+                }
+                if (existing != null) {
+                    remove(existing);
+                }
+                add(Doc.of(product));
+                changes++;
+            }
+            for (Doc doc : new ArrayList<>(docs.values())) {
+                if (!present.contains(doc.productId)) {
+                    remove(doc);
+                    changes++;
+                }
+            }
+            indexedTextVersion = snapshot.textVersion();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changes;
+    }
+
+    public List<Product> search(String query) {
+        return search(query, maxResults);
+    }
+
+    /**
+     * Top products for the query by BM25 score, ties broken by avg_rating then name.
+     * Returns an empty list when the catalog is not loaded or the query has no terms.
+     */
+    public List<Product> search(String query, int limit) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        sync(snapshot);
+
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double averageLength = totalLength / docs.size();
+            for (String term : terms) {
+                Map<Integer, Double> best = new HashMap<>();
+                expansions(term).forEach((indexed, weight) -> {
+                    Map<Integer, Float> posting = postings.get(indexed);
+                    double idf = Math.log(1 + (docs.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                    posting.forEach((productId, tf) -> {
+                        double norm = K1 * (1 - B + B * docs.get(productId).length / averageLength);
+                        double score = weight * idf * tf * (K1 + 1) / (tf + norm);
+                        best.merge(productId, score, Math::max);
+                    });
+                });
+                best.forEach((productId, score) -> scores.merge(productId, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<Hit> ranking = Comparator.<Hit>comparingDouble(hit -> hit.score)
+                .thenComparing(hit -> hit.product, CatalogSnapshot.BY_RATING.reversed());
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ranking);
+        scores.forEach((productId, score) -> {
+            Product product = snapshot.get(productId);
+            if (product != null) {
+                top.add(new Hit(product, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ranking.reversed());
+        List<Product> results = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            results.add(hit.product);
+        }
+        return results;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** Indexed terms matched by a query term: itself at full weight, longer terms it prefixes at less */
+    private Map<String, Float> expansions(String term) {
+        Map<String, Float> matches = new LinkedHashMap<>();
+        if (postings.containsKey(term)) {
+            matches.put(term, 1.0f);
+        }
+        if (term.length() >= 2) {
+            int expanded = 0;
+            for (String indexed : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                matches.put(indexed, PREFIX_WEIGHT);
+            }
+        }
+        return matches;
+    }
+
+    private long indexedTextVersionForRead() {
+        lock.readLock().lock();
+        try {
+            return indexedTextVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Doc doc) {
+        docs.put(doc.productId, doc);
+        totalLength += doc.length;
+        doc.termFrequencies.forEach((term, tf) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(doc.productId, tf));
+    }
+
+    private void remove(Doc doc) {
+        docs.remove(doc.productId);
+        totalLength -= doc.length;
+        for (String term : doc.termFrequencies.keySet()) {
+            Map<Integer, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(doc.productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private record Hit(Product product, double score) {
+    }
+
+    private static final class Doc {
+        private final int productId;
+        private final String name;
+        private final String category;
+        private final String description;
+        private final float length;
+        private final Map<String, Float> termFrequencies;
+
+        private Doc(int productId, String name, String category, String description,
+                    float length, Map<String, Float> termFrequencies) {
+            this.productId = productId;
+            this.name = name;
+            this.category = category;
+            this.description = description;
+            this.length = length;
+            this.termFrequencies = termFrequencies;
+        }
+
+        /** Field-weighted term frequencies and length, so a name hit counts more than a description hit */
+        static Doc of(Product product) {
+            Map<String, Float> frequencies = new HashMap<>();
+            float length = 0;
+            length += count(frequencies, product.name(), NAME_WEIGHT);
+            length += count(frequencies, product.category(), CATEGORY_WEIGHT);
+            length += count(frequencies, product.description(), DESCRIPTION_WEIGHT);
+            return new Doc(product.productId(), product.name(), product.category(), product.description(),
+                    length, frequencies);
+        }
+
+        private static float count(Map<String, Float> frequencies, String text, float weight) {
+            List<String> tokens = tokenize(text);
+            for (String token : tokens) {
+                frequencies.merge(token, weight, Float::sum);
+            }
+            return tokens.size() * weight;
+        }
+
+        boolean sameText(Product product) {
+            return Objects.equals(name, product.name())
+                    && Objects.equals(category, product.category())
+                    && Objects.equals(description, product.description());
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package com.trustworthyreviews.service;
 
+import com.trustworthyreviews.model.Product;
+import com.trustworthyreviews.model.ProductPage;
+import com.trustworthyreviews.model.ProductRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Service
@@ -13,10 +25,32 @@ public class ProductService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSuggester productSuggester;
+
+    @Autowired
+    private FollowingProductsIndex followingProductsIndex;
+
+    @Autowired
+    private RatingAggregator ratingAggregator;
+
+    /** COLLATE clause for name comparisons, detected on first use (see nameCollation()) */
+    private volatile String nameCollation;
+
+    /** Rows read from products, with ratings not yet flushed merged into avg_rating */
+    private final RowMapper<Product> productRowMapper =
+            (rs, rowNum) -> ratingAggregator.withPending(ProductRowMapper.INSTANCE.mapRow(rs, rowNum));
+
     /**
      * Get all products
      */
-    public List<Map<String, Object>> getAllProducts() {
+    public List<Product> getAllProducts() {
         /**
          * Circuit Breaker Testing: Failure Simulation
          * 
@@ -37,6 +71,11 @@ public class ProductService {
         if (Boolean.getBoolean("circuit.breaker.simulate.product.failure")) {
             throw new RuntimeException("Simulated database failure for circuit breaker testing");
         }
+
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            return snapshot.allByName();
+        }
         
         String sql = """
             SELECT 
@@ -50,13 +89,18 @@ public class ProductService {
             FROM products
             ORDER BY name
         """;
-        return jdbcTemplate.queryForList(sql);
+        return jdbcTemplate.query(sql, productRowMapper);
     }
 
     /**
      * Get product by ID
      */
-    public Map<String, Object> getProductById(int productId) {
+    public Product getProductById(int productId) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            return snapshot.get(productId);
+        }
+
         String sql = """
             SELECT 
                 product_id AS "product_id",
@@ -70,14 +114,81 @@ public class ProductService {
             WHERE product_id = ?
         """;
 
-        List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, productId);
+        List<Product> result = jdbcTemplate.query(sql, productRowMapper, productId);
         return result.isEmpty() ? null : result.get(0);
     }
 
     /**
-     * Search products by name or category
+     * Get several products with one query
+     *
+     * @return products keyed by ID; IDs with no product are absent
      */
-    public List<Map<String, Object>> searchProducts(String query) {
+    public Map<Integer, Product> getProductsByIds(Collection<Integer> productIds) {
+        Map<Integer, Product> products = new HashMap<>();
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            for (int productId : productIds) {
+                Product product = snapshot.get(productId);
+                if (product != null) {
+                    products.put(productId, product);
+                }
+            }
+            return products;
+        }
+        if (productIds.isEmpty()) {
+            return products;
+        }
+
+        String sql = String.format("""
+            SELECT
+                product_id AS "product_id",
+                name AS "name",
+                avg_rating AS "avg_rating",
+                description AS "description",
+                image AS "image",
+                link AS "link",
+                category AS "category"
+            FROM products
+            WHERE product_id IN (%s)
+        """, String.join(", ", Collections.nCopies(productIds.size(), "?")));
+
+        for (Product product : jdbcTemplate.query(sql, productRowMapper, productIds.toArray())) {
+            products.put(product.productId(), product);
+        }
+        return products;
+    }
+
+    /**
+     * Whether product lookups are answered from the resident catalog without touching the database
+     */
+    public boolean isCatalogResident() {
+        return productCatalog.snapshot() != null;
+    }
+
+    /**
+     * Whether a listing with these filters is answered from the catalog views without touching the database
+     */
+    public boolean isListingResident(String userId, boolean onlyFollowing) {
+        return isCatalogResident() && (!onlyFollowing || userId == null || followingProductsIndex.isReady());
+    }
+
+    /**
+     * Whether searches are answered from the resident search index
+     */
+    public boolean isSearchResident() {
+        return productSearchIndex.isReady();
+    }
+
+    /**
+     * Search products by name, category or description.
+     * Ranked by relevance from the resident search index once the catalog is loaded,
+     * otherwise a substring match on name or category.
+     */
+    public List<Product> searchProducts(String query) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.search(query);
+        }
+
         String sql = """
             SELECT 
                 product_id AS "product_id",
@@ -93,10 +204,62 @@ public class ProductService {
         """;
 
         String pattern = "%" + query + "%";
-        return jdbcTemplate.queryForList(sql, pattern, pattern);
+        return jdbcTemplate.query(sql, productRowMapper, pattern, pattern);
+    }
+
+    /**
+     * Autocomplete suggestions from the resident trie, or null when it is not built yet
+     */
+    public List<Product> suggestProductsFromCatalog(String prefix, int limit) {
+        if (!productSuggester.isReady()) {
+            return null;
+        }
+        return productSuggester.suggest(prefix, limit);
+    }
+
+    /**
+     * Autocomplete suggestions: products whose name or category starts with the prefix, best rated first
+     */
+    public List<Product> suggestProducts(String prefix, int limit) {
+        List<Product> resident = suggestProductsFromCatalog(prefix, limit);
+        if (resident != null) {
+            return resident;
+        }
+
+        String sql = """
+            SELECT
+                product_id AS "product_id",
+                name AS "name",
+                avg_rating AS "avg_rating",
+                description AS "description",
+                image AS "image",
+                link AS "link",
+                category AS "category"
+            FROM products
+            WHERE name ILIKE ? OR category ILIKE ?
+            ORDER BY avg_rating DESC NULLS LAST, name, product_id
+            LIMIT ?
+        """;
+
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return jdbcTemplate.query(sql, productRowMapper, pattern, pattern, limit);
     }
 
-    public List<Map<String, Object>> getProductsFiltered(String category, String userId, boolean onlyFollowing) {
+    public List<Product> getProductsFiltered(String category, String userId, boolean onlyFollowing) {
+        boolean hasCategory = category != null && !category.isEmpty() && !"all".equalsIgnoreCase(category);
+
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            List<Product> view = hasCategory ? snapshot.byRating(category) : snapshot.allByRating();
+            if (!(onlyFollowing && userId != null)) {
+                return view;
+            }
+            List<Product> followed = reviewedByFollowees(view, userId);
+            if (followed != null) {
+                return followed;
+            }
+        }
+
         StringBuilder sql = new StringBuilder("""
             SELECT DISTINCT
                 p.product_id AS "product_id",
@@ -141,13 +304,180 @@ public class ProductService {
             params.add(category);
         }
 
-        return jdbcTemplate.queryForList(sql.toString(), params.toArray());
+        return jdbcTemplate.query(sql.toString(), productRowMapper, params.toArray());
+    }
+
+    /**
+     * One page of a product listing, positioned after the given cursor.
+     * Served from the catalog views when possible, otherwise with a keyset query.
+     */
+    public ProductPage getProductsPage(String category, String userId, boolean onlyFollowing,
+                                       ProductCursor.Sort sort, String cursor, int limit) {
+        boolean hasCategory = category != null && !category.isEmpty() && !"all".equalsIgnoreCase(category);
+        ProductCursor after = cursor == null || cursor.isEmpty() ? null : ProductCursor.decode(cursor, sort);
+
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            List<Product> view;
+            if (sort == ProductCursor.Sort.NAME) {
+                view = hasCategory ? snapshot.byName(category) : snapshot.allByName();
+            } else {
+                view = hasCategory ? snapshot.byRating(category) : snapshot.allByRating();
+            }
+            if (onlyFollowing && userId != null) {
+                view = reviewedByFollowees(view, userId);
+            }
+            if (view != null) {
+                return pageOf(view, after, sort, limit);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT DISTINCT
+                p.product_id AS "product_id",
+                p.name AS "name",
+                p.avg_rating AS "avg_rating",
+                p.description AS "description",
+                p.image AS "image",
+                p.link AS "link",
+                p.category AS "category"
+            FROM products p
+        """);
+        List<Object> params = new ArrayList<>();
+
+        if (onlyFollowing && userId != null) {
+            sql.append("""
+                INNER JOIN product_reviews pr ON p.product_id = pr.product_id
+                INNER JOIN relations r ON pr.uid = r.following
+                WHERE r.uid = ?::uuid
+            """);
+            params.add(userId);
+        } else {
+            sql.append(" WHERE 1=1 ");
+        }
+
+        if (hasCategory) {
+            sql.append(" AND p.category = ? ");
+            params.add(category);
+        }
+
+        if (after != null) {
+            if (sort == ProductCursor.Sort.RATING) {
+                if (after.avgRating() != null) {
+                    sql.append(" AND (CAST(p.avg_rating AS DOUBLE PRECISION) < ? OR p.avg_rating IS NULL")
+                            .append(" OR (CAST(p.avg_rating AS DOUBLE PRECISION) = ? AND ");
+                    params.add(after.avgRating());
+                    params.add(after.avgRating());
+                } else {
+                    sql.append(" AND (p.avg_rating IS NULL AND ");
+                }
+                appendNameKeyset(sql, params, after);
+                sql.append(after.avgRating() != null ? "))" : ")");
+            } else {
+                sql.append(" AND ");
+                appendNameKeyset(sql, params, after);
+            }
+        }
+
+        if (sort == ProductCursor.Sort.RATING) {
+            sql.append(" ORDER BY p.avg_rating DESC NULLS LAST, ").append(nameOrder());
+        } else {
+            sql.append(" ORDER BY ").append(nameOrder());
+        }
+        sql.append(" LIMIT ?");
+        params.add(limit + 1);
+
+        List<Product> rows = jdbcTemplate.query(sql.toString(), productRowMapper, params.toArray());
+        boolean hasMore = rows.size() > limit;
+        List<Product> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? ProductCursor.after(sort, items.get(items.size() - 1)).encode() : null;
+        return new ProductPage(List.copyOf(items), nextCursor, hasMore);
+    }
+
+    /**
+     * The products of a sorted view that people the user follows have reviewed,
+     * or null when the following index is not ready
+     */
+    private List<Product> reviewedByFollowees(List<Product> view, String userId) {
+        BitSet reviewed = followingProductsIndex.productsReviewedByFollowees(userId);
+        if (reviewed == null) {
+            return null;
+        }
+        List<Product> matches = new ArrayList<>(Math.min(view.size(), reviewed.cardinality()));
+        for (Product product : view) {
+            if (reviewed.get(product.productId())) {
+                matches.add(product);
+            }
+        }
+        return matches;
+    }
+
+    private String nameOrder() {
+        String collate = nameCollation();
+        return "LOWER(p.name)" + collate + " ASC NULLS LAST, p.name" + collate + " ASC NULLS LAST, p.product_id";
+    }
+
+    /**
+     * Rows after the cursor in LOWER(name), name, product_id order, with null names last
+     * (the order of CatalogSnapshot.BY_NAME)
+     */
+    private void appendNameKeyset(StringBuilder sql, List<Object> params, ProductCursor after) {
+        if (after.name() == null) {
+            sql.append("(p.name IS NULL AND p.product_id > ?)");
+            params.add(after.productId());
+            return;
+        }
+        String collate = nameCollation();
+        String lower = after.name().toLowerCase(Locale.ROOT);
+        sql.append("(p.name IS NULL OR LOWER(p.name)").append(collate).append(" > ?")
+                .append(" OR (LOWER(p.name) = ? AND (p.name").append(collate).append(" > ?")
+                .append(" OR (p.name = ? AND p.product_id > ?))))");
+        params.add(lower);
+        params.add(lower);
+        params.add(after.name());
+        params.add(after.name());
+        params.add(after.productId());
+    }
+
+    /**
+     * Name comparisons use code point order on every path (see CatalogSnapshot.BY_NAME), so a
+     * cursor from the resident catalog pages correctly through the database and back. That is
+     * the "C" collation on PostgreSQL; H2 compares by UTF-16 unit, the same order within the BMP.
+     */
+    private String nameCollation() {
+        String collation = nameCollation;
+        if (collation == null) {
+            boolean postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            collation = postgres ? " COLLATE \"C\"" : "";
+            nameCollation = collation;
+        }
+        return collation;
+    }
+
+    private static ProductPage pageOf(List<Product> view, ProductCursor after, ProductCursor.Sort sort, int limit) {
+        int start = 0;
+        if (after != null) {
+            Comparator<Product> order = sort == ProductCursor.Sort.NAME ? CatalogSnapshot.BY_NAME : CatalogSnapshot.BY_RATING;
+            int index = Collections.binarySearch(view, after.probe(), order);
+            start = index >= 0 ? index + 1 : -index - 1;
+        }
+        int end = Math.min(view.size(), start + limit);
+        List<Product> items = view.subList(start, end);
+        boolean hasMore = end < view.size();
+        String nextCursor = hasMore ? ProductCursor.after(sort, items.get(items.size() - 1)).encode() : null;
+        return new ProductPage(List.copyOf(items), nextCursor, hasMore);
     }
 
     /**
      * Get all distinct categories
      */
     public List<String> getAllCategories() {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        if (snapshot != null) {
+            return snapshot.categories();
+        }
+
         String sql = """
             SELECT DISTINCT category
             FROM products
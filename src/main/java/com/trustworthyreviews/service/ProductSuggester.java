@@ -0,0 +1,331 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete over product names and categories.
+ *
+ * Keys (the normalised name, every word-start suffix of the name, and the category) live
+ * in an immutable radix trie. Each node caches the best products below it by avg_rating,
+ * so a suggestion walks at most the prefix length and copies the cached array, without
+ * touching the database. Suggestions carry the current snapshot's products, re-ranked by
+ * their current rating; which products a node keeps is refreshed when its trie is rebuilt.
+ * That happens as soon as the catalog's text version moves on (a reload), and at most once
+ * per rating-rebuild interval when only ratings have been patched, so a product whose
+ * rating rises into a node's top list starts being suggested within that interval. A
+ * replacement trie is built on a background thread and swapped in, and lookups keep using
+ * the previous one meanwhile.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggester.class);
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /** Names are also reachable from their later words, up to this many */
+    static final int MAX_WORD_SUFFIXES = 6;
+
+    private final ProductCatalog productCatalog;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-suggest-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile Trie trie;
+
+    @Value("${products.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${products.suggest.max-results:10}")
+    private int maxResults = 10;
+
+    @Value("${products.suggest.rating-rebuild-interval-ms:60000}")
+    private long ratingRebuildIntervalMs = 60000;
+
+    public ProductSuggester(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+    }
+
+    public boolean isReady() {
+        return enabled && productCatalog.isReady() && trie != null;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Products whose name, a word of the name, or category starts with the prefix,
+     * best rated first. Triggers a background rebuild when the catalog text has changed.
+     */
+    public List<Product> suggest(String prefix, int limit) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        Trie current = trie;
+        if (isStale(current, snapshot)) {
+            rebuildAsync();
+        }
+        if (current == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Product[] top = current.lookup(key);
+        List<Product> results = new ArrayList<>(top.length);
+        for (Product product : top) {
+            Product fresh = snapshot == null ? product : snapshot.get(product.productId());
+            if (fresh != null) {
+                results.add(fresh);
+            }
+        }
+        results.sort(CatalogSnapshot.BY_RATING);
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    @Scheduled(initialDelayString = "${products.suggest.initial-delay-ms:5000}",
+               fixedDelayString = "${products.suggest.check-interval-ms:10000}")
+    public void rebuildIfStale() {
+        CatalogSnapshot snapshot = enabled ? productCatalog.snapshot() : null;
+        if (isStale(trie, snapshot)) {
+            rebuildAsync();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * A trie is stale once the product text has changed, or once ratings have been patched
+     * and it is older than the rating-rebuild interval
+     */
+    boolean isStale(Trie current, CatalogSnapshot snapshot) {
+        if (snapshot == null) {
+            return false;
+        }
+        if (current == null || current.textVersion != snapshot.textVersion()) {
+            return true;
+        }
+        return current.version != snapshot.version()
+                && System.nanoTime() - current.builtAtNanos >= TimeUnit.MILLISECONDS.toNanos(ratingRebuildIntervalMs);
+    }
+
+    private void rebuildAsync() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        builder.execute(() -> {
+            try {
+                CatalogSnapshot snapshot = productCatalog.snapshot();
+                if (snapshot != null) {
+                    rebuild(snapshot);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to build product suggestions: {}", e.getMessage());
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    /**
+     * Build and install a trie for the snapshot on the calling thread
+     */
+    void rebuild(CatalogSnapshot snapshot) {
+        trie = Trie.build(snapshot, maxResults);
+    }
+
+    Trie trie() {
+        return trie;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Path-compressed trie; children of a node are ordered by the first character of their edge
+     */
+    static final class Trie {
+        private static final Product[] NONE = new Product[0];
+
+        private final long textVersion;
+        private final long version;
+        private final long builtAtNanos;
+        private final Node root;
+
+        private Trie(long textVersion, long version, Node root) {
+            this.textVersion = textVersion;
+            this.version = version;
+            this.builtAtNanos = System.nanoTime();
+            this.root = root;
+        }
+
+        static Trie build(CatalogSnapshot snapshot, int topN) {
+            List<Entry> entries = new ArrayList<>();
+            for (Product product : snapshot.allByName()) {
+                for (String key : keys(product)) {
+                    entries.add(new Entry(key, product));
+                }
+            }
+            entries.sort(Comparator.comparing(Entry::key));
+            return new Trie(snapshot.textVersion(), snapshot.version(), node(entries, 0, entries.size(), 0, 0, topN));
+        }
+
+        /**
+         * Node for the sorted entries [from, to), which share at least their first depth
+         * characters; its edge starts at edgeStart. The root (depth 0) never absorbs an edge.
+         */
+        private static Node node(List<Entry> entries, int from, int to, int edgeStart, int depth, int topN) {
+            int end = depth;
+            if (depth > 0) {
+                String first = entries.get(from).key();
+                String last = entries.get(to - 1).key();
+                while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+                    end++;
+                }
+            }
+
+            List<Product> terminals = new ArrayList<>();
+            int i = from;
+            while (i < to && entries.get(i).key().length() == end) {
+                terminals.add(entries.get(i).product());
+                i++;
+            }
+
+            List<Character> firstChars = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            while (i < to) {
+                char c = entries.get(i).key().charAt(end);
+                int groupEnd = i + 1;
+                while (groupEnd < to && entries.get(groupEnd).key().charAt(end) == c) {
+                    groupEnd++;
+                }
+                firstChars.add(c);
+                children.add(node(entries, i, groupEnd, end, end + 1, topN));
+                i = groupEnd;
+            }
+
+            char[] chars = new char[firstChars.size()];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = firstChars.get(k);
+            }
+            Node[] nodes = children.toArray(new Node[0]);
+            String edge = from < to ? entries.get(from).key().substring(edgeStart, end) : "";
+            return new Node(edge, chars, nodes, best(terminals, nodes, topN));
+        }
+
+        private static Product[] best(List<Product> terminals, Node[] children, int topN) {
+            List<Product> candidates = new ArrayList<>(terminals);
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(CatalogSnapshot.BY_RATING);
+
+            List<Product> top = new ArrayList<>(Math.min(topN, candidates.size()));
+            Set<Integer> seen = new HashSet<>();
+            for (Product product : candidates) {
+                if (top.size() >= topN) {
+                    break;
+                }
+                if (seen.add(product.productId())) {
+                    top.add(product);
+                }
+            }
+            return top.toArray(NONE);
+        }
+
+        private static Set<String> keys(Product product) {
+            Set<String> keys = new HashSet<>();
+            String name = normalize(product.name());
+            if (!name.isEmpty()) {
+                keys.add(name);
+                int suffixes = 0;
+                for (int i = name.indexOf(' '); i >= 0 && suffixes < MAX_WORD_SUFFIXES; i = name.indexOf(' ', i + 1)) {
+                    keys.add(name.substring(i + 1));
+                    suffixes++;
+                }
+            }
+            String category = normalize(product.category());
+            if (!category.isEmpty()) {
+                keys.add(category);
+            }
+            return keys;
+        }
+
+        Product[] lookup(String prefix) {
+            Node node = root;
+            int matched = 0;
+            while (matched < prefix.length()) {
+                Node child = node.child(prefix.charAt(matched));
+                if (child == null) {
+                    return NONE;
+                }
+                String edge = child.edge;
+                int remaining = prefix.length() - matched;
+                if (remaining <= edge.length()) {
+                    return edge.startsWith(prefix.substring(matched)) ? child.top : NONE;
+                }
+                if (!prefix.startsWith(edge, matched)) {
+                    return NONE;
+                }
+                matched += edge.length();
+                node = child;
+            }
+            return node.top;
+        }
+    }
+
+    private static final class Node {
+        private final String edge;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final Product[] top;
+
+        private Node(String edge, char[] firstChars, Node[] children, Product[] top) {
+            this.edge = edge;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private record Entry(String key, Product product) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A Hystrix command built from a lambda and the configuration of its {@link Operation}.
+ *
+ * Operations are declared once (usually as constants) and hold a prebuilt Setter, so a call
+ * only allocates the command itself. Operations that can block on JDBC run on the thread pool
+ * of their {@link Bulkhead}; operations answered from resident in-memory structures run on the
+ * caller's thread under a semaphore, keeping the circuit breaker and timeout without a thread
+ * hand-off.
+ *
+ * Calls made with a {@link LastKnownGood} store record each successful result, and their
+ * fallback serves the recorded result for the same key before resorting to the empty fallback.
+ */
+public class ProtectedCall<T> extends HystrixCommand<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProtectedCall.class);
+
+    private static final HystrixCommandGroupKey DATABASE_GROUP = HystrixCommandGroupKey.Factory.asKey("Database");
+
+    /** Concurrent resident calls allowed per operation before further calls are rejected to the fallback */
+    private static final int RESIDENT_MAX_CONCURRENT = 200;
+
+    /** Capacity of each bulkhead's queue; the queue-size rejection threshold below it is adjustable at runtime */
+    static final int BULKHEAD_MAX_QUEUE_SIZE = 64;
+
+    private final Supplier<T> run;
+    private final Supplier<T> fallback;
+    private final LastKnownGood lastKnownGood;
+    private final List<Object> key;
+    private volatile long staleAgeMs = -1;
+
+    private ProtectedCall(Operation operation, Supplier<T> run, Supplier<T> fallback,
+                          LastKnownGood lastKnownGood, List<Object> key) {
+        super(operation.setter);
+        this.run = run;
+        this.fallback = fallback;
+        this.lastKnownGood = lastKnownGood;
+        this.key = key;
+    }
+
+    @Override
+    protected T run() throws Exception {
+        T value = run.get();
+        if (lastKnownGood != null) {
+            lastKnownGood.record(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T getFallback() {
+        if (lastKnownGood != null) {
+            LastKnownGood.Entry entry = lastKnownGood.lookup(key);
+            if (entry != null) {
+                staleAgeMs = entry.ageMs();
+                lastKnownGood.countStaleServe(getCommandKey().name());
+                log.warn("{} circuit breaker opened or timed out. Serving last known good result from {} ms ago.",
+                        getCommandKey().name(), staleAgeMs);
+                return (T) entry.value();
+            }
+            lastKnownGood.countEmptyFallback(getCommandKey().name());
+        }
+        return fallback.get();
+    }
+
+    /**
+     * Thread pools for database operations, split by cost so slow calls cannot take every
+     * connection from cheap ones. The defaults here fit a pool of 5 connections;
+     * {@link DatabaseBulkheads} resizes them from the configured pool at startup.
+     */
+    public enum Bulkhead {
+        /** Lookups of single rows or small batches by key */
+        POINT_READS("DatabasePointReads", 5, 20),
+        /** Listings, searches and follow lists */
+        LIST_READS("DatabaseListReads", 3, 10),
+        /** Similarity, graph walks and aggregations that hold a connection for long */
+        HEAVY("DatabaseHeavy", 2, 5);
+
+        private final HystrixThreadPoolKey key;
+        private final int defaultThreads;
+        private final int defaultQueueSize;
+
+        Bulkhead(String name, int defaultThreads, int defaultQueueSize) {
+            this.key = HystrixThreadPoolKey.Factory.asKey(name);
+            this.defaultThreads = defaultThreads;
+            this.defaultQueueSize = defaultQueueSize;
+        }
+
+        public HystrixThreadPoolKey getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return key.name();
+        }
+    }
+
+    /**
+     * Circuit breaker, timeout and isolation settings for one named operation
+     */
+    public static final class Operation {
+        private static final Map<String, Operation> DECLARED = new ConcurrentHashMap<>();
+
+        private final String name;
+        private final ExecutionIsolationStrategy isolation;
+        private final Bulkhead bulkhead;
+        private final int timeoutMs;
+        private final HystrixCommand.Setter setter;
+
+        private Operation(String name, ExecutionIsolationStrategy isolation, Bulkhead bulkhead, int timeoutMs) {
+            this.name = name;
+            this.isolation = isolation;
+            this.bulkhead = bulkhead;
+            this.timeoutMs = timeoutMs;
+            HystrixCommandProperties.Setter properties = HystrixCommandProperties.Setter()
+                    .withExecutionIsolationStrategy(isolation)
+                    .withCircuitBreakerEnabled(true)
+                    .withCircuitBreakerRequestVolumeThreshold(10)
+                    .withCircuitBreakerErrorThresholdPercentage(50)
+                    .withCircuitBreakerSleepWindowInMilliseconds(5000)
+                    .withExecutionTimeoutInMilliseconds(timeoutMs)
+                    .withFallbackEnabled(true);
+            if (isolation == ExecutionIsolationStrategy.SEMAPHORE) {
+                properties.withExecutionIsolationSemaphoreMaxConcurrentRequests(RESIDENT_MAX_CONCURRENT)
+                        .withFallbackIsolationSemaphoreMaxConcurrentRequests(RESIDENT_MAX_CONCURRENT);
+            }
+            HystrixCommand.Setter setter = HystrixCommand.Setter.withGroupKey(DATABASE_GROUP)
+                    .andCommandKey(HystrixCommandKey.Factory.asKey(name))
+                    .andCommandPropertiesDefaults(properties);
+            if (bulkhead != null) {
+                setter.andThreadPoolKey(bulkhead.key)
+                        .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter()
+                                .withCoreSize(bulkhead.defaultThreads)
+                                .withMaxQueueSize(BULKHEAD_MAX_QUEUE_SIZE)
+                                .withQueueSizeRejectionThreshold(bulkhead.defaultQueueSize));
+            }
+            this.setter = setter;
+            DECLARED.put(name, this);
+        }
+
+        /**
+         * Every operation declared so far
+         */
+        public static Collection<Operation> all() {
+            return Collections.unmodifiableCollection(DECLARED.values());
+        }
+
+        /**
+         * An operation that queries the database, isolated on the thread pool of its bulkhead
+         */
+        public static Operation database(String name, Bulkhead bulkhead, int timeoutMs) {
+            return new Operation(name, ExecutionIsolationStrategy.THREAD, bulkhead, timeoutMs);
+        }
+
+        /**
+         * An operation answered from memory, run on the caller's thread under a semaphore
+         */
+        public static Operation resident(String name, int timeoutMs) {
+            return new Operation(name, ExecutionIsolationStrategy.SEMAPHORE, null, timeoutMs);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ExecutionIsolationStrategy getIsolation() {
+            return isolation;
+        }
+
+        /**
+         * The bulkhead of a database operation, or null for a resident one
+         */
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        /**
+         * The timeout the operation was declared with; {@link AdaptiveTimeouts} may override it at runtime
+         */
+        public int getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public <T> ProtectedCall<T> command(Supplier<T> run, Supplier<T> fallback) {
+            return new ProtectedCall<>(this, run, fallback, null, null);
+        }
+
+        public <T> T execute(Supplier<T> run, Supplier<T> fallback) {
+            return command(run, fallback).execute();
+        }
+
+        /**
+         * Execute, recording a successful result under the key and falling back to the last
+         * result recorded under it (with its age) before the empty fallback
+         */
+        public <T> LastKnownGood.Result<T> execute(LastKnownGood lastKnownGood, List<Object> key,
+                                                  Supplier<T> run, Supplier<T> fallback) {
+            ProtectedCall<T> command = new ProtectedCall<>(this, run, fallback, lastKnownGood, key);
+            T value = command.execute();
+            return new LastKnownGood.Result<>(value, command.staleAgeMs);
+        }
+    }
+}
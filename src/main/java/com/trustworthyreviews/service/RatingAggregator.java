@@ -0,0 +1,481 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies new review ratings to the products row: the rating_1 to rating_5 histogram,
+ * review_count, rating_sum and avg_rating.
+ *
+ * When enabled, committed ratings are buffered per product in striped counters instead of
+ * each review updating the products row, so a burst of reviews on one product no longer
+ * queues on its row lock. A scheduled flush writes every product's accumulated histogram
+ * as one batched UPDATE in a single transaction, so a failed flush leaves every product to
+ * the next one without counting any of them twice. The stored histograms are mirrored in
+ * memory as they are read or written, so review summaries and avg_rating readers get the
+ * stored counts with the pending ones merged in, and the catalog is patched with the
+ * merged average as ratings arrive. When disabled, each rating is applied in the caller's
+ * transaction and summaries read the products row; on PostgreSQL a new review's rating is
+ * applied by the statement that inserts the review (see {@link #insertReview}).
+ */
+@Component
+public class RatingAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregator.class);
+
+    /** Right-hand sides see the row before the update, so the new average uses the new totals */
+    private static final String ADD_RATINGS_SQL = """
+        UPDATE products
+        SET rating_1 = rating_1 + ?,
+            rating_2 = rating_2 + ?,
+            rating_3 = rating_3 + ?,
+            rating_4 = rating_4 + ?,
+            rating_5 = rating_5 + ?,
+            review_count = review_count + ?,
+            rating_sum = rating_sum + ?,
+            avg_rating = CAST(rating_sum + ? AS DOUBLE PRECISION) / (review_count + ?)
+        WHERE product_id = ?
+    """;
+    private static final String[] RETURNED_COLUMNS =
+            {"product_id", "rating_1", "rating_2", "rating_3", "rating_4", "rating_5"};
+
+    /** A review INSERT and ADD_RATINGS_SQL in one round trip, as a data-modifying CTE */
+    private static final String INSERT_WITH_RATINGS_SQL = """
+        WITH review AS (
+            %s
+            RETURNING review_id
+        ), totals AS (
+            %s
+            RETURNING rating_1, rating_2, rating_3, rating_4, rating_5
+        )
+        SELECT review.review_id AS "review_id",
+               totals.rating_1 AS "rating_1", totals.rating_2 AS "rating_2", totals.rating_3 AS "rating_3",
+               totals.rating_4 AS "rating_4", totals.rating_5 AS "rating_5"
+        FROM review LEFT JOIN totals ON TRUE
+    """;
+
+    private static final String HISTOGRAM_SQL = """
+        SELECT rating_1 AS "rating_1", rating_2 AS "rating_2", rating_3 AS "rating_3",
+               rating_4 AS "rating_4", rating_5 AS "rating_5"
+        FROM products
+        WHERE product_id = ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCatalog productCatalog;
+    private final Map<Integer, Pending> products = new ConcurrentHashMap<>();
+
+    @Value("${reviews.rating-aggregator.enabled:true}")
+    private boolean enabled;
+
+    private volatile Boolean postgres;
+
+    public RatingAggregator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            ProductCatalog productCatalog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productCatalog = productCatalog;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add one review's rating to the product. Buffered ratings are only counted once the
+     * surrounding transaction commits; synchronous updates join the transaction.
+     */
+    public void addRating(int productId, int rating) {
+        if (!enabled) {
+            applyNow(productId, rating);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer(productId, rating);
+                }
+            });
+        } else {
+            buffer(productId, rating);
+        }
+    }
+
+    /**
+     * Insert a review and add its rating to the product, returning the new review_id.
+     *
+     * The INSERT takes the given arguments and must not have a RETURNING clause. When
+     * ratings are applied synchronously on PostgreSQL, the INSERT and the products UPDATE
+     * run as one statement; otherwise the INSERT returns review_id through generated keys
+     * and the rating goes through {@link #addRating}.
+     */
+    public Integer insertReview(String insertSql, Object[] insertArgs, int productId, int rating) {
+        if (!enabled && onPostgres()) {
+            String sql = String.format(INSERT_WITH_RATINGS_SQL, insertSql.strip(), ADD_RATINGS_SQL.strip());
+            return jdbcTemplate.query(sql, ps -> {
+                new ArgumentPreparedStatementSetter(insertArgs).setValues(ps);
+                setAddRatings(ps, insertArgs.length, productId, RatingHistogram.single(rating));
+            }, rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                if (rs.getObject("rating_1") != null) {
+                    productCatalog.updateAverageRatingAfterCommit(productId, histogramOf(rs).average());
+                }
+                return rs.getInt("review_id");
+            });
+        }
+
+        KeyHolder reviewKey = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(insertSql, new String[]{"review_id"});
+            new ArgumentPreparedStatementSetter(insertArgs).setValues(ps);
+            return ps;
+        }, reviewKey);
+        addRating(productId, rating);
+        return reviewKey.getKey() == null ? null : reviewKey.getKey().intValue();
+    }
+
+    /**
+     * The product's rating histogram including ratings not yet written, or null when the
+     * product does not exist
+     */
+    public RatingHistogram histogram(int productId) {
+        if (!enabled) {
+            return loadHistogram(productId);
+        }
+        Pending entry = entry(productId);
+        return entry == null ? null : entry.current();
+    }
+
+    /**
+     * The product with its buffered ratings merged into avg_rating
+     */
+    public Product withPending(Product product) {
+        if (product == null || products.isEmpty()) {
+            return product;
+        }
+        Pending entry = products.get(product.productId());
+        if (entry == null || !entry.hasUnwritten()) {
+            return product;
+        }
+        RatingHistogram current = entry.current();
+        return current == null ? product : product.withAvgRating(current.average());
+    }
+
+    /**
+     * Number of products with ratings not yet written
+     */
+    public int pendingProducts() {
+        int count = 0;
+        for (Pending entry : products.values()) {
+            if (entry.hasUnwritten()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean hasPending(int productId) {
+        Pending entry = products.get(productId);
+        return entry != null && entry.hasUnwritten();
+    }
+
+    /**
+     * Replace the mirrored histogram after it was verified or corrected against
+     * product_reviews, unless ratings for the product are waiting to be written
+     */
+    public void reconciled(int productId, RatingHistogram stored) {
+        if (!enabled) {
+            return;
+        }
+        Pending entry = products.get(productId);
+        if (entry == null) {
+            products.putIfAbsent(productId, new Pending(stored));
+        } else {
+            entry.replaceIfIdle(stored);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${reviews.rating-aggregator.flush-interval-ms:1000}",
+               fixedDelayString = "${reviews.rating-aggregator.flush-interval-ms:1000}")
+    public void flush() {
+        List<Integer> productIds = new ArrayList<>();
+        List<RatingHistogram> deltas = new ArrayList<>();
+        for (Map.Entry<Integer, Pending> entry : products.entrySet()) {
+            RatingHistogram delta = entry.getValue().drain();
+            if (delta != null) {
+                productIds.add(entry.getKey());
+                deltas.add(delta);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            KeyHolder stored = new GeneratedKeyHolder();
+            // all or nothing: a batch failing partway would otherwise re-buffer rows already committed
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(ADD_RATINGS_SQL, RETURNED_COLUMNS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setAddRatings(ps, 0, productIds.get(i), deltas.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return productIds.size();
+                        }
+                    },
+                    stored));
+
+            for (Map<String, Object> row : stored.getKeyList()) {
+                if (row.get(columnKey(row, "product_id")) instanceof Number id) {
+                    Pending entry = products.get(id.intValue());
+                    if (entry != null) {
+                        entry.written(histogramOf(row));
+                        productCatalog.updateAverageRating(id.intValue(), entry.current().average());
+                    }
+                }
+            }
+            log.debug("Flushed ratings for {} products", productIds.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush ratings for {} products, retrying next interval: {}",
+                    productIds.size(), e.getMessage());
+            for (int i = 0; i < productIds.size(); i++) {
+                products.get(productIds.get(i)).restore(deltas.get(i));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    private void buffer(int productId, int rating) {
+        Pending entry = products.get(productId);
+        if (entry == null) {
+            Pending loaded = new Pending(loadHistogramQuietly(productId));
+            entry = products.putIfAbsent(productId, loaded);
+            if (entry == null) {
+                entry = loaded;
+            }
+        }
+        entry.add(rating);
+        RatingHistogram current = entry.current();
+        if (current != null) {
+            productCatalog.updateAverageRating(productId, current.average());
+        }
+    }
+
+    private Pending entry(int productId) {
+        Pending entry = products.get(productId);
+        if (entry != null) {
+            return entry;
+        }
+        RatingHistogram stored = loadHistogram(productId);
+        if (stored == null) {
+            return null;
+        }
+        entry = products.putIfAbsent(productId, new Pending(stored));
+        return entry == null ? products.get(productId) : entry;
+    }
+
+    private RatingHistogram loadHistogram(int productId) {
+        List<RatingHistogram> rows = jdbcTemplate.query(HISTOGRAM_SQL,
+                (rs, rowNum) -> histogramOf(rs), productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private RatingHistogram loadHistogramQuietly(int productId) {
+        try {
+            return loadHistogram(productId);
+        } catch (Exception e) {
+            log.debug("Failed to load rating histogram for product {}: {}", productId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void applyNow(int productId, int rating) {
+        KeyHolder stored = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ADD_RATINGS_SQL, RETURNED_COLUMNS);
+            setAddRatings(ps, 0, productId, RatingHistogram.single(rating));
+            return ps;
+        }, stored);
+
+        List<Map<String, Object>> rows = stored.getKeyList();
+        if (!rows.isEmpty()) {
+            productCatalog.updateAverageRatingAfterCommit(productId, histogramOf(rows.get(0)).average());
+        }
+    }
+
+    /** Bind ADD_RATINGS_SQL's parameters after the first offset ones */
+    private static void setAddRatings(PreparedStatement ps, int offset, int productId, RatingHistogram delta)
+            throws SQLException {
+        for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+            ps.setLong(offset + rating, delta.count(rating));
+        }
+        ps.setLong(offset + 6, delta.total());
+        ps.setLong(offset + 7, delta.ratingSum());
+        ps.setLong(offset + 8, delta.ratingSum());
+        ps.setLong(offset + 9, delta.total());
+        ps.setInt(offset + 10, productId);
+    }
+
+    private boolean onPostgres() {
+        Boolean known = postgres;
+        if (known == null) {
+            known = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+            postgres = known;
+        }
+        return known;
+    }
+
+    static RatingHistogram histogramOf(ResultSet rs) throws SQLException {
+        return RatingHistogram.of(rs.getLong("rating_1"), rs.getLong("rating_2"), rs.getLong("rating_3"),
+                rs.getLong("rating_4"), rs.getLong("rating_5"));
+    }
+
+    private static RatingHistogram histogramOf(Map<String, Object> row) {
+        long[] counts = new long[RatingHistogram.MAX_RATING];
+        for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+            Object count = row.get(columnKey(row, "rating_" + rating));
+            counts[rating - RatingHistogram.MIN_RATING] = count instanceof Number number ? number.longValue() : 0L;
+        }
+        return RatingHistogram.of(counts);
+    }
+
+    /** Generated key maps use the driver's case for column names */
+    private static String columnKey(Map<String, Object> row, String column) {
+        for (String key : row.keySet()) {
+            if (key.equalsIgnoreCase(column)) {
+                return key;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * One product's mirrored histogram and buffered ratings. stored holds the written counts
+     * plus any delta currently being flushed, so readers never see a drained delta go missing.
+     */
+    private static final class Pending {
+        private final LongAdder[] buffered = new LongAdder[RatingHistogram.MAX_RATING];
+        private RatingHistogram stored;
+        private RatingHistogram inFlight;
+
+        private Pending(RatingHistogram stored) {
+            this.stored = stored;
+            for (int i = 0; i < buffered.length; i++) {
+                buffered[i] = new LongAdder();
+            }
+        }
+
+        void add(int rating) {
+            buffered[rating - RatingHistogram.MIN_RATING].increment();
+        }
+
+        private boolean hasBuffered() {
+            for (LongAdder adder : buffered) {
+                if (adder.sum() != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean hasUnwritten() {
+            synchronized (this) {
+                if (inFlight != null) {
+                    return true;
+                }
+            }
+            return hasBuffered();
+        }
+
+        /**
+         * Stored counts plus the buffered ones, or null while the stored counts are unknown
+         */
+        synchronized RatingHistogram current() {
+            if (stored == null) {
+                return null;
+            }
+            long[] counts = new long[buffered.length];
+            for (int i = 0; i < buffered.length; i++) {
+                counts[i] = buffered[i].sum();
+            }
+            return stored.plus(RatingHistogram.of(counts));
+        }
+
+        /**
+         * Take the buffered ratings for writing, or null when there are none
+         */
+        synchronized RatingHistogram drain() {
+            long[] counts = new long[buffered.length];
+            for (int i = 0; i < buffered.length; i++) {
+                counts[i] = buffered[i].sumThenReset();
+            }
+            RatingHistogram delta = RatingHistogram.of(counts);
+            if (delta.isEmpty()) {
+                return null;
+            }
+            inFlight = delta;
+            if (stored != null) {
+                stored = stored.plus(delta);
+            }
+            return delta;
+        }
+
+        synchronized void written(RatingHistogram storedCounts) {
+            stored = storedCounts;
+            inFlight = null;
+        }
+
+        synchronized void restore(RatingHistogram delta) {
+            for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+                buffered[rating - RatingHistogram.MIN_RATING].add(delta.count(rating));
+            }
+            if (stored != null) {
+                stored = stored.minus(delta);
+            }
+            inFlight = null;
+        }
+
+        synchronized void replaceIfIdle(RatingHistogram storedCounts) {
+            if (inFlight == null && !hasBuffered()) {
+                stored = storedCounts;
+            }
+        }
+    }
+}
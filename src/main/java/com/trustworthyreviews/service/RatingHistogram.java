@@ -0,0 +1,113 @@
+package com.trustworthyreviews.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable count of reviews per star rating (1 to 5) for one product. The review count,
+ * rating sum and average are derived from the buckets, so they always agree with each other.
+ */
+public final class RatingHistogram {
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    public static final RatingHistogram EMPTY = new RatingHistogram(new long[MAX_RATING]);
+
+    private final long[] counts;
+
+    private RatingHistogram(long[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * Histogram from per-rating counts, index 0 holding the 1-star count
+     */
+    public static RatingHistogram of(long... counts) {
+        if (counts.length != MAX_RATING) {
+            throw new IllegalArgumentException("Expected " + MAX_RATING + " rating counts");
+        }
+        return new RatingHistogram(counts.clone());
+    }
+
+    public static RatingHistogram single(int rating) {
+        long[] counts = new long[MAX_RATING];
+        counts[rating - MIN_RATING] = 1;
+        return new RatingHistogram(counts);
+    }
+
+    public long count(int rating) {
+        return counts[rating - MIN_RATING];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long ratingSum() {
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            sum += counts[i] * (i + MIN_RATING);
+        }
+        return sum;
+    }
+
+    /**
+     * Mean rating, or null when there are no reviews
+     */
+    public Double average() {
+        long total = total();
+        return total == 0 ? null : (double) ratingSum() / total;
+    }
+
+    public boolean isEmpty() {
+        return total() == 0;
+    }
+
+    public RatingHistogram plus(RatingHistogram other) {
+        long[] sum = counts.clone();
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += other.counts[i];
+        }
+        return new RatingHistogram(sum);
+    }
+
+    public RatingHistogram minus(RatingHistogram other) {
+        long[] difference = counts.clone();
+        for (int i = 0; i < difference.length; i++) {
+            difference[i] -= other.counts[i];
+        }
+        return new RatingHistogram(difference);
+    }
+
+    /**
+     * Count per rating, 1 to 5, as returned by the review summary endpoint
+     */
+    public Map<Integer, Integer> distribution() {
+        Map<Integer, Integer> distribution = new HashMap<>();
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            distribution.put(rating, (int) count(rating));
+        }
+        return distribution;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RatingHistogram other && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(counts);
+    }
+}
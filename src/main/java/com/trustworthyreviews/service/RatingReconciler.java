@@ -0,0 +1,243 @@
+package com.trustworthyreviews.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Verifies the per-product rating counters (rating_1 to rating_5, review_count, rating_sum)
+ * against product_reviews, one bounded batch of products per run, and corrects any drift.
+ *
+ * Each run checks the next batch of product ids after the previous one and wraps around at
+ * the end, so the whole table is covered over successive runs without one large scan.
+ * Products with ratings still buffered here, or with reviews newer than the grace period,
+ * are skipped until a later pass: their counters may not include those reviews yet.
+ * Corrections only apply when the counters still hold the values that were checked.
+ */
+@Component
+public class RatingReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingReconciler.class);
+
+    private static final String BATCH_SQL = """
+        SELECT product_id AS "product_id",
+               rating_1 AS "rating_1", rating_2 AS "rating_2", rating_3 AS "rating_3",
+               rating_4 AS "rating_4", rating_5 AS "rating_5",
+               review_count AS "review_count", rating_sum AS "rating_sum"
+        FROM products
+        WHERE product_id > ?
+        ORDER BY product_id
+        LIMIT ?
+    """;
+
+    private static final String COUNTS_SQL = """
+        SELECT product_id AS "product_id", review_rating AS "review_rating", COUNT(*) AS "count"
+        FROM product_reviews
+        WHERE product_id BETWEEN ? AND ?
+        GROUP BY product_id, review_rating
+    """;
+
+    private static final String BY_ID_SQL = """
+        SELECT product_id AS "product_id",
+               rating_1 AS "rating_1", rating_2 AS "rating_2", rating_3 AS "rating_3",
+               rating_4 AS "rating_4", rating_5 AS "rating_5",
+               review_count AS "review_count", rating_sum AS "rating_sum"
+        FROM products
+        WHERE product_id IN (%s)
+    """;
+
+    private static final String COUNTS_BY_ID_SQL = """
+        SELECT product_id AS "product_id", review_rating AS "review_rating", COUNT(*) AS "count"
+        FROM product_reviews
+        WHERE product_id IN (%s)
+        GROUP BY product_id, review_rating
+    """;
+
+    private static final String RECENT_SQL = """
+        SELECT DISTINCT product_id AS "product_id"
+        FROM product_reviews
+        WHERE product_id BETWEEN ? AND ? AND created_at > ?
+    """;
+
+    private static final String CORRECT_SQL = """
+        UPDATE products
+        SET rating_1 = ?, rating_2 = ?, rating_3 = ?, rating_4 = ?, rating_5 = ?,
+            review_count = ?,
+            rating_sum = ?,
+            avg_rating = CASE WHEN ? = 0 THEN NULL ELSE CAST(? AS DOUBLE PRECISION) / ? END
+        WHERE product_id = ?
+          AND rating_1 = ? AND rating_2 = ? AND rating_3 = ? AND rating_4 = ? AND rating_5 = ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RatingAggregator ratingAggregator;
+    private final ProductCatalog productCatalog;
+    private int lastProductId;
+
+    @Value("${reviews.rating-reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reviews.rating-reconciler.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${reviews.rating-reconciler.grace-period-ms:60000}")
+    private long gracePeriodMs = 60000;
+
+    public RatingReconciler(JdbcTemplate jdbcTemplate, RatingAggregator ratingAggregator, ProductCatalog productCatalog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingAggregator = ratingAggregator;
+        this.productCatalog = productCatalog;
+    }
+
+    @Scheduled(initialDelayString = "${reviews.rating-reconciler.initial-delay-ms:30000}",
+               fixedDelayString = "${reviews.rating-reconciler.interval-ms:10000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcileNextBatch();
+        } catch (Exception e) {
+            log.warn("Failed to reconcile rating counters after product {}: {}", lastProductId, e.getMessage());
+        }
+    }
+
+    /**
+     * Check the next batch of products and correct drifted counters
+     *
+     * @return number of products corrected
+     */
+    synchronized int reconcileNextBatch() {
+        Map<Integer, Counters> stored = new LinkedHashMap<>();
+        jdbcTemplate.query(BATCH_SQL, rs -> {
+            stored.put(rs.getInt("product_id"), countersOf(rs));
+        }, lastProductId, batchSize);
+        if (stored.isEmpty()) {
+            lastProductId = 0;
+            return 0;
+        }
+
+        int first = stored.keySet().iterator().next();
+        int last = first;
+        for (int productId : stored.keySet()) {
+            last = productId;
+        }
+
+        Set<Integer> recent = new HashSet<>(jdbcTemplate.queryForList(RECENT_SQL, Integer.class,
+                first, last, new Timestamp(System.currentTimeMillis() - gracePeriodMs)));
+
+        Map<Integer, long[]> counted = new HashMap<>();
+        jdbcTemplate.query(COUNTS_SQL, rs -> {
+            addCount(counted, rs);
+        }, first, last);
+
+        int corrected = verify(stored, counted, recent);
+        lastProductId = stored.size() < batchSize ? 0 : last;
+        return corrected;
+    }
+
+    /**
+     * Recompute the counters of the given products from product_reviews now, in batches,
+     * after rows were written without maintaining them (a bulk import). Buffered ratings
+     * are flushed first; products that still have some are left to the periodic pass.
+     *
+     * @return number of products whose counters changed
+     */
+    public synchronized int recompute(Collection<Integer> productIds) {
+        ratingAggregator.flush();
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(productIds));
+        int corrected = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Integer> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            Object[] params = batch.toArray();
+
+            Map<Integer, Counters> stored = new LinkedHashMap<>();
+            jdbcTemplate.query(String.format(BY_ID_SQL, placeholders), rs -> {
+                stored.put(rs.getInt("product_id"), countersOf(rs));
+            }, params);
+            Map<Integer, long[]> counted = new HashMap<>();
+            jdbcTemplate.query(String.format(COUNTS_BY_ID_SQL, placeholders), rs -> {
+                addCount(counted, rs);
+            }, params);
+
+            corrected += verify(stored, counted, Collections.emptySet());
+        }
+        return corrected;
+    }
+
+    private int verify(Map<Integer, Counters> stored, Map<Integer, long[]> counted, Set<Integer> skip) {
+        int corrected = 0;
+        for (Map.Entry<Integer, Counters> entry : stored.entrySet()) {
+            int productId = entry.getKey();
+            if (skip.contains(productId) || ratingAggregator.hasPending(productId)) {
+                continue;
+            }
+            Counters counters = entry.getValue();
+            long[] counts = counted.get(productId);
+            RatingHistogram expected = counts == null ? RatingHistogram.EMPTY : RatingHistogram.of(counts);
+            if (counters.matches(expected)) {
+                ratingAggregator.reconciled(productId, expected);
+            } else if (correct(productId, counters.histogram(), expected)) {
+                log.info("Corrected rating counters for product {}: {} -> {}",
+                        productId, counters.histogram(), expected);
+                ratingAggregator.reconciled(productId, expected);
+                productCatalog.updateAverageRating(productId, expected.average());
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    private static Counters countersOf(ResultSet rs) throws SQLException {
+        return new Counters(RatingAggregator.histogramOf(rs), rs.getLong("review_count"), rs.getLong("rating_sum"));
+    }
+
+    private static void addCount(Map<Integer, long[]> counted, ResultSet rs) throws SQLException {
+        int rating = rs.getInt("review_rating");
+        if (rating >= RatingHistogram.MIN_RATING && rating <= RatingHistogram.MAX_RATING) {
+            counted.computeIfAbsent(rs.getInt("product_id"), key -> new long[RatingHistogram.MAX_RATING])
+                    [rating - RatingHistogram.MIN_RATING] = rs.getLong("count");
+        }
+    }
+
+    private boolean correct(int productId, RatingHistogram checked, RatingHistogram expected) {
+        Object[] params = new Object[16];
+        for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+            params[rating - 1] = expected.count(rating);
+            params[rating + 10] = checked.count(rating);
+        }
+        params[5] = expected.total();
+        params[6] = expected.ratingSum();
+        params[7] = expected.total();
+        params[8] = expected.ratingSum();
+        params[9] = expected.total();
+        params[10] = productId;
+        return jdbcTemplate.update(CORRECT_SQL, params) > 0;
+    }
+
+    private record Counters(RatingHistogram histogram, long reviewCount, long ratingSum) {
+        boolean matches(RatingHistogram expected) {
+            return histogram.equals(expected)
+                    && reviewCount == expected.total()
+                    && ratingSum == expected.ratingSum();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestVariableDefault;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Results of service calls remembered for the rest of the current HTTP request.
+ *
+ * Lives in the Hystrix request context opened by RequestMemoFilter, so it is shared by the
+ * request thread, the Hystrix threads running its commands and any work handed to other
+ * executors through {@link #inCurrentRequest}. Concurrent calls with the same key wait for the
+ * first one instead of repeating it. Outside a request every call is computed.
+ *
+ * Remembered values are shared by every caller in the request and must not be modified.
+ */
+public final class RequestMemo {
+
+    private static final HystrixRequestVariableDefault<Map<List<Object>, CompletableFuture<Object>>> RESULTS =
+            new HystrixRequestVariableDefault<>() {
+                @Override
+                public Map<List<Object>, CompletableFuture<Object>> initialValue() {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private RequestMemo() {
+    }
+
+    /**
+     * The result remembered for the key in this request, computing it on first use.
+     * Failures are not remembered.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(List<Object> key, Supplier<T> compute) {
+        if (!HystrixRequestContext.isCurrentThreadInitialized()) {
+            return compute.get();
+        }
+        Map<List<Object>, CompletableFuture<Object>> results = RESULTS.get();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> existing = results.putIfAbsent(key, result);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+        try {
+            T value = compute.get();
+            result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            results.remove(key, result);
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Work that runs in the current request's context on whichever thread executes it
+     */
+    public static <T> Supplier<T> inCurrentRequest(Supplier<T> work) {
+        HystrixRequestContext context = HystrixRequestContext.getContextForCurrentThread();
+        if (context == null) {
+            return work;
+        }
+        return () -> {
+            HystrixRequestContext previous = HystrixRequestContext.getContextForCurrentThread();
+            HystrixRequestContext.setContextOnCurrentThread(context);
+            try {
+                return work.get();
+            } finally {
+                HystrixRequestContext.setContextOnCurrentThread(previous);
+            }
+        };
+    }
+}
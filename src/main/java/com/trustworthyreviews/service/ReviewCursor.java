@@ -0,0 +1,48 @@
+package com.trustworthyreviews.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a product's review listing: the sort keys of the last review on a page.
+ *
+ * Encoded as an opaque URL-safe token. Reviews are ordered newest first by
+ * (created_at, review_id), or by the viewer's cached similarity to the reviewer first.
+ */
+public record ReviewCursor(Sort sort, Double score, Timestamp createdAt, int reviewId) {
+
+    public enum Sort {
+        NEWEST, SIMILARITY;
+
+        /**
+         * "similarity" selects the similarity order; anything else is newest first
+         */
+        public static Sort parse(String value) {
+            return "similarity".equalsIgnoreCase(value) ? SIMILARITY : NEWEST;
+        }
+    }
+
+    public String encode() {
+        String raw = sort.name().charAt(0) + "|" + (score == null ? "" : score) + "|"
+                + (createdAt == null ? "" : createdAt.toInstant()) + "|" + reviewId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String token, Sort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            Sort sort = parts[0].equals("N") ? Sort.NEWEST : parts[0].equals("S") ? Sort.SIMILARITY : null;
+            if (parts.length != 4 || sort != expectedSort || parts[2].isEmpty()
+                    || (sort == Sort.SIMILARITY) == parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Double score = parts[1].isEmpty() ? null : Double.valueOf(parts[1]);
+            return new ReviewCursor(sort, score, Timestamp.from(Instant.parse(parts[2])), Integer.parseInt(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Review;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Adds reviewer details and, for a signed-in viewer, degree of separation and similarity
+ * to a list of reviews.
+ *
+ * The reviewers' details are fetched with one batch query, and the degree and similarity
+ * lookups for each distinct reviewer run concurrently on a bounded pool sized from the
+ * connection pool like the database bulkheads. When the pool is full the caller waits for
+ * room, and it waits for the lookups, up to the enrichment deadline. Whatever has not
+ * finished by then is left out and the result is reported as partial rather than failing
+ * the request.
+ */
+@Component
+public class ReviewEnricher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewEnricher.class);
+
+    private final UserService userService;
+    private final ThreadPoolExecutor executor;
+    /** One permit per running or queued lookup; the pool's own queue is unbounded */
+    private final Semaphore capacity;
+    private final long deadlineMs;
+
+    @Autowired
+    public ReviewEnricher(UserService userService,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections,
+                          @Value("${reviews.enrichment.share:0.4}") double share,
+                          @Value("${reviews.enrichment.queue-capacity:256}") int queueCapacity,
+                          @Value("${reviews.enrichment.deadline-ms:2000}") long deadlineMs) {
+        this(userService, DatabaseBulkheads.threadsFor(connections, share), queueCapacity, deadlineMs);
+    }
+
+    ReviewEnricher(UserService userService, int threads, int queueCapacity, long deadlineMs) {
+        this.userService = userService;
+        this.deadlineMs = deadlineMs;
+        this.capacity = new Semaphore(threads + queueCapacity, true);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "review-enrichment-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Enrich the reviews in place
+     *
+     * @return true when some lookups were cut off by the deadline
+     */
+    public boolean enrich(List<Review> reviews, String currentUserId) {
+        Set<String> reviewers = new LinkedHashSet<>();
+        for (Review review : reviews) {
+            if (review.uid() != null) {
+                reviewers.add(review.uid());
+            }
+        }
+        if (reviewers.isEmpty()) {
+            return false;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        CompletableFuture<Map<String, Map<String, Object>>> users =
+                stage(() -> userService.getUsersByIds(reviewers), deadline);
+        Map<String, CompletableFuture<Integer>> degrees = new HashMap<>();
+        Map<String, CompletableFuture<Double>> similarities = new HashMap<>();
+        if (currentUserId != null) {
+            for (String reviewerId : reviewers) {
+                if (!reviewerId.equals(currentUserId)) {
+                    degrees.put(reviewerId, stage(() -> userService.getDegreeOfSeparation(currentUserId, reviewerId), deadline));
+                    similarities.put(reviewerId, stage(
+                            () -> userService.calculateCombinedJaccardSimilarity(currentUserId, reviewerId), deadline));
+                }
+            }
+        }
+
+        List<CompletableFuture<?>> all = new ArrayList<>();
+        all.add(users);
+        all.addAll(degrees.values());
+        all.addAll(similarities.values());
+        boolean partial = !await(all, deadline);
+        Map<String, Map<String, Object>> usersById = valueOf(users);
+
+        for (int i = 0; i < reviews.size(); i++) {
+            Review review = reviews.get(i);
+            String reviewerId = review.uid();
+            if (reviewerId == null) {
+                continue;
+            }
+            Map<String, Object> user = usersById == null ? null : usersById.get(reviewerId);
+            if (user != null) {
+                review = review.withReviewer((String) user.get("email"), (String) user.get("display_name"));
+            }
+            if (currentUserId != null && !reviewerId.equals(currentUserId)) {
+                Double similarity = valueOf(similarities.get(reviewerId));
+                review = review.withRelation(valueOf(degrees.get(reviewerId)),
+                        similarity == null ? null : Math.round(similarity * 1000.0) / 1000.0, null);
+            } else if (currentUserId != null) {
+                // User's own review
+                review = review.withRelation(null, 1.0, true);
+            }
+            reviews.set(i, review);
+        }
+        return partial;
+    }
+
+    /**
+     * Queue a lookup, waiting until the deadline for room in the pool. A lookup that never
+     * got room fails with RejectedExecutionException; one cancelled while still queued is
+     * skipped when its turn comes.
+     */
+    private <T> CompletableFuture<T> stage(Supplier<T> lookup, long deadline) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            if (!capacity.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                result.completeExceptionally(new RejectedExecutionException("No room for the lookup before the deadline"));
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(new RejectedExecutionException("Interrupted waiting for room", e));
+            return result;
+        }
+
+        Supplier<T> work = RequestMemo.inCurrentRequest(lookup);
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!result.isDone()) {
+                        result.complete(work.get());
+                    }
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // only after shutdown
+            capacity.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Wait for the lookups until the deadline
+     *
+     * @return false when some got no room or were still running at the deadline
+     */
+    private boolean await(List<CompletableFuture<?>> lookups, long deadline) {
+        boolean complete = true;
+        try {
+            CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            complete = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete = false;
+        } catch (ExecutionException e) {
+            // individual failures are handled per lookup below
+        }
+
+        int unfinished = 0;
+        for (CompletableFuture<?> lookup : lookups) {
+            if (!lookup.isDone()) {
+                lookup.cancel(false);
+                unfinished++;
+            } else if (lookup.handle((value, error) -> error instanceof RejectedExecutionException).getNow(false)) {
+                complete = false;
+            }
+        }
+        if (!complete) {
+            log.warn("Review enrichment returned partial results: {} of {} lookups unfinished after {} ms",
+                    unfinished, lookups.size(), deadlineMs);
+        }
+        return complete;
+    }
+
+    private static <T> T valueOf(CompletableFuture<T> lookup) {
+        if (lookup == null || !lookup.isDone() || lookup.isCompletedExceptionally()) {
+            return null;
+        }
+        return lookup.join();
+    }
+}
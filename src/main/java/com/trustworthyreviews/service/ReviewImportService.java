@@ -0,0 +1,392 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk import of reviews from partner feeds, as NDJSON (one JSON object per line) or CSV
+ * with a header row. Both carry product_id, uid, rating, and optionally review_text and
+ * created_at (ISO-8601).
+ *
+ * The input is streamed: valid rows are collected into chunks and each chunk is inserted
+ * with one JDBC batch in its own transaction, skipping rows whose (product_id, uid) already
+ * has a review. Rating counters are not touched per row; once the input is consumed the
+ * counters and averages of every touched product are recomputed once.
+ *
+ * The offset is the number of data rows consumed. After a failure, passing the reported
+ * offset back as startOffset resumes after the last committed chunk.
+ */
+@Service
+public class ReviewImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewImportService.class);
+
+    /** Keeps at most one review per user and product without failing the batch on duplicates */
+    private static final String INSERT_SQL = """
+        INSERT INTO product_reviews (product_id, review_rating, review_desc, uid, created_at)
+        SELECT ?, ?, ?, ?::uuid, ?
+        WHERE NOT EXISTS (SELECT 1 FROM product_reviews WHERE product_id = ? AND uid = ?::uuid)
+          AND EXISTS (SELECT 1 FROM products WHERE product_id = ?)
+    """;
+
+    static final int MAX_REPORTED_REJECTS = 100;
+    static final int MAX_REVIEW_TEXT_LENGTH = 5000;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value, String fileName) {
+            String name = value != null && !value.isBlank() ? value : extension(fileName);
+            if (name != null) {
+                switch (name.trim().toLowerCase(Locale.ROOT)) {
+                    case "ndjson", "jsonl", "json" -> {
+                        return NDJSON;
+                    }
+                    case "csv" -> {
+                        return CSV;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            throw new IllegalArgumentException("format must be 'ndjson' or 'csv'");
+        }
+
+        private static String extension(String fileName) {
+            int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+            return dot < 0 ? null : fileName.substring(dot + 1);
+        }
+    }
+
+    /**
+     * Outcome of an import. nextOffset is where a follow-up import should resume; it equals
+     * the consumed row count when the whole input was processed.
+     */
+    public record ImportReport(
+            long startOffset,
+            long nextOffset,
+            long rowsRead,
+            long inserted,
+            long duplicates,
+            long rejected,
+            int productsRecomputed,
+            long elapsedMs,
+            double rowsPerSecond,
+            boolean completed,
+            String error,
+            List<Reject> rejects) {
+    }
+
+    public record Reject(long offset, String reason) {
+    }
+
+    private record Row(long offset, int productId, String uid, int rating, String text, Timestamp createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RatingReconciler ratingReconciler;
+    private final FollowingProductsIndex followingProductsIndex;
+    private final TrustWeightedRatings trustWeightedRatings;
+    private final ObjectMapper objectMapper;
+
+    @Value("${reviews.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${reviews.import.directory:}")
+    private String importDirectory;
+
+    public ReviewImportService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               RatingReconciler ratingReconciler,
+                               FollowingProductsIndex followingProductsIndex,
+                               TrustWeightedRatings trustWeightedRatings,
+                               ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ratingReconciler = ratingReconciler;
+        this.followingProductsIndex = followingProductsIndex;
+        this.trustWeightedRatings = trustWeightedRatings;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Import a file from the configured import directory
+     */
+    public ImportReport importFile(String fileName, Format format, long startOffset) throws IOException {
+        if (importDirectory == null || importDirectory.isBlank()) {
+            throw new IllegalStateException("Importing local files is not enabled");
+        }
+        Path directory = Path.of(importDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No such import file: " + fileName);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importReviews(in, format, startOffset);
+        }
+    }
+
+    public ImportReport importReviews(InputStream in, Format format, long startOffset) throws IOException {
+        long started = System.nanoTime();
+        Progress progress = new Progress(startOffset);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> header = format == Format.CSV ? readHeader(reader) : null;
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            long offset = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long rowOffset = offset++;
+                if (rowOffset < startOffset) {
+                    continue;
+                }
+                progress.rowsRead++;
+                try {
+                    chunk.add(format == Format.CSV ? csvRow(rowOffset, header, line) : jsonRow(rowOffset, line));
+                } catch (IllegalArgumentException e) {
+                    progress.reject(rowOffset, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    insertChunk(chunk, offset, progress);
+                    chunk.clear();
+                }
+            }
+            insertChunk(chunk, offset, progress);
+            progress.completed = true;
+        } catch (Exception e) {
+            log.error("Review import stopped at offset {}: {}", progress.committedOffset, e.getMessage(), e);
+            progress.error = e.getMessage();
+        }
+
+        int recomputed = 0;
+        if (!progress.touchedProducts.isEmpty()) {
+            try {
+                recomputed = ratingReconciler.recompute(progress.touchedProducts);
+            } catch (Exception e) {
+                log.error("Failed to recompute ratings after import, leaving them to reconciliation: {}", e.getMessage());
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        double rowsPerSecond = elapsedMs == 0 ? progress.rowsRead : progress.rowsRead * 1000.0 / elapsedMs;
+        log.info("Review import: {} rows read, {} inserted, {} duplicates, {} rejected in {} ms ({} rows/s)",
+                progress.rowsRead, progress.inserted, progress.duplicates, progress.rejected, elapsedMs,
+                Math.round(rowsPerSecond));
+        return new ImportReport(startOffset, progress.committedOffset, progress.rowsRead, progress.inserted,
+                progress.duplicates, progress.rejected, recomputed, elapsedMs, rowsPerSecond,
+                progress.completed, progress.error, List.copyOf(progress.rejects));
+    }
+
+    /**
+     * Insert one chunk in its own transaction; endOffset is the offset after its last row
+     */
+    private void insertChunk(List<Row> chunk, long endOffset, Progress progress) {
+        if (!chunk.isEmpty()) {
+            int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(),
+                    (ps, row) -> {
+                        ps.setInt(1, row.productId());
+                        ps.setInt(2, row.rating());
+                        ps.setString(3, row.text());
+                        ps.setString(4, row.uid());
+                        ps.setTimestamp(5, row.createdAt());
+                        ps.setInt(6, row.productId());
+                        ps.setString(7, row.uid());
+                        ps.setInt(8, row.productId());
+                    }));
+
+            int i = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    Row row = chunk.get(i++);
+                    if (count == 0) {
+                        progress.duplicates++;
+                    } else {
+                        progress.inserted++;
+                        progress.touchedProducts.add(row.productId());
+                        followingProductsIndex.recordReview(row.uid(), row.productId());
+                        trustWeightedRatings.recordReview(row.uid(), row.productId(), row.rating());
+                    }
+                }
+            }
+        }
+        progress.committedOffset = endOffset;
+    }
+
+    private Row jsonRow(long offset, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                fields.put(field.getKey(), field.getValue().asText());
+            }
+        });
+        return validate(offset, fields);
+    }
+
+    private List<String> readHeader(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return List.of();
+        }
+        List<String> header = new ArrayList<>();
+        for (String column : parseCsvLine(line)) {
+            header.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        if (!header.contains("product_id") || !header.contains("uid") || !header.contains("rating")) {
+            throw new IllegalArgumentException("CSV header must include product_id, uid and rating");
+        }
+        return header;
+    }
+
+    private Row csvRow(long offset, List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " columns, got " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header.get(i), values.get(i));
+            }
+        }
+        return validate(offset, fields);
+    }
+
+    /**
+     * Split one CSV line; fields may be double-quoted with "" as an escaped quote.
+     * Quoted fields cannot span lines.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private Row validate(long offset, Map<String, String> fields) {
+        int productId;
+        int rating;
+        try {
+            productId = Integer.parseInt(required(fields, "product_id").trim());
+            rating = Integer.parseInt(required(fields, "rating").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("product_id and rating must be integers");
+        }
+        if (rating < RatingHistogram.MIN_RATING || rating > RatingHistogram.MAX_RATING) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+
+        String uid = required(fields, "uid").trim();
+        try {
+            uid = UUID.fromString(uid).toString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("uid must be a UUID");
+        }
+
+        String text = fields.getOrDefault("review_text", fields.get("review_desc"));
+        if (text != null && text.length() > MAX_REVIEW_TEXT_LENGTH) {
+            throw new IllegalArgumentException("review_text longer than " + MAX_REVIEW_TEXT_LENGTH + " characters");
+        }
+
+        Timestamp createdAt;
+        String created = fields.get("created_at");
+        try {
+            createdAt = Timestamp.from(created == null ? Instant.now() : Instant.parse(created.trim()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("created_at must be an ISO-8601 instant");
+        }
+        return new Row(offset, productId, uid, rating, text, createdAt);
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static final class Progress {
+        private long committedOffset;
+        private long rowsRead;
+        private long inserted;
+        private long duplicates;
+        private long rejected;
+        private boolean completed;
+        private String error;
+        private final List<Reject> rejects = new ArrayList<>();
+        private final Set<Integer> touchedProducts = new HashSet<>();
+
+        private Progress(long startOffset) {
+            this.committedOffset = startOffset;
+        }
+
+        void reject(long offset, String reason) {
+            rejected++;
+            if (rejects.size() < MAX_REPORTED_REJECTS) {
+                rejects.add(new Reject(offset, reason));
+            }
+        }
+    }
+}
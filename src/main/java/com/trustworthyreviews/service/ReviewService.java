@@ -1,26 +1,52 @@
 package com.trustworthyreviews.service;
 
+import com.trustworthyreviews.model.EnrichedReviews;
+import com.trustworthyreviews.model.Review;
+import com.trustworthyreviews.model.ReviewPage;
+import com.trustworthyreviews.model.ReviewRowMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ReviewService {
 
     private static final Logger log = LoggerFactory.getLogger(ReviewService.class);
 
+    /** The unique (product_id, uid) constraint rejects a second review by the same user */
+    private static final String INSERT_REVIEW_SQL = """
+        INSERT INTO product_reviews (product_id, review_rating, review_desc, uid)
+        VALUES (?, ?, ?, ?::uuid)
+    """;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private UserService userService;
+    private ReviewEnricher reviewEnricher;
+
+    @Autowired
+    private RatingAggregator ratingAggregator;
+
+    @Autowired
+    private FollowingProductsIndex followingProductsIndex;
+
+    @Autowired
+    private ReviewTimeline reviewTimeline;
+
+    @Autowired
+    private TrustWeightedRatings trustWeightedRatings;
 
     @Transactional
     public Map<String, Object> addReview(int productId, String userId, int rating, String reviewText) {
@@ -29,31 +55,14 @@ public class ReviewService {
         }
 
         try {
-            String checkSql = "SELECT COUNT(*) FROM product_reviews WHERE product_id = ? AND uid = ?::uuid";
-            Integer existingCount = jdbcTemplate.queryForObject(checkSql, Integer.class, productId, userId);
-            
-            if (existingCount != null && existingCount > 0) {
-                throw new IllegalStateException("You have already reviewed this product");
+            Integer reviewId = ratingAggregator.insertReview(INSERT_REVIEW_SQL,
+                    new Object[]{productId, rating, reviewText, userId}, productId, rating);
+            followingProductsIndex.recordReviewAfterCommit(userId, productId);
+            trustWeightedRatings.recordReviewAfterCommit(userId, productId, rating);
+            if (reviewId != null) {
+                reviewTimeline.recordReviewAfterCommit(userId, reviewId);
             }
 
-            String insertSql = """
-                INSERT INTO product_reviews (product_id, review_rating, review_desc, uid)
-                VALUES (?, ?, ?, ?::uuid)
-            """;
-            
-            jdbcTemplate.update(insertSql, productId, rating, reviewText, userId);
-
-            String getIdSql = """
-                SELECT review_id FROM product_reviews 
-                WHERE product_id = ? AND uid = ?::uuid
-                ORDER BY created_at DESC
-                LIMIT 1
-            """;
-            
-            Integer reviewId = jdbcTemplate.queryForObject(getIdSql, Integer.class, productId, userId);
-
-            updateProductAverageRating(productId);
-
             Map<String, Object> result = new HashMap<>();
             result.put("review_id", reviewId);
             result.put("message", "Review added successfully");
@@ -61,23 +70,31 @@ public class ReviewService {
             log.info("User {} added review {} for product {}", userId, reviewId, productId);
             return result;
 
-        } catch (IllegalStateException e) {
-            throw e;
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("You have already reviewed this product");
         } catch (Exception e) {
             log.error("Error adding review for product {}: {}", productId, e.getMessage(), e);
             throw new RuntimeException("Error adding review: " + e.getMessage(), e);
         }
     }
 
-    public List<Map<String, Object>> getReviewsForProduct(int productId) {
+    public List<Review> getReviewsForProduct(int productId) {
         return getReviewsForProduct(productId, null, null);
     }
 
-    public List<Map<String, Object>> getReviewsForProduct(int productId, String currentUserId) {
+    public List<Review> getReviewsForProduct(int productId, String currentUserId) {
         return getReviewsForProduct(productId, currentUserId, null);
     }
 
-    public List<Map<String, Object>> getReviewsForProduct(int productId, String currentUserId, String sortBy) {
+    public List<Review> getReviewsForProduct(int productId, String currentUserId, String sortBy) {
+        return getEnrichedReviewsForProduct(productId, currentUserId, sortBy).reviews();
+    }
+
+    /**
+     * All reviews of a product, enriched concurrently within the enrichment deadline and
+     * flagged as partial when it was hit
+     */
+    public EnrichedReviews getEnrichedReviewsForProduct(int productId, String currentUserId, String sortBy) {
         try {
             String sql = """
                 SELECT 
@@ -92,96 +109,198 @@ public class ReviewService {
                 ORDER BY r.created_at DESC
             """;
             
-            List<Map<String, Object>> reviews = jdbcTemplate.queryForList(sql, productId);
-            
-            // Enrich with user data manually
-            for (Map<String, Object> review : reviews) {
-                String uid = (String) review.get("uid");
-                if (uid != null) {
-                    try {
-                        Map<String, Object> user = userService.getUserById(uid);
-                        if (user != null) {
-                            review.put("email", user.get("email"));
-                            review.put("display_name", user.get("display_name"));
-                        }
-                    } catch (Exception e) {
-                        // ignore user fetch errors
-                    }
-                }
-            }
-            
-            if (currentUserId != null) {
-                for (Map<String, Object> review : reviews) {
-                    String reviewerId = (String) review.get("uid");
-                    if (reviewerId != null && !reviewerId.equals(currentUserId)) {
-                        Integer degree = userService.getDegreeOfSeparation(currentUserId, reviewerId);
-                        review.put("degree_of_separation", degree);
-                        
-                        double similarity = userService.calculateCombinedJaccardSimilarity(currentUserId, reviewerId);
-                        review.put("similarity_score", Math.round(similarity * 1000.0) / 1000.0);
-                    } else if (reviewerId != null && reviewerId.equals(currentUserId)) {
-                        // User's own review
-                        review.put("similarity_score", 1.0);
-                        review.put("is_own_review", true);
-                    }
-                }
-            }
+            List<Review> reviews = new ArrayList<>(jdbcTemplate.query(sql, ReviewRowMapper.INSTANCE, productId));
+            boolean partial = reviewEnricher.enrich(reviews, currentUserId);
             
             if (sortBy != null && "similarity".equalsIgnoreCase(sortBy) && currentUserId != null) {
                 reviews.sort((a, b) -> {
-                    Double simA = (Double) a.getOrDefault("similarity_score", 0.0);
-                    Double simB = (Double) b.getOrDefault("similarity_score", 0.0);
+                    double simA = a.similarityScore() == null ? 0.0 : a.similarityScore();
+                    double simB = b.similarityScore() == null ? 0.0 : b.similarityScore();
                     // Sort descending (highest similarity first)
                     return Double.compare(simB, simA);
                 });
             }
             
-            return reviews;
+            return new EnrichedReviews(reviews, partial);
         } catch (Exception e) {
             log.error("Error fetching reviews for product {}: {}", productId, e.getMessage(), e);
             throw new RuntimeException("Error fetching reviews: " + e.getMessage(), e);
         }
     }
 
-    public Map<String, Object> getReviewSummary(int productId) {
+    /**
+     * One page of a product's reviews, newest first or, for a signed-in viewer, most similar
+     * reviewer first. Only the returned page is enriched with reviewer data and viewer metrics.
+     *
+     * The similarity order comes from the pairwise scores in user_similarity_cache, kept
+     * current by SimilarityRefresher (the viewer's own reviews first). Reviewers without a
+     * cached score sort as 0.
+     */
+    public ReviewPage getReviewsPage(int productId, String currentUserId, ReviewCursor.Sort sort, String cursor, int limit) {
+        ReviewCursor.Sort order = currentUserId == null ? ReviewCursor.Sort.NEWEST : sort;
+        ReviewCursor after = cursor == null || cursor.isEmpty() ? null : ReviewCursor.decode(cursor, order);
+
         try {
-            String distributionSql = """
-                SELECT 
-                    review_rating,
-                    COUNT(*) as count
-                FROM product_reviews
-                WHERE product_id = ?
-                GROUP BY review_rating
-                ORDER BY review_rating DESC
-            """;
-            
-            List<Map<String, Object>> distribution = jdbcTemplate.queryForList(distributionSql, productId);
-            
-            String statsSql = """
-                SELECT 
-                    COUNT(*) as total_reviews,
-                    AVG(review_rating) as avg_rating
-                FROM product_reviews
-                WHERE product_id = ?
-            """;
-            
-            Map<String, Object> stats = jdbcTemplate.queryForMap(statsSql, productId);
-            
-            Map<Integer, Integer> ratingDistribution = new HashMap<>();
-            for (int i = 1; i <= 5; i++) {
-                ratingDistribution.put(i, 0);
+            List<ScoredReview> rows = order == ReviewCursor.Sort.SIMILARITY
+                    ? bySimilarity(productId, currentUserId, after, limit + 1)
+                    : byNewest(productId, after, limit + 1);
+
+            boolean hasMore = rows.size() > limit;
+            List<ScoredReview> page = hasMore ? rows.subList(0, limit) : rows;
+            List<Review> reviews = new ArrayList<>(page.size());
+            for (ScoredReview row : page) {
+                reviews.add(row.review());
             }
-            
-            for (Map<String, Object> row : distribution) {
-                Integer rating = ((Number) row.get("review_rating")).intValue();
-                Integer count = ((Number) row.get("count")).intValue();
-                ratingDistribution.put(rating, count);
+            boolean partial = reviewEnricher.enrich(reviews, currentUserId);
+
+            String nextCursor = null;
+            if (hasMore) {
+                ScoredReview last = page.get(page.size() - 1);
+                nextCursor = new ReviewCursor(order, last.score(), last.review().createdAt(), last.review().reviewId()).encode();
             }
-            
+            return new ReviewPage(reviews, nextCursor, hasMore, partial);
+        } catch (Exception e) {
+            log.error("Error fetching reviews page for product {}: {}", productId, e.getMessage(), e);
+            throw new RuntimeException("Error fetching reviews: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One page of reviews by the people the user follows, newest first, from the user's
+     * review timeline. Reviews by users no longer followed are left out, so a page can
+     * hold fewer than limit reviews while hasMore is still true.
+     */
+    public ReviewPage getFeed(String userId, String cursor, int limit) {
+        ReviewCursor after = cursor == null || cursor.isEmpty() ? null : ReviewCursor.decode(cursor, ReviewCursor.Sort.NEWEST);
+
+        try {
+            List<Integer> ids = reviewTimeline.page(userId, after == null ? null : after.reviewId(), limit + 1);
+            boolean hasMore = ids.size() > limit;
+            List<Integer> pageIds = hasMore ? ids.subList(0, limit) : ids;
+            if (pageIds.isEmpty()) {
+                return new ReviewPage(List.of(), null, false, false);
+            }
+
+            String sql = String.format("""
+                SELECT
+                    r.review_id AS "review_id",
+                    r.product_id AS "product_id",
+                    r.review_rating AS "review_rating",
+                    r.review_desc AS "review_desc",
+                    r.uid::text AS "uid",
+                    r.created_at AS "created_at"
+                FROM product_reviews r
+                WHERE r.review_id IN (%s)
+            """, String.join(", ", Collections.nCopies(pageIds.size(), "?")));
+            Map<Integer, Review> byId = new HashMap<>();
+            for (Review review : jdbcTemplate.query(sql, ReviewRowMapper.INSTANCE, pageIds.toArray())) {
+                byId.put(review.reviewId(), review);
+            }
+
+            Set<String> followees = reviewTimeline.followeesOf(userId);
+            List<Review> reviews = new ArrayList<>(pageIds.size());
+            Review last = null;
+            for (int id : pageIds) {
+                Review review = byId.get(id);
+                if (review != null) {
+                    last = review;
+                    if (followees.contains(review.uid())) {
+                        reviews.add(review);
+                    }
+                }
+            }
+            boolean partial = reviewEnricher.enrich(reviews, null);
+
+            String nextCursor = hasMore && last != null
+                    ? new ReviewCursor(ReviewCursor.Sort.NEWEST, null, last.createdAt(), pageIds.get(pageIds.size() - 1)).encode()
+                    : null;
+            return new ReviewPage(reviews, nextCursor, nextCursor != null, partial);
+        } catch (Exception e) {
+            log.error("Error fetching review feed for user {}: {}", userId, e.getMessage(), e);
+            throw new RuntimeException("Error fetching feed: " + e.getMessage(), e);
+        }
+    }
+
+    private List<ScoredReview> byNewest(int productId, ReviewCursor after, int fetch) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT
+                r.review_id AS "review_id",
+                r.product_id AS "product_id",
+                r.review_rating AS "review_rating",
+                r.review_desc AS "review_desc",
+                r.uid::text AS "uid",
+                r.created_at AS "created_at"
+            FROM product_reviews r
+            WHERE r.product_id = ?
+        """);
+        List<Object> params = new ArrayList<>();
+        params.add(productId);
+        if (after != null) {
+            sql.append(" AND (r.created_at < ? OR (r.created_at = ? AND r.review_id < ?))");
+            params.add(after.createdAt());
+            params.add(after.createdAt());
+            params.add(after.reviewId());
+        }
+        sql.append(" ORDER BY r.created_at DESC, r.review_id DESC LIMIT ?");
+        params.add(fetch);
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new ScoredReview(ReviewRowMapper.INSTANCE.mapRow(rs, rowNum), null),
+                params.toArray());
+    }
+
+    private List<ScoredReview> bySimilarity(int productId, String viewerId, ReviewCursor after, int fetch) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT * FROM (
+                SELECT
+                    r.review_id AS "review_id",
+                    r.product_id AS "product_id",
+                    r.review_rating AS "review_rating",
+                    r.review_desc AS "review_desc",
+                    r.uid::text AS "uid",
+                    r.created_at AS "created_at",
+                    CAST(CASE WHEN r.uid = ?::uuid THEN 1.0 ELSE COALESCE(s.similarity_score, 0) END
+                         AS DOUBLE PRECISION) AS "sort_score"
+                FROM product_reviews r
+                LEFT JOIN user_similarity_cache s
+                    ON s.uuid1 = LEAST(r.uid, ?::uuid) AND s.uuid2 = GREATEST(r.uid, ?::uuid)
+                WHERE r.product_id = ?
+            ) t
+        """);
+        List<Object> params = new ArrayList<>(List.of(viewerId, viewerId, viewerId, productId));
+        if (after != null) {
+            sql.append("""
+                WHERE t."sort_score" < ?
+                   OR (t."sort_score" = ? AND (t."created_at" < ? OR (t."created_at" = ? AND t."review_id" < ?)))
+            """);
+            params.add(after.score());
+            params.add(after.score());
+            params.add(after.createdAt());
+            params.add(after.createdAt());
+            params.add(after.reviewId());
+        }
+        sql.append(" ORDER BY t.\"sort_score\" DESC, t.\"created_at\" DESC, t.\"review_id\" DESC LIMIT ?");
+        params.add(fetch);
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new ScoredReview(ReviewRowMapper.INSTANCE.mapRow(rs, rowNum), rs.getDouble("sort_score")),
+                params.toArray());
+    }
+
+    /**
+     * Review count, average and per-rating distribution, from the product's rating histogram
+     */
+    public Map<String, Object> getReviewSummary(int productId) {
+        try {
+            RatingHistogram histogram = ratingAggregator.histogram(productId);
+            if (histogram == null) {
+                histogram = RatingHistogram.EMPTY;
+            }
+
             Map<String, Object> summary = new HashMap<>();
-            summary.put("total_reviews", stats.get("total_reviews"));
-            summary.put("avg_rating", stats.get("avg_rating"));
-            summary.put("distribution", ratingDistribution);
+            summary.put("total_reviews", histogram.total());
+            summary.put("avg_rating", histogram.average());
+            summary.put("distribution", histogram.distribution());
             
             return summary;
             
@@ -191,27 +310,31 @@ public class ReviewService {
             Map<String, Object> emptySummary = new HashMap<>();
             emptySummary.put("total_reviews", 0);
             emptySummary.put("avg_rating", null);
-            Map<Integer, Integer> emptyDistribution = new HashMap<>();
-            for (int i = 1; i <= 5; i++) {
-                emptyDistribution.put(i, 0);
-            }
-            emptySummary.put("distribution", emptyDistribution);
+            emptySummary.put("distribution", RatingHistogram.EMPTY.distribution());
             return emptySummary;
         }
     }
 
-    private void updateProductAverageRating(int productId) {
-        String updateSql = """
-            UPDATE products
-            SET avg_rating = (
-                SELECT AVG(review_rating)
-                FROM product_reviews
-                WHERE product_id = ?
-            )
-            WHERE product_id = ?
-        """;
-        
-        jdbcTemplate.update(updateSql, productId, productId);
+    /**
+     * The review summary plus the viewer's trust-weighted average (personalized_avg_rating),
+     * which weights each review by the viewer's similarity to the reviewer and their
+     * follow-graph distance. personalized is false when that cannot be computed right now.
+     */
+    public Map<String, Object> getPersonalizedReviewSummary(int productId, String viewerId) {
+        Map<String, Object> summary = getReviewSummary(productId);
+        TrustWeightedRatings.Personalized personalized = null;
+        try {
+            personalized = trustWeightedRatings.rating(viewerId, productId);
+        } catch (Exception e) {
+            log.warn("Error computing personalized rating of product {} for {}: {}", productId, viewerId, e.getMessage());
+        }
+
+        summary.put("personalized", personalized != null);
+        if (personalized != null) {
+            summary.put("personalized_avg_rating", personalized.rating());
+            summary.put("connected_reviewers", personalized.connectedReviewers());
+        }
+        return summary;
     }
 
     private void enrichReviewMetadata(List<Map<String, Object>> reviews) {
@@ -235,5 +358,7 @@ public class ReviewService {
             review.remove("raw_user_meta_data");
         });
     }
-}
 
+    private record ScoredReview(Review review, Double score) {
+    }
+}
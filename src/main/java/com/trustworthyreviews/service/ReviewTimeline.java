@@ -0,0 +1,456 @@
+package com.trustworthyreviews.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per-user timelines of review ids from the people they follow, newest first.
+ *
+ * A new review is pushed to each follower's bounded timeline when it commits (fan-out on
+ * write), so reading a page is a lookup in that user's timeline rather than a join of
+ * relations and product_reviews. Reviewers with more followers than the fan-out threshold
+ * are not pushed; their recent reviews are pulled and merged in when a follower reads.
+ *
+ * Timelines are persisted in review_timelines and loaded into memory on a user's first
+ * read, keeping the most recently read ones up to a bound. Reviews are only pushed to
+ * timelines loaded in this process, so every read also catches up: the followees' reviews
+ * newer than the newest entry (written on another instance, imported, or missed while the
+ * timeline was loading) and the recent reviews of users followed since the last read are
+ * merged in. A user who never read their feed is seeded the same way. Entries beyond the
+ * capacity are dropped, oldest first, in memory and in the table.
+ */
+@Component
+public class ReviewTimeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewTimeline.class);
+
+    private static final String FOLLOWERS_SQL = "SELECT uid AS \"uid\" FROM relations WHERE following = ?::uuid";
+    private static final String FOLLOWEES_SQL = "SELECT following AS \"following\" FROM relations WHERE uid = ?::uuid";
+    private static final String FOLLOWER_COUNTS_SQL = """
+        SELECT following AS "following", COUNT(*) AS "followers"
+        FROM relations
+        WHERE following IN (%s)
+        GROUP BY following
+    """;
+
+    private static final String INSERT_SQL = "INSERT INTO review_timelines (uid, review_id) VALUES (?::uuid, ?)";
+    private static final String TRIM_SQL = "DELETE FROM review_timelines WHERE uid = ?::uuid AND review_id <= ?";
+    private static final String LOAD_SQL = """
+        SELECT review_id FROM review_timelines
+        WHERE uid = ?::uuid
+        ORDER BY review_id DESC
+        LIMIT ?
+    """;
+    private static final String CATCH_UP_SQL = """
+        SELECT r.review_id
+        FROM product_reviews r
+        JOIN relations f ON f.following = r.uid
+        WHERE f.uid = ?::uuid AND r.review_id > ?
+        ORDER BY r.review_id DESC
+        LIMIT ?
+    """;
+    private static final String PULL_SQL = """
+        SELECT review_id FROM product_reviews
+        WHERE uid IN (%s) AND review_id < ?
+        ORDER BY review_id DESC
+        LIMIT ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FollowingProductsIndex followingIndex;
+    private final Map<String, Ring> timelines;
+    private final SingleFlight<String, Ring> loads = new SingleFlight<>("LoadTimeline");
+
+    @Value("${social.timeline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${social.timeline.capacity:500}")
+    private int capacity = 500;
+
+    @Value("${social.timeline.fanout-threshold:1000}")
+    private int fanoutThreshold = 1000;
+
+    @Value("${social.timeline.max-loaded:10000}")
+    private int maxLoaded = 10000;
+
+    public ReviewTimeline(JdbcTemplate jdbcTemplate, FollowingProductsIndex followingIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.followingIndex = followingIndex;
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > maxLoaded;
+            }
+        };
+    }
+
+    public int loadedTimelines() {
+        synchronized (timelines) {
+            return timelines.size();
+        }
+    }
+
+    /**
+     * Push a review to the reviewer's followers once the surrounding transaction commits
+     * (or immediately when there is none)
+     */
+    public void recordReviewAfterCommit(String reviewerId, int reviewId) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordReview(reviewerId, reviewId);
+                }
+            });
+        } else {
+            recordReview(reviewerId, reviewId);
+        }
+    }
+
+    public void recordReview(String reviewerId, int reviewId) {
+        if (!enabled || reviewerId == null) {
+            return;
+        }
+        try {
+            Set<String> followers = followersOf(reviewerId);
+            if (followers.isEmpty() || followers.size() > fanoutThreshold) {
+                return;
+            }
+            // timelines that are not loaded catch up on this review when they are read
+            List<String> loaded = new ArrayList<>();
+            List<Object[]> trims = new ArrayList<>();
+            for (String follower : followers) {
+                Ring ring;
+                synchronized (timelines) {
+                    ring = timelines.get(follower);
+                }
+                if (ring == null || ring.addAll(List.of(reviewId)).isEmpty()) {
+                    continue;
+                }
+                loaded.add(follower);
+                int oldest = ring.oldestIfFull();
+                if (oldest > 0) {
+                    trims.add(new Object[]{follower, oldest - 1});
+                }
+            }
+            if (!loaded.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, loaded, loaded.size(), (ps, follower) -> {
+                    ps.setString(1, follower);
+                    ps.setInt(2, reviewId);
+                });
+            }
+            if (!trims.isEmpty()) {
+                jdbcTemplate.batchUpdate(TRIM_SQL, trims);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to add review {} to the timelines of {}'s followers: {}", reviewId, reviewerId, e.getMessage());
+        }
+    }
+
+    /**
+     * Review ids for one page of the user's timeline, newest first
+     *
+     * @param beforeReviewId only ids below this one, or null for the newest
+     * @param limit maximum number of ids
+     */
+    public List<Integer> page(String userId, Integer beforeReviewId, int limit) {
+        Set<String> followees = followeesOf(userId);
+        if (followees.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int before = beforeReviewId == null ? Integer.MAX_VALUE : beforeReviewId;
+
+        TreeSet<Integer> ids = new TreeSet<>(Collections.reverseOrder());
+        List<String> pulled;
+        if (enabled) {
+            Ring ring = loaded(userId);
+            catchUp(userId, ring, followees, limit);
+            ids.addAll(ring.page(before, limit));
+            pulled = aboveThreshold(followees);
+        } else {
+            pulled = new ArrayList<>(followees);
+        }
+        if (!pulled.isEmpty()) {
+            List<Object> params = new ArrayList<>(pulled);
+            params.add(before);
+            params.add(limit);
+            String placeholders = String.join(", ", Collections.nCopies(pulled.size(), "?::uuid"));
+            ids.addAll(jdbcTemplate.queryForList(String.format(PULL_SQL, placeholders), Integer.class, params.toArray()));
+        }
+
+        List<Integer> page = new ArrayList<>(limit);
+        for (int id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(id);
+        }
+        return page;
+    }
+
+    /**
+     * Users the given user follows, from the resident follow graph when it is loaded
+     */
+    public Set<String> followeesOf(String userId) {
+        Set<String> followees = followingIndex.followeesOf(userId);
+        return followees != null ? followees
+                : new HashSet<>(jdbcTemplate.queryForList(FOLLOWEES_SQL, String.class, userId));
+    }
+
+    private Set<String> followersOf(String userId) {
+        Set<String> followers = followingIndex.followersOf(userId);
+        return followers != null ? followers
+                : new HashSet<>(jdbcTemplate.queryForList(FOLLOWERS_SQL, String.class, userId));
+    }
+
+    /**
+     * Followees whose reviews are not pushed to their followers
+     */
+    private List<String> aboveThreshold(Set<String> followees) {
+        List<String> pulled = new ArrayList<>();
+        if (followingIndex.isReady()) {
+            for (String followee : followees) {
+                if (followingIndex.followerCount(followee) > fanoutThreshold) {
+                    pulled.add(followee);
+                }
+            }
+            return pulled;
+        }
+        List<String> ids = new ArrayList<>(followees);
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?::uuid"));
+        jdbcTemplate.query(String.format(FOLLOWER_COUNTS_SQL, placeholders), rs -> {
+            if (rs.getLong("followers") > fanoutThreshold) {
+                pulled.add(rs.getString("following"));
+            }
+        }, ids.toArray());
+        return pulled;
+    }
+
+    /**
+     * The user's timeline in memory, loading it from the table when it is not; concurrent
+     * reads of the same timeline share one load
+     */
+    private Ring loaded(String userId) {
+        synchronized (timelines) {
+            Ring ring = timelines.get(userId);
+            if (ring != null) {
+                return ring;
+            }
+        }
+        return loads.execute(userId, () -> {
+            synchronized (timelines) {
+                Ring ring = timelines.get(userId);
+                if (ring != null) {
+                    return ring;
+                }
+            }
+            Ring ring = new Ring(capacity);
+            ring.addAll(jdbcTemplate.queryForList(LOAD_SQL, Integer.class, userId, capacity));
+            synchronized (timelines) {
+                timelines.put(userId, ring);
+            }
+            return ring;
+        });
+    }
+
+    /**
+     * Merge in the followees' reviews newer than the timeline's newest entry, and the recent
+     * reviews of users followed since the timeline was last read. On the first read after
+     * loading every followee is new, so the timeline takes all their recent reviews.
+     */
+    private void catchUp(String userId, Ring ring, Set<String> followees, int limit) {
+        List<String> newFollowees = ring.newFollowees(followees);
+        List<Integer> found;
+        if (newFollowees.size() == followees.size()) {
+            found = jdbcTemplate.queryForList(CATCH_UP_SQL, Integer.class, userId, 0, capacity);
+        } else {
+            int newest = ring.newest();
+            found = jdbcTemplate.queryForList(CATCH_UP_SQL, Integer.class, userId, newest, limit);
+            if (found.size() == limit && limit < capacity) {
+                // further behind than one page; take everything the timeline can hold so no gap is left
+                found = jdbcTemplate.queryForList(CATCH_UP_SQL, Integer.class, userId, newest, capacity);
+            }
+        }
+        found = new ArrayList<>(found);
+
+        if (!newFollowees.isEmpty() && newFollowees.size() < followees.size()) {
+            List<Object> params = new ArrayList<>(newFollowees);
+            params.add(Integer.MAX_VALUE);
+            params.add(capacity);
+            String placeholders = String.join(", ", Collections.nCopies(newFollowees.size(), "?::uuid"));
+            found.addAll(jdbcTemplate.queryForList(String.format(PULL_SQL, placeholders), Integer.class, params.toArray()));
+        }
+        if (found.isEmpty()) {
+            return;
+        }
+
+        List<Integer> added = ring.addAll(found);
+        try {
+            if (!added.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, added, added.size(), (ps, reviewId) -> {
+                    ps.setString(1, userId);
+                    ps.setInt(2, reviewId);
+                });
+            }
+            int oldest = ring.oldestIfFull();
+            if (oldest > 0) {
+                jdbcTemplate.update(TRIM_SQL, userId, oldest - 1);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to store caught up reviews in the timeline of {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Bounded list of review ids kept in descending order in a circular array, so the
+     * usual insert (the newest id) and dropping the oldest are O(1) and a page is a binary
+     * search plus a copy.
+     */
+    static final class Ring {
+        private final int[] ids;
+        private final Set<String> followees;
+        private int start;
+        private int size;
+
+        Ring(int capacity) {
+            this.ids = new int[capacity];
+            this.followees = new HashSet<>();
+        }
+
+        private int get(int i) {
+            return ids[(start + i) % ids.length];
+        }
+
+        private void set(int i, int id) {
+            ids[(start + i) % ids.length] = id;
+        }
+
+        /**
+         * First position holding an id below the given one
+         */
+        private int indexBelow(int id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (get(mid) >= id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Add an id
+         *
+         * @return the id dropped to make room (possibly this one), or -1
+         */
+        synchronized int add(int id) {
+            int position = indexBelow(id);
+            if (position > 0 && get(position - 1) == id) {
+                return -1;
+            }
+            boolean full = size == ids.length;
+            if (full && position == size) {
+                return id;
+            }
+            int evicted = full ? get(size - 1) : -1;
+            start = (start - 1 + ids.length) % ids.length;
+            for (int i = 0; i < position; i++) {
+                set(i, get(i + 1));
+            }
+            set(position, id);
+            if (!full) {
+                size++;
+            }
+            return evicted;
+        }
+
+        synchronized boolean contains(int id) {
+            int position = indexBelow(id);
+            return position > 0 && get(position - 1) == id;
+        }
+
+        /**
+         * Add the ids not held yet
+         *
+         * @return the ids that were added and are still held
+         */
+        synchronized List<Integer> addAll(Collection<Integer> newIds) {
+            List<Integer> added = new ArrayList<>();
+            for (int id : newIds) {
+                if (!contains(id) && add(id) != id) {
+                    added.add(id);
+                }
+            }
+            added.removeIf(id -> !contains(id));
+            return added;
+        }
+
+        /**
+         * Newest id held, or 0 when empty
+         */
+        synchronized int newest() {
+            return size == 0 ? 0 : get(0);
+        }
+
+        /**
+         * Oldest id held when the ring is full, or -1
+         */
+        synchronized int oldestIfFull() {
+            return size == ids.length ? get(size - 1) : -1;
+        }
+
+        /**
+         * Followees not seen by this timeline before; they are remembered as seen
+         */
+        synchronized List<String> newFollowees(Set<String> current) {
+            List<String> added = new ArrayList<>();
+            for (String followee : current) {
+                if (followees.add(followee)) {
+                    added.add(followee);
+                }
+            }
+            followees.retainAll(current);
+            return added;
+        }
+
+        synchronized List<Integer> page(int before, int limit) {
+            int from = indexBelow(before);
+            int to = Math.min(size, from + limit);
+            List<Integer> page = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                page.add(get(i));
+            }
+            return page;
+        }
+
+        synchronized int[] toArray() {
+            int[] copy = new int[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = get(i);
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.trustworthyreviews.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps user_similarity_cache current off the request path, so similarity-ordered review
+ * pages only read it.
+ *
+ * Similarity is only non-zero between users who reviewed a common product. Each run
+ * computes one bounded batch of such pairs whose score is missing or older than the latest
+ * review of either user, so reviews written on any instance or by the bulk import are
+ * picked up the same way. Until a pair is scored it sorts as 0.
+ */
+@Component
+public class SimilarityRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityRefresher.class);
+
+    private static final String STALE_PAIRS_SQL = """
+        WITH latest AS (
+            SELECT uid, MAX(created_at) AS last_review
+            FROM product_reviews
+            GROUP BY uid
+        ), pairs AS (
+            SELECT DISTINCT r1.uid AS uid1, r2.uid AS uid2
+            FROM product_reviews r1
+            JOIN product_reviews r2 ON r2.product_id = r1.product_id AND r2.uid > r1.uid
+        )
+        SELECT p.uid1::text AS "uid1", p.uid2::text AS "uid2"
+        FROM pairs p
+        JOIN latest l1 ON l1.uid = p.uid1
+        JOIN latest l2 ON l2.uid = p.uid2
+        LEFT JOIN user_similarity_cache s ON s.uuid1 = p.uid1 AND s.uuid2 = p.uid2
+        WHERE s.uuid1 IS NULL OR s.last_calculated < l1.last_review OR s.last_calculated < l2.last_review
+        LIMIT ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+
+    @Value("${reviews.similarity-refresher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reviews.similarity-refresher.batch-size:500}")
+    private int batchSize = 500;
+
+    public SimilarityRefresher(JdbcTemplate jdbcTemplate, UserService userService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+    }
+
+    @Scheduled(initialDelayString = "${reviews.similarity-refresher.initial-delay-ms:30000}",
+               fixedDelayString = "${reviews.similarity-refresher.interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int scored = refreshNextBatch();
+            if (scored > 0) {
+                log.info("Similarity cache refreshed: {} pairs scored", scored);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh similarity cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Score the next batch of unscored or outdated pairs
+     *
+     * @return number of pairs scored
+     */
+    synchronized int refreshNextBatch() {
+        List<String[]> pairs = jdbcTemplate.query(STALE_PAIRS_SQL,
+                (rs, rowNum) -> new String[] {rs.getString("uid1"), rs.getString("uid2")}, batchSize);
+        for (String[] pair : pairs) {
+            userService.calculateCombinedJaccardSimilarity(pair[0], pair[1], true);
+        }
+        return pairs.size();
+    }
+}
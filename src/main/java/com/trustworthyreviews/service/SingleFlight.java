@@ -0,0 +1,117 @@
+package com.trustworthyreviews.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical calls into one execution.
+ *
+ * The first caller for a key runs the supplier; callers arriving with the same key while
+ * it is still running wait for and share its result (or its exception). Nothing is cached
+ * once the execution completes, so the next call for the key runs again.
+ *
+ * Every waiting caller receives the same value, so suppliers of collections wrap their
+ * result with {@link #sharedList} or {@link #sharedRows} before returning it; one caller
+ * then cannot change what the others (and the last known good store) see.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> supplier) {
+        if (key == null) {
+            executions.incrementAndGet();
+            return supplier.get();
+        }
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = supplier.get();
+            promise.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    /**
+     * An unmodifiable view of a list result, safe to hand to every waiting caller
+     */
+    public static <T> List<T> sharedList(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * An unmodifiable view of a list of rows, with each row unmodifiable as well
+     */
+    public static List<Map<String, Object>> sharedRows(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return null;
+        }
+        List<Map<String, Object>> shared = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            shared.add(row == null ? null : Collections.unmodifiableMap(row));
+        }
+        return Collections.unmodifiableList(shared);
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("executions", executions.get());
+        stats.put("collapsed", collapsed.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+}
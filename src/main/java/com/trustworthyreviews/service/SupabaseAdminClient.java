@@ -0,0 +1,243 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.config.SupabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking client for the Supabase admin users API, used as a fallback when the
+ * database lookup for a user fails.
+ *
+ * Requests go out over HTTP/2 through a small dedicated executor. Concurrent lookups for
+ * the same user id share one in-flight request, 404 responses are remembered for a short
+ * time, and a semaphore bulkhead caps the number of outstanding calls so a database
+ * outage cannot turn into an unbounded pile-up of remote requests.
+ */
+public class SupabaseAdminClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SupabaseAdminClient.class);
+
+    static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(2);
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    static final Duration DEFAULT_NOT_FOUND_TTL = Duration.ofSeconds(30);
+    private static final int NOT_FOUND_CACHE_LIMIT = 10_000;
+    private static final int EXECUTOR_THREADS = 2;
+
+    private final SupabaseConfig.SupabaseProperties supabaseProperties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final long notFoundTtlNanos;
+    private final Semaphore bulkhead;
+
+    private final Map<String, CompletableFuture<Optional<Map<String, Object>>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> notFoundUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong notFoundHits = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SupabaseAdminClient(SupabaseConfig.SupabaseProperties supabaseProperties, ObjectMapper objectMapper) {
+        this(supabaseProperties, objectMapper, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_NOT_FOUND_TTL);
+    }
+
+    public SupabaseAdminClient(SupabaseConfig.SupabaseProperties supabaseProperties,
+                               ObjectMapper objectMapper,
+                               Duration requestTimeout,
+                               int maxConcurrentRequests,
+                               Duration notFoundTtl) {
+        this.supabaseProperties = supabaseProperties;
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+        this.notFoundTtlNanos = notFoundTtl.toNanos();
+        this.bulkhead = new Semaphore(maxConcurrentRequests);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(newExecutor())
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return supabaseProperties != null
+                && StringUtils.hasText(supabaseProperties.getServiceRoleKey())
+                && StringUtils.hasText(supabaseProperties.getUrl());
+    }
+
+    /**
+     * Look up a user, waiting at most for the configured request timeout.
+     * Never throws; an empty result means the user could not be resolved.
+     */
+    public Optional<Map<String, Object>> fetchUser(String userId) {
+        try {
+            return fetchUserAsync(userId).get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Supabase admin API lookup for user {} timed out after {} ms", userId, requestTimeout.toMillis());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            log.error("Supabase admin API lookup for user {} failed: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public CompletableFuture<Optional<Map<String, Object>>> fetchUserAsync(String userId) {
+        if (!isConfigured()) {
+            log.debug("Supabase service role key or URL not configured. Cannot query admin API.");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (!StringUtils.hasText(userId)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        if (isKnownMissing(userId)) {
+            notFoundHits.incrementAndGet();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        CompletableFuture<Optional<Map<String, Object>>> promise = new CompletableFuture<>();
+        CompletableFuture<Optional<Map<String, Object>>> existing = inFlight.putIfAbsent(userId, promise);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            rejected.incrementAndGet();
+            log.warn("Supabase admin API bulkhead full. Rejecting lookup for user {}", userId);
+            inFlight.remove(userId, promise);
+            promise.complete(Optional.empty());
+            return promise;
+        }
+
+        requests.incrementAndGet();
+        send(userId).whenComplete((result, ex) -> {
+            bulkhead.release();
+            inFlight.remove(userId, promise);
+            if (ex != null) {
+                log.error("Failed to fetch user {} via Supabase admin API: {}", userId, ex.getMessage());
+                promise.complete(Optional.empty());
+            } else {
+                promise.complete(result);
+            }
+        });
+        return promise;
+    }
+
+    private CompletableFuture<Optional<Map<String, Object>>> send(String userId) {
+        String baseUrl = supabaseProperties.getUrl().replaceAll("/+$", "");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/auth/v1/admin/users/" + userId))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + supabaseProperties.getServiceRoleKey())
+                .header("apikey", supabaseProperties.getServiceRoleKey())
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> handleResponse(userId, response));
+    }
+
+    private Optional<Map<String, Object>> handleResponse(String userId, HttpResponse<String> response) {
+        int status = response.statusCode();
+
+        if (status == 404) {
+            log.warn("Supabase admin API returned 404 for user {}", userId);
+            rememberMissing(userId);
+            return Optional.empty();
+        }
+
+        if (status < 200 || status >= 300) {
+            log.error("Supabase admin API error (status {}): {}", status, response.body());
+            return Optional.empty();
+        }
+
+        try {
+            JsonNode node = objectMapper.readTree(response.body());
+            Map<String, Object> user = new HashMap<>();
+            user.put("id", node.path("id").asText(null));
+            user.put("email", node.path("email").asText(null));
+
+            JsonNode metaNode = node.path("user_metadata");
+            if (!metaNode.isMissingNode() && !metaNode.isNull()) {
+                Map<String, Object> metaMap = objectMapper.convertValue(metaNode, new TypeReference<Map<String, Object>>() {});
+                if (metaMap.containsKey("display_name")) {
+                    user.put("display_name", metaMap.get("display_name"));
+                }
+            }
+
+            return Optional.of(user);
+        } catch (Exception ex) {
+            log.error("Failed to parse Supabase admin API response for user {}: {}", userId, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private boolean isKnownMissing(String userId) {
+        Long until = notFoundUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        notFoundUntil.remove(userId, until);
+        return false;
+    }
+
+    private void rememberMissing(String userId) {
+        if (notFoundUntil.size() >= NOT_FOUND_CACHE_LIMIT) {
+            long now = System.nanoTime();
+            notFoundUntil.values().removeIf(until -> now - until >= 0);
+            if (notFoundUntil.size() >= NOT_FOUND_CACHE_LIMIT) {
+                notFoundUntil.clear();
+            }
+        }
+        notFoundUntil.put(userId, System.nanoTime() + notFoundTtlNanos);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("notFoundCacheHits", notFoundHits.get());
+        stats.put("rejected", rejected.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("availablePermits", bulkhead.availablePermits());
+        return stats;
+    }
+
+    private static ExecutorService newExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(EXECUTOR_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "supabase-admin-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,346 @@
+package com.trustworthyreviews.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A product's average rating as seen by one viewer: each review is weighted by how similar
+ * the viewer is to the reviewer and how close the reviewer is in the follow graph.
+ *
+ * Ratings are held resident by user and by product, so one computation is a single pass
+ * over the product's reviewers, with similarity computed the same way as
+ * {@link UserService#calculateCombinedJaccardSimilarity} and distances from one
+ * breadth-first walk of the resident follow graph. Results are cached per viewer and
+ * product in a size-capped LRU map; a new review drops the product's entries and the
+ * reviewer's own, and other changes (follows, reviews of other products) are picked up
+ * when an entry expires. Expired entries are swept on every refresh.
+ *
+ * Refreshes only read reviews newer than the newest one held. A full reload, which also
+ * picks up deleted reviews and reviews committed out of id order, runs at a much longer
+ * interval; both drop the cached entries of the reviews that changed.
+ */
+@Component
+public class TrustWeightedRatings {
+
+    private static final Logger log = LoggerFactory.getLogger(TrustWeightedRatings.class);
+
+    private static final String REVIEWS_SQL = """
+        SELECT review_id AS "review_id", uid::text AS "uid", product_id AS "product_id",
+               review_rating AS "review_rating"
+        FROM product_reviews
+        WHERE uid IS NOT NULL AND review_rating BETWEEN 1 AND 5 AND review_id > ?
+    """;
+
+    /** Weight of a reviewer with nothing in common with the viewer */
+    static final double BASE_WEIGHT = 1.0;
+    /** Added weight for a reviewer with identical tastes (similarity 1) */
+    static final double SIMILARITY_WEIGHT = 4.0;
+    /** Added weight for a directly followed reviewer, divided by the degree of separation further out */
+    static final double PROXIMITY_WEIGHT = 2.0;
+    static final int MAX_DEGREE = 6;
+
+    /**
+     * Weighted average over the product's reviews other than the viewer's own; rating is
+     * null when there are none. connectedReviewers counts reviewers similar to the viewer
+     * or reachable in the follow graph.
+     */
+    public record Personalized(Double rating, int reviews, int connectedReviewers) {
+    }
+
+    private record Key(String viewerId, int productId) {
+    }
+
+    private record Cached(Personalized value, long computedAt) {
+    }
+
+    /** A review whose rating is new or changed */
+    private record Change(String userId, int productId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FollowingProductsIndex followingIndex;
+    private final Object lock = new Object();
+    private Map<String, Map<Integer, Integer>> byUser = new HashMap<>();
+    private Map<Integer, Map<String, Integer>> byProduct = new HashMap<>();
+    private long newestReviewId;
+    private long fullLoadAt;
+    private final Map<Key, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+            return size() > cacheMaxEntries;
+        }
+    };
+    private volatile boolean ready;
+
+    @Value("${reviews.personalized.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reviews.personalized.cache-ttl-ms:300000}")
+    private long cacheTtlMs = 300000;
+
+    @Value("${reviews.personalized.cache-max-entries:50000}")
+    private int cacheMaxEntries = 50000;
+
+    @Value("${reviews.personalized.full-reload-interval-ms:3600000}")
+    private long fullReloadIntervalMs = 3600000;
+
+    public TrustWeightedRatings(JdbcTemplate jdbcTemplate, FollowingProductsIndex followingIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.followingIndex = followingIndex;
+    }
+
+    public boolean isReady() {
+        return enabled && ready && followingIndex.isReady();
+    }
+
+    /**
+     * The viewer's trust-weighted rating of the product, or null when the resident
+     * ratings or follow graph are not loaded
+     */
+    public Personalized rating(String viewerId, int productId) {
+        if (!isReady() || viewerId == null) {
+            return null;
+        }
+        Key key = new Key(viewerId, productId);
+        long now = System.currentTimeMillis();
+        Cached cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && now - cached.computedAt() < cacheTtlMs) {
+            return cached.value();
+        }
+        Personalized computed = compute(viewerId, productId);
+        if (computed != null) {
+            synchronized (cache) {
+                cache.put(key, new Cached(computed, now));
+            }
+        }
+        return computed;
+    }
+
+    int cachedEntries() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private Personalized compute(String viewerId, int productId) {
+        Map<String, Integer> reviewers;
+        Map<Integer, Integer> viewerRatings;
+        synchronized (lock) {
+            reviewers = new HashMap<>(byProduct.getOrDefault(productId, Collections.emptyMap()));
+            reviewers.remove(viewerId);
+            viewerRatings = byUser.getOrDefault(viewerId, Collections.emptyMap());
+        }
+        Map<String, Integer> degrees = followingIndex.degreesOfSeparation(viewerId, reviewers.keySet(), MAX_DEGREE);
+        if (degrees == null) {
+            return null;
+        }
+
+        double weightedSum = 0;
+        double totalWeight = 0;
+        int connected = 0;
+        synchronized (lock) {
+            for (Map.Entry<String, Integer> reviewer : reviewers.entrySet()) {
+                double similarity = similarity(viewerRatings, byUser.getOrDefault(reviewer.getKey(), Collections.emptyMap()));
+                Integer degree = degrees.get(reviewer.getKey());
+                double weight = weight(similarity, degree);
+                weightedSum += weight * reviewer.getValue();
+                totalWeight += weight;
+                if (similarity > 0 || degree != null) {
+                    connected++;
+                }
+            }
+        }
+        Double rating = reviewers.isEmpty() ? null : Math.round(weightedSum / totalWeight * 100.0) / 100.0;
+        return new Personalized(rating, reviewers.size(), connected);
+    }
+
+    static double weight(double similarity, Integer degree) {
+        double proximity = degree == null || degree < 1 ? 0 : PROXIMITY_WEIGHT / degree;
+        return BASE_WEIGHT + SIMILARITY_WEIGHT * similarity + proximity;
+    }
+
+    /**
+     * Mean of the product Jaccard index and the share of co-rated products rated within one
+     * star of each other, as in {@link UserService#calculateCombinedJaccardSimilarity}
+     */
+    static double similarity(Map<Integer, Integer> a, Map<Integer, Integer> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        Map<Integer, Integer> smaller = a.size() <= b.size() ? a : b;
+        Map<Integer, Integer> larger = smaller == a ? b : a;
+        int common = 0;
+        int close = 0;
+        for (Map.Entry<Integer, Integer> entry : smaller.entrySet()) {
+            Integer other = larger.get(entry.getKey());
+            if (other != null) {
+                common++;
+                if (Math.abs(entry.getValue() - other) <= 1) {
+                    close++;
+                }
+            }
+        }
+        if (common == 0) {
+            return 0.0;
+        }
+        double products = (double) common / (a.size() + b.size() - common);
+        double ratings = (double) close / common;
+        return (products + ratings) / 2.0;
+    }
+
+    /**
+     * Record a review once the surrounding transaction commits (or immediately when there is none)
+     */
+    public void recordReviewAfterCommit(String userId, int productId, int rating) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordReview(userId, productId, rating);
+                }
+            });
+        } else {
+            recordReview(userId, productId, rating);
+        }
+    }
+
+    public void recordReview(String userId, int productId, int rating) {
+        if (!ready || userId == null) {
+            return;
+        }
+        synchronized (lock) {
+            put(userId, productId, rating);
+        }
+        invalidate(List.of(new Change(userId, productId)));
+    }
+
+    /** Hold a rating; the caller holds the lock. Returns the rating it replaced, if any */
+    private Integer put(String userId, int productId, int rating) {
+        byProduct.computeIfAbsent(productId, key -> new HashMap<>()).put(userId, rating);
+        return byUser.computeIfAbsent(userId, key -> new HashMap<>()).put(productId, rating);
+    }
+
+    /**
+     * Drop the cached ratings of the changed reviews' products and those seen by their reviewers
+     */
+    private void invalidate(Collection<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Set<String> users = new HashSet<>();
+        Set<Integer> products = new HashSet<>();
+        for (Change change : changes) {
+            users.add(change.userId());
+            products.add(change.productId());
+        }
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> products.contains(key.productId()) || users.contains(key.viewerId()));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${reviews.personalized.initial-delay-ms:0}",
+               fixedDelayString = "${reviews.personalized.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (!ready || now - fullLoadAt >= fullReloadIntervalMs) {
+                reload(now);
+            } else {
+                catchUp();
+            }
+            synchronized (cache) {
+                cache.values().removeIf(cached -> now - cached.computedAt() >= cacheTtlMs);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load ratings for personalized summaries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apply the reviews written since the newest one held
+     */
+    private void catchUp() {
+        long since;
+        synchronized (lock) {
+            since = newestReviewId;
+        }
+        List<Change> changes = new ArrayList<>();
+        jdbcTemplate.query(REVIEWS_SQL, rs -> {
+            String uid = rs.getString("uid");
+            int productId = rs.getInt("product_id");
+            int rating = rs.getInt("review_rating");
+            synchronized (lock) {
+                if (!Objects.equals(put(uid, productId, rating), rating)) {
+                    changes.add(new Change(uid, productId));
+                }
+                newestReviewId = Math.max(newestReviewId, rs.getLong("review_id"));
+            }
+        }, since);
+        invalidate(changes);
+    }
+
+    /**
+     * Replace the held ratings with every review, dropping the cache entries of those that changed
+     */
+    private void reload(long now) {
+        Map<String, Map<Integer, Integer>> loadedByUser = new HashMap<>();
+        Map<Integer, Map<String, Integer>> loadedByProduct = new HashMap<>();
+        long[] newest = {0};
+        jdbcTemplate.query(REVIEWS_SQL, rs -> {
+            String uid = rs.getString("uid");
+            int productId = rs.getInt("product_id");
+            int rating = rs.getInt("review_rating");
+            loadedByUser.computeIfAbsent(uid, key -> new HashMap<>()).put(productId, rating);
+            loadedByProduct.computeIfAbsent(productId, key -> new HashMap<>()).put(uid, rating);
+            newest[0] = Math.max(newest[0], rs.getLong("review_id"));
+        }, 0L);
+
+        List<Change> changes = new ArrayList<>();
+        synchronized (lock) {
+            differences(byUser, loadedByUser, changes);
+            differences(loadedByUser, byUser, changes);
+            byUser = loadedByUser;
+            byProduct = loadedByProduct;
+            newestReviewId = Math.max(newestReviewId, newest[0]);
+            fullLoadAt = now;
+            ready = true;
+        }
+        invalidate(changes);
+    }
+
+    /** Reviews held in from whose rating in to is missing or different */
+    private static void differences(Map<String, Map<Integer, Integer>> from, Map<String, Map<Integer, Integer>> to,
+                                    List<Change> changes) {
+        from.forEach((uid, ratings) -> {
+            Map<Integer, Integer> other = to.getOrDefault(uid, Collections.emptyMap());
+            ratings.forEach((productId, rating) -> {
+                if (!rating.equals(other.get(productId))) {
+                    changes.add(new Change(uid, productId));
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,315 @@
+package com.trustworthyreviews.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident trigram index over user email and display name.
+ *
+ * The index only ever contains rows returned by public.search_users_secure, so it exposes
+ * exactly the users that the secure search function exposes. Substring queries are answered
+ * by intersecting the posting lists of the query's trigrams and verifying the candidates;
+ * queries shorter than one trigram fall back to a scan of the resident documents.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final int GRAM = 3;
+
+    @Value("${users.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${users.search-index.max-results:20}")
+    private int maxResults = 20;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Integer> slotByUserId = new HashMap<>();
+    private final Map<Long, int[]> postings = new HashMap<>();
+    private volatile boolean ready;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByUserId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bring the index in line with the full set of visible users. Only users that were
+     * added, removed or changed since the previous call touch the posting lists.
+     *
+     * @return number of documents added, removed or updated
+     */
+    public int update(List<Map<String, Object>> visibleUsers) {
+        Map<String, Map<String, Object>> incoming = new LinkedHashMap<>();
+        for (Map<String, Object> user : visibleUsers) {
+            Object id = user.get("id");
+            if (id != null) {
+                incoming.put(id.toString(), user);
+            }
+        }
+
+        int changes = 0;
+        lock.writeLock().lock();
+        try {
+            for (String userId : new ArrayList<>(slotByUserId.keySet())) {
+                if (!incoming.containsKey(userId)) {
+                    remove(userId);
+                    changes++;
+                }
+            }
+
+            for (Map.Entry<String, Map<String, Object>> entry : incoming.entrySet()) {
+                Doc doc = Doc.of(entry.getKey(), entry.getValue());
+                Integer slot = slotByUserId.get(entry.getKey());
+                if (slot != null && docs.get(slot).sameContent(doc)) {
+                    continue;
+                }
+                if (slot != null) {
+                    remove(entry.getKey());
+                }
+                add(doc);
+                changes++;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changes;
+    }
+
+    public List<Map<String, Object>> search(String query) {
+        return search(query, maxResults);
+    }
+
+    /**
+     * Substring search over email and display name, case-insensitive.
+     * Prefix matches rank ahead of infix matches; ties are ordered by email.
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Doc> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                for (Doc doc : docs) {
+                    if (doc != null && doc.contains(needle)) {
+                        matches.add(doc);
+                    }
+                }
+            } else {
+                int[] candidates = candidates(needle);
+                for (int slot : candidates) {
+                    Doc doc = docs.get(slot);
+                    if (doc != null && doc.contains(needle)) {
+                        matches.add(doc);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.<Doc>comparingInt(doc -> doc.startsWith(needle) ? 0 : 1)
+                .thenComparing(doc -> doc.email));
+
+        List<Map<String, Object>> page = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Doc doc : matches) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(new HashMap<>(doc.row));
+        }
+        return page;
+    }
+
+    private int[] candidates(String needle) {
+        Set<Long> grams = grams(needle);
+        List<int[]> lists = new ArrayList<>(grams.size());
+        for (Long gram : grams) {
+            int[] posting = postings.get(gram);
+            if (posting == null) {
+                return new int[0];
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private void add(Doc doc) {
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = docs.size();
+            docs.add(doc);
+        } else {
+            slot = freeSlots.pop();
+            docs.set(slot, doc);
+        }
+        slotByUserId.put(doc.userId, slot);
+        for (Long gram : doc.grams()) {
+            postings.put(gram, insert(postings.get(gram), slot));
+        }
+    }
+
+    private void remove(String userId) {
+        Integer slot = slotByUserId.remove(userId);
+        if (slot == null) {
+            return;
+        }
+        Doc doc = docs.get(slot);
+        docs.set(slot, null);
+        freeSlots.push(slot);
+        for (Long gram : doc.grams()) {
+            int[] remaining = delete(postings.get(gram), slot);
+            if (remaining == null || remaining.length == 0) {
+                postings.remove(gram);
+            } else {
+                postings.put(gram, remaining);
+            }
+        }
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static int[] insert(int[] sorted, int value) {
+        if (sorted == null) {
+            return new int[]{value};
+        }
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos >= 0) {
+            return sorted;
+        }
+        int at = -pos - 1;
+        int[] copy = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(sorted, at, copy, at + 1, sorted.length - at);
+        return copy;
+    }
+
+    private static int[] delete(int[] sorted, int value) {
+        if (sorted == null) {
+            return null;
+        }
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos < 0) {
+            return sorted;
+        }
+        int[] copy = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        System.arraycopy(sorted, pos + 1, copy, pos, sorted.length - pos - 1);
+        return copy;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static final class Doc {
+        private final String userId;
+        private final String email;
+        private final String displayName;
+        private final Map<String, Object> row;
+
+        private Doc(String userId, String email, String displayName, Map<String, Object> row) {
+            this.userId = userId;
+            this.email = email;
+            this.displayName = displayName;
+            this.row = row;
+        }
+
+        static Doc of(String userId, Map<String, Object> row) {
+            Object email = row.get("email");
+            Object displayName = row.get("display_name");
+            return new Doc(userId,
+                    email == null ? "" : email.toString().toLowerCase(Locale.ROOT),
+                    displayName == null ? "" : displayName.toString().toLowerCase(Locale.ROOT),
+                    Collections.unmodifiableMap(new HashMap<>(row)));
+        }
+
+        boolean contains(String needle) {
+            return email.contains(needle) || displayName.contains(needle);
+        }
+
+        boolean startsWith(String needle) {
+            return email.startsWith(needle) || displayName.startsWith(needle);
+        }
+
+        Set<Long> grams() {
+            Set<Long> grams = UserSearchIndex.grams(email);
+            grams.addAll(UserSearchIndex.grams(displayName));
+            return grams;
+        }
+
+        boolean sameContent(Doc other) {
+            return Objects.equals(row, other.row);
+        }
+    }
+}
@@ -1,45 +1,80 @@
 package com.trustworthyreviews.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trustworthyreviews.config.SupabaseConfig;
+import com.trustworthyreviews.model.SimilarityScore;
+import com.trustworthyreviews.model.SimilarityScoreRowMapper;
+import com.trustworthyreviews.model.UserSummary;
+import com.trustworthyreviews.model.UserSummaryRowMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
+    private static final int PROFILE_EXECUTOR_THREADS = 6;
+    private static final int PROFILE_EXECUTOR_QUEUE = 64;
+
     private final JdbcTemplate jdbcTemplate;
-    private final SupabaseConfig.SupabaseProperties supabaseProperties;
     private final ObjectMapper objectMapper;
-    private final HttpClient httpClient;
+    private final SupabaseAdminClient supabaseAdminClient;
+    private final UserSearchIndex searchIndex;
+    private final UserSummaryRowMapper userSummaryMapper;
+    private final UserSummaryRowMapper followedUserMapper;
+    private final ThreadPoolExecutor profileExecutor;
+
+    @Value("${users.profile.timeout-ms:2000}")
+    private long profileTimeoutMs = 2000;
+
+    @Value("${users.profile.metric-timeout-ms:1500}")
+    private long metricTimeoutMs = 1500;
 
     public UserService(JdbcTemplate jdbcTemplate,
                        SupabaseConfig.SupabaseProperties supabaseProperties,
                        ObjectMapper objectMapper) {
+        this(jdbcTemplate, supabaseProperties, objectMapper, new UserSearchIndex());
+    }
+
+    @Autowired
+    public UserService(JdbcTemplate jdbcTemplate,
+                       SupabaseConfig.SupabaseProperties supabaseProperties,
+                       ObjectMapper objectMapper,
+                       UserSearchIndex searchIndex) {
         this.jdbcTemplate = jdbcTemplate;
-        this.supabaseProperties = supabaseProperties;
         this.objectMapper = objectMapper;
-        this.httpClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
+        this.supabaseAdminClient = new SupabaseAdminClient(supabaseProperties, objectMapper);
+        this.searchIndex = searchIndex;
+        this.userSummaryMapper = new UserSummaryRowMapper(objectMapper, false);
+        this.followedUserMapper = new UserSummaryRowMapper(objectMapper, true);
+        this.profileExecutor = newProfileExecutor();
     }
 
     public List<Map<String, Object>> searchUsers(String query) {
@@ -47,6 +82,10 @@ public class UserService {
             if (query != null && query.startsWith("__SIMULATE_FAILURE__")) {
                 throw new RuntimeException("Simulated database failure for circuit breaker testing");
             }
+
+            if (searchIndex.isReady()) {
+                return searchIndex.search(query);
+            }
             
             String sql = "SELECT * FROM public.search_users_secure(?)";
             
@@ -61,7 +100,46 @@ public class UserService {
         }
     }
 
+    /**
+     * Whether searches are answered from the resident search index
+     */
+    public boolean isSearchResident() {
+        return searchIndex.isReady();
+    }
+
+    /**
+     * Reload the set of users visible through search_users_secure and apply the
+     * differences to the resident search index.
+     */
+    @Scheduled(initialDelayString = "${users.search-index.initial-delay-ms:0}",
+               fixedDelayString = "${users.search-index.refresh-interval-ms:60000}")
+    public void refreshSearchIndex() {
+        if (!searchIndex.isEnabled()) {
+            return;
+        }
+
+        try {
+            String sql = "SELECT * FROM public.search_users_secure(?)";
+            List<Map<String, Object>> users = jdbcTemplate.queryForList(sql, "%");
+            enrichUserMetadata(users);
+
+            int changes = searchIndex.update(users);
+            if (changes > 0) {
+                log.info("User search index refreshed: {} changes, {} users indexed", changes, searchIndex.size());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh user search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remembered for the rest of the current request; the returned map must not be modified
+     */
     public Map<String, Object> getUserById(String userId) {
+        return RequestMemo.get(Arrays.asList("GetUserById", userId), () -> fetchUserById(userId));
+    }
+
+    private Map<String, Object> fetchUserById(String userId) {
         try {
             log.info("Fetching user by ID: {}", userId);
 
@@ -76,7 +154,7 @@ public class UserService {
         } catch (Exception e) {
             log.warn("Database lookup for user {} failed: {}. Attempting Supabase admin API fallback.", userId, e.getMessage());
 
-            Optional<Map<String, Object>> fallbackUser = fetchUserFromSupabaseAdmin(userId);
+            Optional<Map<String, Object>> fallbackUser = supabaseAdminClient.fetchUser(userId);
             if (fallbackUser.isPresent()) {
                 return fallbackUser.get();
             }
@@ -86,7 +164,48 @@ public class UserService {
         }
     }
 
-    public List<Map<String, Object>> getFollowingForUser(String userId) {
+    /**
+     * Fetch several users with one query
+     *
+     * @return users keyed by ID; IDs with no user are absent
+     */
+    public Map<String, Map<String, Object>> getUsersByIds(Collection<String> userIds) {
+        Map<String, Map<String, Object>> users = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return users;
+        }
+
+        try {
+            String sql = String.format("""
+                SELECT u.*
+                FROM unnest(ARRAY[%s]) AS ids(id),
+                LATERAL public.get_user_details(ids.id) u
+            """, String.join(", ", Collections.nCopies(userIds.size(), "?::uuid")));
+
+            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, userIds.toArray());
+            enrichUserMetadata(results);
+            for (Map<String, Object> user : results) {
+                user.remove("raw_user_meta_data");
+                users.put(String.valueOf(user.get("id")), user);
+            }
+            return users;
+        } catch (Exception e) {
+            log.warn("Database lookup for {} users failed: {}. Attempting Supabase admin API fallback.",
+                    userIds.size(), e.getMessage());
+
+            for (String userId : userIds) {
+                supabaseAdminClient.fetchUser(userId).ifPresent(user -> users.put(userId, user));
+            }
+            if (!users.isEmpty()) {
+                return users;
+            }
+
+            log.error("Error fetching {} users: {}", userIds.size(), e.getMessage(), e);
+            throw new RuntimeException("Error fetching users: " + e.getMessage(), e);
+        }
+    }
+
+    public List<UserSummary> getFollowingForUser(String userId) {
         try {
             String sql = """
                 SELECT 
@@ -99,16 +218,14 @@ public class UserService {
                 ORDER BY u.email
             """;
 
-            List<Map<String, Object>> users = jdbcTemplate.queryForList(sql, userId);
-            enrichUserMetadata(users);
-            return users;
+            return jdbcTemplate.query(sql, userSummaryMapper, userId);
         } catch (Exception e) {
             log.error("Error fetching following for user {}: {}", userId, e.getMessage(), e);
             throw new RuntimeException("Error fetching following: " + e.getMessage(), e);
         }
     }
 
-    public List<Map<String, Object>> getFollowersForUser(String userId) {
+    public List<UserSummary> getFollowersForUser(String userId) {
         try {
             String sql = """
                 SELECT 
@@ -121,9 +238,7 @@ public class UserService {
                 ORDER BY u.email
             """;
 
-            List<Map<String, Object>> users = jdbcTemplate.queryForList(sql, userId);
-            enrichUserMetadata(users);
-            return users;
+            return jdbcTemplate.query(sql, userSummaryMapper, userId);
         } catch (Exception e) {
             log.error("Error fetching followers for user {}: {}", userId, e.getMessage(), e);
             throw new RuntimeException("Error fetching followers: " + e.getMessage(), e);
@@ -172,65 +287,11 @@ public class UserService {
         });
     }
 
-    private Optional<Map<String, Object>> fetchUserFromSupabaseAdmin(String userId) {
-        if (supabaseProperties == null
-                || !StringUtils.hasText(supabaseProperties.getServiceRoleKey())
-                || !StringUtils.hasText(supabaseProperties.getUrl())) {
-            log.debug("Supabase service role key or URL not configured. Cannot query admin API.");
-            return Optional.empty();
-        }
-
-        try {
-            String baseUrl = supabaseProperties.getUrl().replaceAll("/+$", "");
-            String endpoint = baseUrl + "/auth/v1/admin/users/" + userId;
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("Authorization", "Bearer " + supabaseProperties.getServiceRoleKey())
-                    .header("apikey", supabaseProperties.getServiceRoleKey())
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            int status = response.statusCode();
-
-            if (status == 404) {
-                log.warn("Supabase admin API returned 404 for user {}", userId);
-                return Optional.empty();
-            }
-
-            if (status < 200 || status >= 300) {
-                log.error("Supabase admin API error (status {}): {}", status, response.body());
-                return Optional.empty();
-            }
-
-            JsonNode node = objectMapper.readTree(response.body());
-            Map<String, Object> user = new HashMap<>();
-            user.put("id", node.path("id").asText(null));
-            user.put("email", node.path("email").asText(null));
-
-            JsonNode metaNode = node.path("user_metadata");
-            if (!metaNode.isMissingNode() && !metaNode.isNull()) {
-                Map<String, Object> metaMap = objectMapper.convertValue(metaNode, new TypeReference<Map<String, Object>>() {});
-                if (metaMap.containsKey("display_name")) {
-                    user.put("display_name", metaMap.get("display_name"));
-                }
-            }
-
-            return Optional.of(user);
-        } catch (Exception ex) {
-            log.error("Failed to fetch user {} via Supabase admin API: {}", userId, ex.getMessage(), ex);
-            return Optional.empty();
-        }
-    }
-
     public double calculateProductJaccardSimilarity(String userId1, String userId2) {
         try {
-            String sql1 = "SELECT DISTINCT product_id FROM product_reviews WHERE uid = ?::uuid";
-            List<Map<String, Object>> user1Products = jdbcTemplate.queryForList(sql1, userId1);
+            List<Map<String, Object>> user1Products = reviewedProducts(userId1);
             
-            List<Map<String, Object>> user2Products = jdbcTemplate.queryForList(sql1, userId2);
+            List<Map<String, Object>> user2Products = reviewedProducts(userId2);
             
             java.util.Set<Object> set1 = user1Products.stream()
                     .map(row -> row.get("product_id"))
@@ -250,10 +311,9 @@ public class UserService {
 
     public double calculateRatingJaccardSimilarity(String userId1, String userId2) {
         try {
-            String sql = "SELECT product_id, review_rating FROM product_reviews WHERE uid = ?::uuid AND review_rating IS NOT NULL ORDER BY created_at DESC";
-            List<Map<String, Object>> user1Reviews = jdbcTemplate.queryForList(sql, userId1);
+            List<Map<String, Object>> user1Reviews = ratedProducts(userId1);
             
-            List<Map<String, Object>> user2Reviews = jdbcTemplate.queryForList(sql, userId2);
+            List<Map<String, Object>> user2Reviews = ratedProducts(userId2);
             
             Map<Object, Number> user1Ratings = user1Reviews.stream()
                     .filter(row -> row.get("review_rating") != null)
@@ -302,16 +362,37 @@ public class UserService {
         }
     }
 
+    /**
+     * Products a user has reviewed; the viewer's list is reused for every reviewer compared in a request
+     */
+    private List<Map<String, Object>> reviewedProducts(String userId) {
+        return RequestMemo.get(Arrays.asList("ReviewedProducts", userId), () -> jdbcTemplate.queryForList(
+                "SELECT DISTINCT product_id FROM product_reviews WHERE uid = ?::uuid", userId));
+    }
+
+    /**
+     * A user's ratings, newest first; the viewer's list is reused for every reviewer compared in a request
+     */
+    private List<Map<String, Object>> ratedProducts(String userId) {
+        return RequestMemo.get(Arrays.asList("RatedProducts", userId), () -> jdbcTemplate.queryForList(
+                "SELECT product_id, review_rating FROM product_reviews WHERE uid = ?::uuid AND review_rating IS NOT NULL ORDER BY created_at DESC",
+                userId));
+    }
+
+    /**
+     * Remembered for the rest of the current request
+     */
     public double calculateCombinedJaccardSimilarity(String userId1, String userId2) {
-        return calculateCombinedJaccardSimilarity(userId1, userId2, false);
+        return RequestMemo.get(Arrays.asList("CombinedSimilarity", userId1, userId2),
+                () -> calculateCombinedJaccardSimilarity(userId1, userId2, false));
     }
 
     public double calculateCombinedJaccardSimilarity(String userId1, String userId2, boolean forceRecalculate) {
         if (!forceRecalculate) {
-            Map<String, Object> cached = getCachedSimilarity(userId1, userId2);
+            SimilarityScore cached = getCachedSimilarity(userId1, userId2);
             if (cached != null) {
                 log.debug("Using cached similarity for users {} and {}", userId1, userId2);
-                return ((Number) cached.get("similarity_score")).doubleValue();
+                return cached.similarityScore();
             }
         }
         
@@ -324,7 +405,7 @@ public class UserService {
         return combinedSimilarity;
     }
     
-    private Map<String, Object> getCachedSimilarity(String userId1, String userId2) {
+    private SimilarityScore getCachedSimilarity(String userId1, String userId2) {
         try {
             String[] ordered = orderUserIds(userId1, userId2);
             String sql = """
@@ -333,7 +414,7 @@ public class UserService {
                 WHERE uuid1 = ?::uuid AND uuid2 = ?::uuid
             """;
             
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, ordered[0], ordered[1]);
+            List<SimilarityScore> results = jdbcTemplate.query(sql, SimilarityScoreRowMapper.INSTANCE, ordered[0], ordered[1]);
             if (!results.isEmpty()) {
                 return results.get(0);
             }
@@ -376,16 +457,16 @@ public class UserService {
     }
     
     public Map<String, Double> getSimilarityWithComponents(String userId1, String userId2) {
-        Map<String, Object> cached = getCachedSimilarity(userId1, userId2);
+        SimilarityScore cached = getCachedSimilarity(userId1, userId2);
         
         double combinedSim;
         double productSim;
         double ratingSim;
         
         if (cached != null) {
-            combinedSim = ((Number) cached.get("similarity_score")).doubleValue();
-            productSim = ((Number) cached.get("product_similarity")).doubleValue();
-            ratingSim = ((Number) cached.get("rating_similarity")).doubleValue();
+            combinedSim = cached.similarityScore();
+            productSim = cached.productSimilarity();
+            ratingSim = cached.ratingSimilarity();
         } else {
             productSim = calculateProductJaccardSimilarity(userId1, userId2);
             ratingSim = calculateRatingJaccardSimilarity(userId1, userId2);
@@ -411,15 +492,15 @@ public class UserService {
             for (Map<String, Object> user : users) {
                 String otherUserId = user.get("id").toString();
                 
-                Map<String, Object> cached = getCachedSimilarity(userId, otherUserId);
+                SimilarityScore cached = getCachedSimilarity(userId, otherUserId);
                 double similarity;
                 double productSim;
                 double ratingSim;
                 
                 if (cached != null) {
-                    similarity = ((Number) cached.get("similarity_score")).doubleValue();
-                    productSim = ((Number) cached.get("product_similarity")).doubleValue();
-                    ratingSim = ((Number) cached.get("rating_similarity")).doubleValue();
+                    similarity = cached.similarityScore();
+                    productSim = cached.productSimilarity();
+                    ratingSim = cached.ratingSimilarity();
                 } else {
                     productSim = calculateProductJaccardSimilarity(userId, otherUserId);
                     ratingSim = calculateRatingJaccardSimilarity(userId, otherUserId);
@@ -481,6 +562,11 @@ public class UserService {
         if (fromUserId.equals(toUserId)) {
             return 0;  // Same user
         }
+        return RequestMemo.get(Arrays.asList("DegreeOfSeparation", fromUserId, toUserId),
+                () -> queryDegreeOfSeparation(fromUserId, toUserId));
+    }
+
+    private Integer queryDegreeOfSeparation(String fromUserId, String toUserId) {
 
         try {
             String sql = """
@@ -533,34 +619,117 @@ public class UserService {
 
     /**
      * Get extended user profile with metrics (similarity, degree of separation) relative to a viewer.
+     *
+     * The profile and both metrics are fetched concurrently, each waiting at most for its own
+     * timeout from the start of the call. A metric that is not ready in time is left out and
+     * listed under meta.timed_out; meta.timings_ms has how long each finished part took.
      */
     public Map<String, Object> getUserProfileWithMetrics(String targetUserId, String viewerUserId) {
-        Map<String, Object> userProfile = getUserById(targetUserId);
+        boolean withMetrics = viewerUserId != null && !viewerUserId.equals(targetUserId);
+        long started = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+
+        CompletableFuture<Map<String, Object>> profile = timed("profile", timings, () -> getUserById(targetUserId));
+        CompletableFuture<Double> similarity = withMetrics
+                ? timed("similarity", timings, () -> calculateCombinedJaccardSimilarity(viewerUserId, targetUserId))
+                : null;
+        CompletableFuture<Integer> degree = withMetrics
+                ? timed("degree_of_separation", timings, () -> getDegreeOfSeparation(viewerUserId, targetUserId))
+                : null;
+
+        Map<String, Object> userProfile;
+        try {
+            userProfile = profile.get(remainingMillis(started, profileTimeoutMs), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel(similarity, degree);
+            throw new RuntimeException("Timed out fetching user " + targetUserId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(similarity, degree);
+            throw new RuntimeException("Interrupted fetching user " + targetUserId, e);
+        } catch (ExecutionException e) {
+            cancel(similarity, degree);
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        }
         if (userProfile == null) {
+            cancel(similarity, degree);
             return null;
         }
-        
-        // Add metrics if a viewer is provided and it's not the same user
-        if (viewerUserId != null && !viewerUserId.equals(targetUserId)) {
-            // Calculate similarity
-            double similarity = calculateCombinedJaccardSimilarity(viewerUserId, targetUserId);
-            userProfile.put("similarity", Math.round(similarity * 1000.0) / 1000.0);
-            
-            // Calculate degree of separation
-            Integer degree = getDegreeOfSeparation(viewerUserId, targetUserId);
-            userProfile.put("degree_of_separation", degree);
+        // the user may be shared with other calls in this request
+        userProfile = new HashMap<>(userProfile);
+
+        List<String> timedOut = new ArrayList<>();
+        if (withMetrics) {
+            Double score = awaitMetric("similarity", similarity, started, timedOut);
+            if (score != null) {
+                userProfile.put("similarity", Math.round(score * 1000.0) / 1000.0);
+            }
+            userProfile.put("degree_of_separation", awaitMetric("degree_of_separation", degree, started, timedOut));
         }
-        
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("timings_ms", new TreeMap<>(timings));
+        if (!timedOut.isEmpty()) {
+            meta.put("timed_out", timedOut);
+            log.warn("Profile metrics for {} viewed by {} timed out: {}", targetUserId, viewerUserId, timedOut);
+        }
+        userProfile.put("meta", meta);
         return userProfile;
     }
 
+    private <T> CompletableFuture<T> timed(String part, Map<String, Long> timings, Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(RequestMemo.inCurrentRequest(() -> {
+            long started = System.nanoTime();
+            try {
+                return lookup.get();
+            } finally {
+                timings.put(part, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        }), profileExecutor);
+    }
+
+    /**
+     * The metric's value, or null (its fallback) when it failed or missed its timeout
+     */
+    private <T> T awaitMetric(String part, CompletableFuture<T> metric, long started, List<String> timedOut) {
+        try {
+            return metric.get(remainingMillis(started, metricTimeoutMs), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            metric.cancel(false);
+            timedOut.add(part);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut.add(part);
+        } catch (ExecutionException e) {
+            log.warn("Profile metric {} failed: {}", part, e.getCause().getMessage());
+        }
+        return null;
+    }
+
+    private static long remainingMillis(long started, long timeoutMs) {
+        return Math.max(0, timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static void cancel(CompletableFuture<?>... lookups) {
+        for (CompletableFuture<?> lookup : lookups) {
+            if (lookup != null) {
+                lookup.cancel(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdownProfileExecutor() {
+        profileExecutor.shutdownNow();
+    }
+
     /**
      * Get the most followed users.
      * 
      * @param limit Maximum number of users to return
      * @return List of users ordered by follower count (descending)
      */
-    public List<Map<String, Object>> getMostFollowedUsers(int limit) {
+    public List<UserSummary> getMostFollowedUsers(int limit) {
         try {
             String sql = """
                 SELECT 
@@ -576,14 +745,23 @@ public class UserService {
                 LIMIT ?
             """;
             
-            List<Map<String, Object>> users = jdbcTemplate.queryForList(sql, limit);
-            enrichUserMetadata(users);
-            
-            return users;
+            return jdbcTemplate.query(sql, followedUserMapper, limit);
         } catch (Exception e) {
             log.error("Error fetching most followed users: {}", e.getMessage(), e);
             throw new RuntimeException("Error fetching most followed users: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Dedicated pool for profile lookups; when it is saturated the caller runs the lookup itself
+     */
+    private static ThreadPoolExecutor newProfileExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(PROFILE_EXECUTOR_THREADS, PROFILE_EXECUTOR_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(PROFILE_EXECUTOR_QUEUE), runnable -> {
+                    Thread thread = new Thread(runnable, "user-profile-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
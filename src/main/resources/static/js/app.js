@@ -26,6 +26,7 @@ const cancelPassword = document.getElementById('cancel-password');
 //products elements
 const productsContainer = document.getElementById('products-container');
 const productSearchInput = document.getElementById('product-search-input');
+const productSuggestions = document.getElementById('product-suggestions');
 
 // Holds fetched products for client-side filtering
 let allProducts = [];
@@ -219,6 +220,30 @@ if (productSearchInput) {
         const filtered = allProducts.filter(p => (p.name || '').toLowerCase().includes(q));
         renderProducts(filtered);
     }, 200));
+
+    // autocomplete suggestions come from the server-side trie, so keep the delay short
+    productSearchInput.addEventListener('input', debounce(async (e) => {
+        const prefix = (e.target.value || '').trim();
+        if (!productSuggestions) return;
+        if (!prefix) {
+            productSuggestions.innerHTML = '';
+            return;
+        }
+        try {
+            const baseUrl = window.__API_BASE_URL__ ?? window.location.origin;
+            const response = await fetch(`${baseUrl}/api/products/suggest?prefix=${encodeURIComponent(prefix)}`);
+            if (!response.ok) return;
+            const suggestions = await response.json();
+            productSuggestions.innerHTML = '';
+            suggestions.forEach(product => {
+                const option = document.createElement('option');
+                option.value = product.name;
+                productSuggestions.appendChild(option);
+            });
+        } catch (err) {
+            console.error('Error fetching suggestions:', err);
+        }
+    }, 80));
 }
 
 const toggleProfileDropdown = () => {
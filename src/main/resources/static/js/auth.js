@@ -195,6 +195,22 @@ async function initialiseAppGuards() {
     return data?.session;
 }
 
+// Follows are written straight to Supabase; tell the backend so its cached
+// "reviewed by people I follow" listing picks up the change right away.
+export async function notifyFollowingChanged() {
+    try {
+        const { data } = await supabaseClient.auth.getSession();
+        if (!data?.session) return;
+        const baseUrl = window.__API_BASE_URL__ ?? window.location.origin;
+        await fetch(`${baseUrl}/api/users/me/following/changed`, {
+            method: 'POST',
+            headers: { 'Authorization': `Bearer ${data.session.access_token}` }
+        });
+    } catch (error) {
+        console.error('Failed to notify following change', error);
+    }
+}
+
 export async function logout() {
     await supabaseClient.auth.signOut();
     window.location.replace('index.html');
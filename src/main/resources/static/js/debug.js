@@ -78,14 +78,14 @@ function renderCircuitBreakerStatus(data) {
     const container = document.getElementById('circuit-status');
     container.innerHTML = '';
     
-    // Render UserService circuit breakers (SearchUsers, GetUserById, GetFollowing, GetFollowers)
+    // Render UserService circuit breakers (SearchUsers, GetUsersByIds, GetFollowing, GetFollowers)
     if (data.userService) {
         Object.entries(data.userService).forEach(([commandName, metrics]) => {
             container.appendChild(createCircuitCard(commandName, metrics, 'UserService'));
         });
     }
     
-    // Render ProductService circuit breakers (GetAllProducts, GetProductById, SearchProducts)
+    // Render ProductService circuit breakers (GetAllProducts, GetProductsByIds, SearchProducts)
     if (data.productService) {
         Object.entries(data.productService).forEach(([commandName, metrics]) => {
             container.appendChild(createCircuitCard(commandName, metrics, 'ProductService'));
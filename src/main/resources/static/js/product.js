@@ -110,7 +110,52 @@ const fetchAndDisplayReviewSummary = async (productId) => {
     }
 };
 
-const fetchAndDisplayReviews = async (productId, sortBy = null) => {
+const REVIEWS_PAGE_SIZE = 20;
+let reviewsCursor = null;
+
+const renderReview = (review) => {
+    const displayName = review.display_name || review.email || 'Anonymous';
+    const reviewDate = review.created_at ? new Date(review.created_at).toLocaleDateString() : '';
+    const reviewText = review.review_desc || '';
+    
+    let badges = '';
+    
+    if (review.similarity_score !== undefined && review.similarity_score !== null && !review.is_own_review) {
+        const similarity = review.similarity_score;
+        const percentage = (similarity * 100).toFixed(0);
+        let badgeClass = 'low';
+        if (similarity >= 0.7) badgeClass = 'high';
+        else if (similarity >= 0.4) badgeClass = 'medium';
+        
+        badges += `<span class="similarity-badge ${badgeClass}" title="Similarity Score">✨ ${percentage}% similar</span>`;
+    } else if (review.is_own_review) {
+        badges += `<span class="similarity-badge high" title="Your Review">👤 Your Review</span>`;
+    }
+    
+    if (review.degree_of_separation !== undefined && review.degree_of_separation !== null) {
+        const degree = review.degree_of_separation;
+        const badgeClass = degree === 1 ? 'degree-badge-direct' : 'degree-badge-indirect';
+        const badgeText = degree === 1 ? 'Direct Connection' : `${degree} Degrees Away`;
+        badges += `<span class="degree-badge ${badgeClass}" title="Degree of Separation">🔗 ${badgeText}</span>`;
+    }
+    
+    return `
+        <div class="review-item">
+            <div class="review-header">
+                <div class="reviewer-info">
+                    <a href="/user.html?id=${review.uid}" class="reviewer-name" style="text-decoration: none;">${escapeHtml(displayName)}</a>
+                    ${badges}
+                    <span class="review-date">${reviewDate}</span>
+                </div>
+                <div class="review-rating">${renderStars(review.review_rating)}</div>
+            </div>
+            ${reviewText ? `<p class="review-text">${escapeHtml(reviewText)}</p>` : ''}
+        </div>
+    `;
+};
+
+// Fetches the first page of reviews, or the next one when append is true
+const fetchAndDisplayReviews = async (productId, sortBy = null, append = false) => {
     const reviewsList = document.getElementById('reviews-list');
     if (!reviewsList) return;
 
@@ -119,61 +164,44 @@ const fetchAndDisplayReviews = async (productId, sortBy = null) => {
         const headers = session ? { 'Authorization': `Bearer ${session.access_token}` } : {};
 
         const baseUrl = window.__API_BASE_URL__ ?? window.location.origin;
-        const url = sortBy 
-            ? `${baseUrl}/api/products/${productId}/reviews?sort=${sortBy}`
-            : `${baseUrl}/api/products/${productId}/reviews`;
-        const res = await fetch(url, { headers });
+        const params = new URLSearchParams({ limit: REVIEWS_PAGE_SIZE });
+        if (sortBy) params.set('sort', sortBy);
+        if (append && reviewsCursor) params.set('cursor', reviewsCursor);
+        const res = await fetch(`${baseUrl}/api/products/${productId}/reviews?${params}`, { headers });
         if (!res.ok) throw new Error(`HTTP ${res.status}`);
-        const reviews = await res.json();
+        const page = await res.json();
 
-        if (reviews.length === 0) {
+        reviewsList.querySelector('.load-more-reviews')?.remove();
+        if (!append && page.items.length === 0) {
             reviewsList.innerHTML = '<p class="no-reviews">No reviews yet.</p>';
             return;
         }
 
-        reviewsList.innerHTML = reviews.map(review => {
-            const displayName = review.display_name || review.email || 'Anonymous';
-            const reviewDate = review.created_at ? new Date(review.created_at).toLocaleDateString() : '';
-            const reviewText = review.review_desc || '';
-            
-            let badges = '';
-            
-            if (review.similarity_score !== undefined && review.similarity_score !== null && !review.is_own_review) {
-                const similarity = review.similarity_score;
-                const percentage = (similarity * 100).toFixed(0);
-                let badgeClass = 'low';
-                if (similarity >= 0.7) badgeClass = 'high';
-                else if (similarity >= 0.4) badgeClass = 'medium';
-                
-                badges += `<span class="similarity-badge ${badgeClass}" title="Similarity Score">✨ ${percentage}% similar</span>`;
-            } else if (review.is_own_review) {
-                badges += `<span class="similarity-badge high" title="Your Review">👤 Your Review</span>`;
-            }
-            
-            if (review.degree_of_separation !== undefined && review.degree_of_separation !== null) {
-                const degree = review.degree_of_separation;
-                const badgeClass = degree === 1 ? 'degree-badge-direct' : 'degree-badge-indirect';
-                const badgeText = degree === 1 ? 'Direct Connection' : `${degree} Degrees Away`;
-                badges += `<span class="degree-badge ${badgeClass}" title="Degree of Separation">🔗 ${badgeText}</span>`;
-            }
-            
-            return `
-                <div class="review-item">
-                    <div class="review-header">
-                        <div class="reviewer-info">
-                            <a href="/user.html?id=${review.uid}" class="reviewer-name" style="text-decoration: none;">${escapeHtml(displayName)}</a>
-                            ${badges}
-                            <span class="review-date">${reviewDate}</span>
-                        </div>
-                        <div class="review-rating">${renderStars(review.review_rating)}</div>
-                    </div>
-                    ${reviewText ? `<p class="review-text">${escapeHtml(reviewText)}</p>` : ''}
-                </div>
-            `;
-        }).join('');
+        const html = page.items.map(renderReview).join('');
+        if (append) {
+            reviewsList.insertAdjacentHTML('beforeend', html);
+        } else {
+            reviewsList.innerHTML = html;
+        }
+
+        reviewsCursor = page.hasMore ? page.nextCursor : null;
+        if (reviewsCursor) {
+            const loadMore = document.createElement('button');
+            loadMore.className = 'sort-button load-more-reviews';
+            loadMore.textContent = 'Load more reviews';
+            loadMore.addEventListener('click', () => {
+                loadMore.disabled = true;
+                fetchAndDisplayReviews(productId, sortBy, true);
+            });
+            reviewsList.appendChild(loadMore);
+        }
     } catch (err) {
         console.error('Error fetching reviews:', err);
-        reviewsList.innerHTML = '<p class="error">Failed to load reviews.</p>';
+        if (append) {
+            reviewsList.querySelector('.load-more-reviews')?.removeAttribute('disabled');
+        } else {
+            reviewsList.innerHTML = '<p class="error">Failed to load reviews.</p>';
+        }
     }
 };
 
@@ -1,4 +1,4 @@
-import { supabaseClient } from './auth.js';
+import { supabaseClient, notifyFollowingChanged } from './auth.js';
 
 let currentUserId = null;
 
@@ -256,6 +256,8 @@ async function toggleFollow(targetUserId) {
             if (insertError) throw insertError;
         }
         
+        notifyFollowingChanged();
+
         // Refresh lists
         await loadFollowing();
         await loadFollowers();
@@ -1,4 +1,4 @@
-import { supabaseClient, requireSession, logout } from './auth.js';
+import { supabaseClient, requireSession, logout, notifyFollowingChanged } from './auth.js';
 
 let targetUserId = null;
 let currentUserId = null;
@@ -187,6 +187,7 @@ async function setupFollowButton(targetId) {
                     .insert({ uid: currentUserId, following: targetId });
             }
             updateBtn(!isFollowing);
+            notifyFollowingChanged();
             loadUserStats(); // Refresh stats
         } catch (err) {
             alert('Action failed. Please try again.');
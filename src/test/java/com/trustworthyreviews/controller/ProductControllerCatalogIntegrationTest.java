@@ -0,0 +1,162 @@
+package com.trustworthyreviews.controller;
+
+import com.trustworthyreviews.service.ProductCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "products.catalog.enabled=true")
+public class ProductControllerCatalogIntegrationTest {
+
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @Autowired
+   private JdbcTemplate jdbcTemplate;
+
+   @Autowired
+   private ProductCatalog productCatalog;
+
+   @BeforeEach
+   void setUp() {
+       jdbcTemplate.update("DELETE FROM product_reviews");
+       jdbcTemplate.update("DELETE FROM products");
+
+       jdbcTemplate.update("""
+           INSERT INTO products (product_id, name, avg_rating, description, image, link, category) VALUES
+           (1, 'Radeon RX 9070 XT', 4.0, 'GPU', 'gpu.jpg', 'http://example.com', 'Graphics Card'),
+           (2, 'Samsung 990 Pro', 4.5, 'SSD', 'ssd.jpg', 'http://example.com', 'Storage'),
+           (3, 'GeForce RTX 5080', 4.8, 'GPU', 'gpu2.jpg', 'http://example.com', 'Graphics Card')
+       """);
+       productCatalog.refresh();
+   }
+
+
+   @Test
+   public void getAllProducts_servedFromCatalogWithETag() throws Exception {
+       mockMvc.perform(get("/api/products"))
+               .andExpect(status().isOk())
+               .andExpect(header().exists(HttpHeaders.ETAG))
+               .andExpect(jsonPath("$.length()").value(3))
+               .andExpect(jsonPath("$[0].name").value("GeForce RTX 5080"))
+               .andExpect(jsonPath("$[0].product_id").value(3))
+               .andExpect(jsonPath("$[0].avg_rating").value(4.8));
+   }
+
+
+   @Test
+   public void getAllProducts_matchingETag_returnsNotModified() throws Exception {
+       String etag = mockMvc.perform(get("/api/products"))
+               .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+       mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, etag))
+               .andExpect(content().string(""));
+   }
+
+
+   @Test
+   public void getProductsByCategory_ratingChange_changesETag() throws Exception {
+       String before = mockMvc.perform(get("/api/products").param("category", "Graphics Card"))
+               .andExpect(jsonPath("$[0].product_id").value(3))
+               .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+       productCatalog.updateAverageRating(1, 5.0);
+
+       mockMvc.perform(get("/api/products").param("category", "Graphics Card")
+                       .header(HttpHeaders.IF_NONE_MATCH, before))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(2))
+               .andExpect(jsonPath("$[0].product_id").value(1))
+               .andExpect(header().string(HttpHeaders.ETAG, org.hamcrest.Matchers.not(before)));
+   }
+
+
+   @Test
+   public void getAllProducts_acceptsGzip_returnsCompressedBody() throws Exception {
+       MvcResult plain = mockMvc.perform(get("/api/products")).andReturn();
+       MvcResult gzipped = mockMvc.perform(get("/api/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+               .andReturn();
+
+       byte[] compressed = gzipped.getResponse().getContentAsByteArray();
+       try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+           assertArrayEquals(plain.getResponse().getContentAsByteArray(), in.readAllBytes());
+       }
+   }
+
+
+   @Test
+   public void getProductsByCategory_gzipBody_hasItsOwnETag() throws Exception {
+       String plain = mockMvc.perform(get("/api/products").param("category", "Graphics Card"))
+               .andExpect(header().stringValues(HttpHeaders.VARY, org.hamcrest.Matchers.hasItem(HttpHeaders.ACCEPT_ENCODING)))
+               .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+       String gzipped = mockMvc.perform(get("/api/products").param("category", "Graphics Card")
+                       .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+               .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+       assertEquals(plain.substring(0, plain.length() - 1) + "-gz\"", gzipped);
+
+       mockMvc.perform(get("/api/products").param("category", "Graphics Card")
+                       .header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, plain))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, gzipped));
+       mockMvc.perform(get("/api/products").param("category", "Graphics Card")
+                       .header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipped))
+               .andExpect(status().isNotModified());
+   }
+
+
+   @Test
+   public void getProductsPage_fromCatalog_followsCursorToLastPage() throws Exception {
+       String body = mockMvc.perform(get("/api/products").param("sort", "rating").param("limit", "2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.items.length()").value(2))
+               .andExpect(jsonPath("$.items[0].product_id").value(3))
+               .andExpect(jsonPath("$.items[1].product_id").value(2))
+               .andExpect(jsonPath("$.hasMore").value(true))
+               .andReturn().getResponse().getContentAsString();
+       String cursor = com.jayway.jsonpath.JsonPath.read(body, "$.nextCursor");
+
+       mockMvc.perform(get("/api/products").param("sort", "rating").param("limit", "2").param("cursor", cursor))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.items.length()").value(1))
+               .andExpect(jsonPath("$.items[0].product_id").value(1))
+               .andExpect(jsonPath("$.hasMore").value(false))
+               .andExpect(jsonPath("$.nextCursor").doesNotExist());
+   }
+
+
+   @Test
+   public void getProductsPage_invalidParameters_returnBadRequest() throws Exception {
+       mockMvc.perform(get("/api/products").param("limit", "500"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.message").exists());
+       mockMvc.perform(get("/api/products").param("sort", "price"))
+               .andExpect(status().isBadRequest());
+       mockMvc.perform(get("/api/products").param("cursor", "not-a-cursor"))
+               .andExpect(status().isBadRequest());
+   }
+}
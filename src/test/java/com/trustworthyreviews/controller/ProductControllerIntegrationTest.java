@@ -84,4 +84,21 @@ public class ProductControllerIntegrationTest {
                .andExpect(jsonPath("$").isArray())
                .andExpect(jsonPath("$.length()").value(0));
    }
+
+
+   @Test
+   public void suggestProducts_withoutTrie_fallsBackToPrefixQuery() throws Exception {
+       mockMvc.perform(get("/api/products/suggest")
+                       .param("prefix", "asus")
+                       .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].product_id").value(1));
+
+       mockMvc.perform(get("/api/products/suggest")
+                       .param("prefix", "radeon")
+                       .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(0));
+   }
 }
@@ -118,6 +118,24 @@ public class ReviewControllerIntegrationTest {
    }
 
 
+   @Test
+   public void getProductReviews_paged_returnsPageShape() throws Exception {
+       mockMvc.perform(get("/api/products/1/reviews").param("limit", "5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.items").isArray())
+               .andExpect(jsonPath("$.hasMore").isBoolean());
+   }
+
+
+   @Test
+   public void getProductReviews_invalidPaging_returns400() throws Exception {
+       mockMvc.perform(get("/api/products/1/reviews").param("limit", "500"))
+               .andExpect(status().isBadRequest());
+       mockMvc.perform(get("/api/products/1/reviews").param("cursor", "not-a-cursor"))
+               .andExpect(status().isBadRequest());
+   }
+
+
    @Test
    public void getProductReviewSummary() throws Exception {
        mockMvc.perform(get("/api/products/1/summary"))
@@ -0,0 +1,65 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.config.ConfigurationManager;
+import com.trustworthyreviews.service.ProtectedCall.Bulkhead;
+import com.trustworthyreviews.service.ProtectedCall.Operation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for timeouts adapted from observed latency
+ */
+@DisplayName("AdaptiveTimeouts Tests")
+class AdaptiveTimeoutsTest {
+
+    private final AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(true, 3.0, 250, 2.0, 10);
+
+    private static String sleepThenReturn(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    @Test
+    @DisplayName("Timeouts are a multiple of p99, between the floor and a factor of the declared timeout")
+    void timeoutFor_boundedMultipleOfP99() {
+        assertEquals(300, adaptiveTimeouts.timeoutFor(100, 3000));
+        assertEquals(250, adaptiveTimeouts.timeoutFor(10, 3000));
+        assertEquals(6000, adaptiveTimeouts.timeoutFor(4000, 3000));
+        assertEquals(20000, adaptiveTimeouts.timeoutFor(9000, 10000));
+    }
+
+    @Test
+    @DisplayName("A consistently fast operation gets a tighter timeout that applies to its next calls")
+    @SuppressWarnings("unchecked")
+    void fastOperation_getsTighterTimeout() throws InterruptedException {
+        String name = "AdaptiveTimeoutsTestLookup";
+        // Short percentile buckets so the latency shows up without waiting for the default 10 s bucket
+        ConfigurationManager.getConfigInstance().setProperty(
+                "hystrix.command." + name + ".metrics.rollingPercentile.timeInMilliseconds", 600);
+        Operation lookup = Operation.database(name, Bulkhead.POINT_READS, 3000);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        Map<String, Object> stats;
+        do {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("done", lookup.execute(() -> sleepThenReturn(20), () -> "fallback"));
+            }
+            adaptiveTimeouts.adjust();
+            stats = (Map<String, Object>) adaptiveTimeouts.getStats().get(name);
+            assertTrue(System.nanoTime() < deadline, "timeout was not adjusted in time");
+        } while ((int) stats.get("effectiveMs") == 3000);
+
+        assertEquals(3000, stats.get("declaredMs"));
+        assertEquals(250, stats.get("effectiveMs"));
+        assertEquals("fallback", lookup.execute(() -> sleepThenReturn(1000), () -> "fallback"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the immutable catalog snapshot and its copy-on-write patching
+ */
+@DisplayName("CatalogSnapshot Tests")
+class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.build(List.of(
+                product(1, "Zephyr GPU", 4.0, "Graphics Card"),
+                product(2, "Atlas GPU", 4.5, "Graphics Card"),
+                product(3, "Boreal SSD", null, "Storage"),
+                product(5, "Comet SSD", 3.0, "Storage"),
+                product(7, "Nimbus Mouse", 4.5, null)
+        ), 1);
+    }
+
+    private static Product product(int id, String name, Double rating, String category) {
+        return new Product(id, name, rating, "desc", "img", "link", category);
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::productId).toList();
+    }
+
+    @Test
+    @DisplayName("Views are sorted by name and by rating descending with nulls last")
+    void build_sortsViews() {
+        assertEquals(List.of(2, 3, 5, 7, 1), ids(snapshot.allByName()));
+        assertEquals(List.of(2, 7, 1, 5, 3), ids(snapshot.allByRating()));
+        assertEquals(List.of(2, 1), ids(snapshot.byRating("Graphics Card")));
+        assertEquals(List.of(3, 5), ids(snapshot.byName("Storage")));
+        assertTrue(snapshot.byRating("Unknown").isEmpty());
+        assertEquals(List.of("Graphics Card", "Storage"), snapshot.categories());
+    }
+
+    @Test
+    @DisplayName("Products are looked up through the id-indexed array")
+    void get_byId() {
+        assertEquals("Comet SSD", snapshot.get(5).name());
+        assertNull(snapshot.get(4));
+        assertNull(snapshot.get(99));
+        assertNull(snapshot.get(-1));
+    }
+
+    @Test
+    @DisplayName("Rating patch returns a re-sorted copy and leaves the original untouched")
+    void withAvgRating_copyOnWrite() {
+        CatalogSnapshot patched = snapshot.withAvgRating(3, 5.0, 2);
+
+        assertEquals(2, patched.version());
+        assertEquals(1, patched.textVersion());
+        assertEquals(5.0, patched.get(3).avgRating());
+        assertEquals(List.of(3, 2, 7, 1, 5), ids(patched.allByRating()));
+        assertEquals(List.of(3, 5), ids(patched.byRating("Storage")));
+        assertEquals(List.of(2, 3, 5, 7, 1), ids(patched.allByName()));
+        assertEquals(5.0, patched.allByName().get(1).avgRating());
+
+        assertNull(snapshot.get(3).avgRating());
+        assertEquals(List.of(2, 7, 1, 5, 3), ids(snapshot.allByRating()));
+        assertSame(snapshot.byRating("Graphics Card"), patched.byRating("Graphics Card"));
+    }
+
+    @Test
+    @DisplayName("Patching an unknown product or with the same rating is a no-op")
+    void withAvgRating_noChange() {
+        assertSame(snapshot, snapshot.withAvgRating(42, 1.0, 2));
+        assertSame(snapshot, snapshot.withAvgRating(1, 4.0, 2));
+    }
+
+    @Test
+    @DisplayName("Names compare by code point like the C collation, also outside the BMP")
+    void byName_codePointOrder() {
+        CatalogSnapshot unicode = CatalogSnapshot.build(List.of(
+                product(1, "\uD83D\uDE00 Emoji", null, null),
+                product(2, "\uFF5E Fullwidth", null, null),
+                product(3, "zeta", null, null),
+                product(4, "Zeta", null, null)
+        ), 1);
+
+        assertEquals(List.of(4, 3, 2, 1), ids(unicode.allByName()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.trustworthyreviews.service;
 
+import com.netflix.hystrix.Hystrix;
+import com.trustworthyreviews.model.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,12 +9,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,8 +44,12 @@ class CircuitBreakerScenarioTest {
 
     @BeforeEach
     void setUp() {
-        hystrixUserService = new HystrixUserService(userService);
-        hystrixProductService = new HystrixProductService(productService);
+        // Circuit breakers and their metrics are global; start every scenario with closed circuits
+        Hystrix.reset();
+        // Record last known good results synchronously so a failure right after a success sees them
+        LastKnownGood lastKnownGood = new LastKnownGood(100, 60_000, Runnable::run);
+        hystrixUserService = new HystrixUserService(userService, lastKnownGood);
+        hystrixProductService = new HystrixProductService(productService, lastKnownGood);
     }
 
     @Test
@@ -72,7 +81,10 @@ class CircuitBreakerScenarioTest {
 
         // Then
         assertTrue(latch.await(5, TimeUnit.SECONDS), "All concurrent requests should complete");
-        verify(userService, times(threadCount)).searchUsers(query);
+        // Identical in-flight searches may be collapsed into one execution by the single-flight layer
+        verify(userService, atMost(threadCount)).searchUsers(query);
+        Map<String, Object> stats = (Map<String, Object>) hystrixUserService.getSingleFlightStats().get("SearchUsers");
+        assertEquals((long) threadCount, (long) stats.get("executions") + (long) stats.get("collapsed"));
         executor.shutdown();
     }
 
@@ -132,9 +144,9 @@ class CircuitBreakerScenarioTest {
 
         // Then
         assertFalse(result1.isEmpty(), "First request should succeed");
-        assertTrue(result2.isEmpty(), "Second request should return fallback");
+        assertEquals(successResult, result2, "Second request should serve the last known good result");
         assertFalse(result3.isEmpty(), "Third request should succeed");
-        assertTrue(result4.isEmpty(), "Fourth request should return fallback");
+        assertEquals(successResult, result4, "Fourth request should serve the last known good result");
         assertFalse(result5.isEmpty(), "Fifth request should succeed");
 
         verify(userService, times(5)).searchUsers(query);
@@ -145,21 +157,21 @@ class CircuitBreakerScenarioTest {
     void testProductService_HighLoadWithFailures() {
         // Given
         when(productService.getAllProducts())
-                .thenReturn(List.of(Map.of("product_id", 1, "name", "Product")))
+                .thenReturn(List.of(new Product(1, "Product", null, null, null, null, null)))
                 .thenThrow(new RuntimeException("DB overloaded"))
                 .thenThrow(new RuntimeException("DB overloaded"))
-                .thenReturn(List.of(Map.of("product_id", 2, "name", "Product 2")));
+                .thenReturn(List.of(new Product(2, "Product 2", null, null, null, null, null)));
 
         // When
-        List<Map<String, Object>> result1 = hystrixProductService.getAllProducts();
-        List<Map<String, Object>> result2 = hystrixProductService.getAllProducts();
-        List<Map<String, Object>> result3 = hystrixProductService.getAllProducts();
-        List<Map<String, Object>> result4 = hystrixProductService.getAllProducts();
+        List<Product> result1 = hystrixProductService.getAllProducts();
+        List<Product> result2 = hystrixProductService.getAllProducts();
+        List<Product> result3 = hystrixProductService.getAllProducts();
+        List<Product> result4 = hystrixProductService.getAllProducts();
 
         // Then
         assertFalse(result1.isEmpty(), "First request should succeed");
-        assertTrue(result2.isEmpty(), "Second request should return fallback");
-        assertTrue(result3.isEmpty(), "Third request should return fallback");
+        assertEquals(result1, result2, "Second request should serve the last known good result");
+        assertEquals(result1, result3, "Third request should serve the last known good result");
         assertFalse(result4.isEmpty(), "Fourth request should succeed after recovery");
 
         verify(productService, times(4)).getAllProducts();
@@ -191,14 +203,14 @@ class CircuitBreakerScenarioTest {
         when(userService.searchUsers(query))
                 .thenThrow(new RuntimeException("User service error"));
 
-        List<Map<String, Object>> products = List.of(
-                Map.of("product_id", 1, "name", "Product")
+        List<Product> products = List.of(
+                new Product(1, "Product", null, null, null, null, null)
         );
         when(productService.getAllProducts()).thenReturn(products);
 
         // When
         List<Map<String, Object>> userResult = hystrixUserService.searchUsers(query);
-        List<Map<String, Object>> productResult = hystrixProductService.getAllProducts();
+        List<Product> productResult = hystrixProductService.getAllProducts();
 
         // Then - User service fails but product service succeeds
         assertTrue(userResult.isEmpty(), "User service should return fallback");
@@ -207,5 +219,100 @@ class CircuitBreakerScenarioTest {
         verify(userService, times(1)).searchUsers(query);
         verify(productService, times(1)).getAllProducts();
     }
-}
 
+    @Test
+    @DisplayName("Scenario: Concurrent lookups for different users are batched into a few queries")
+    void testConcurrentUserLookups_CollapsedIntoBatches() throws InterruptedException {
+        // Given - each query takes a while, as it would against the database
+        when(userService.getUsersByIds(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            Map<String, Map<String, Object>> users = new HashMap<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                users.put((String) id, Map.of("id", id, "email", id + "@example.com"));
+            }
+            return users;
+        });
+        lenient().when(userService.getUserById(anyString()))
+                .thenAnswer(invocation -> Map.of("email", invocation.getArgument(0) + "@example.com"));
+
+        int threadCount = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        AtomicInteger correct = new AtomicInteger();
+
+        // When - all lookups are released at once
+        for (int i = 0; i < threadCount; i++) {
+            String userId = "user-" + i;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    Map<String, Object> user = hystrixUserService.getUserById(userId);
+                    if (user != null && (userId + "@example.com").equals(user.get("email"))) {
+                        correct.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+
+        // Then - every caller gets its own user back, from far fewer queries than lookups
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All lookups should complete");
+        executor.shutdown();
+        assertEquals(threadCount, correct.get());
+        int queries = mockingDetails(userService).getInvocations().size();
+        assertTrue(queries < threadCount / 2, "Expected batched queries but saw " + queries);
+    }
+
+    @Test
+    @DisplayName("Scenario: Concurrent lookups for different products are batched into a few queries")
+    void testConcurrentProductLookups_CollapsedIntoBatches() throws InterruptedException {
+        // Given
+        when(productService.getProductsByIds(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            Map<Integer, Product> products = new HashMap<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                products.put((Integer) id, new Product((Integer) id, "Product " + id, null, null, null, null, null));
+            }
+            return products;
+        });
+        lenient().when(productService.getProductById(anyInt()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Product", null, null, null, null, null));
+
+        int threadCount = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        AtomicInteger correct = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < threadCount; i++) {
+            int productId = i + 1;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    Product product = hystrixProductService.getProductById(productId);
+                    if (product != null && product.productId() == productId) {
+                        correct.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All lookups should complete");
+        executor.shutdown();
+        assertEquals(threadCount, correct.get());
+        verify(productService, atMost(threadCount / 2)).getProductsByIds(anyCollection());
+        verify(productService, atMost(threadCount / 2)).getProductById(anyInt());
+    }
+}
@@ -0,0 +1,92 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.trustworthyreviews.service.ProtectedCall.Bulkhead;
+import com.trustworthyreviews.service.ProtectedCall.Operation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for database bulkhead sizing and isolation
+ */
+@DisplayName("DatabaseBulkheads Tests")
+class DatabaseBulkheadsTest {
+
+    private static final Operation SLOW_SIMILARITY =
+            Operation.database("DatabaseBulkheadsTestSimilarity", Bulkhead.HEAVY, 10000);
+    private static final Operation PRODUCT_LOOKUP =
+            Operation.database("DatabaseBulkheadsTestLookup", Bulkhead.POINT_READS, 2000);
+
+    /** Sized like the default pool of 5 connections so the shared thread pools keep their sizes */
+    private final DatabaseBulkheads bulkheads = new DatabaseBulkheads(5, 1.0, 20, 0.6, 10, 0.4, 5);
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Bulkheads get their share of the connection pool, at least one thread each")
+    void threads_derivedFromConnectionPool() {
+        assertEquals(5, bulkheads.getThreads(Bulkhead.POINT_READS));
+        assertEquals(3, bulkheads.getThreads(Bulkhead.LIST_READS));
+        assertEquals(2, bulkheads.getThreads(Bulkhead.HEAVY));
+        assertEquals(5, bulkheads.getQueueSize(Bulkhead.HEAVY));
+
+        assertEquals(8, DatabaseBulkheads.threadsFor(20, 0.4));
+        assertEquals(1, DatabaseBulkheads.threadsFor(1, 0.4));
+    }
+
+    @Test
+    @DisplayName("A saturated heavy bulkhead rejects to the fallback without starving point reads")
+    @SuppressWarnings("unchecked")
+    void saturatedHeavyBulkhead_doesNotStarvePointReads() throws InterruptedException {
+        int capacity = bulkheads.getThreads(Bulkhead.HEAVY) + bulkheads.getQueueSize(Bulkhead.HEAVY);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(capacity);
+        try {
+            for (int i = 0; i < capacity; i++) {
+                callers.submit(() -> SLOW_SIMILARITY.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 0.5;
+                }, () -> 0.0));
+            }
+            await(() -> {
+                HystrixThreadPoolMetrics metrics = HystrixThreadPoolMetrics.getInstance(Bulkhead.HEAVY.getKey());
+                return metrics != null
+                        && metrics.getCurrentActiveCount().intValue() == bulkheads.getThreads(Bulkhead.HEAVY)
+                        && metrics.getCurrentQueueSize().intValue() == bulkheads.getQueueSize(Bulkhead.HEAVY);
+            });
+            // Hystrix only starts counting rejections once the bulkhead's metrics are first read
+            bulkheads.getStats();
+
+            assertEquals(0.0, SLOW_SIMILARITY.execute(() -> 0.5, () -> 0.0));
+            assertEquals("found", PRODUCT_LOOKUP.execute(() -> "found", () -> "fallback"));
+
+            await(() -> {
+                Map<String, Object> heavy = (Map<String, Object>) bulkheads.getStats().get(Bulkhead.HEAVY.getName());
+                return ((Number) heavy.get("cumulativeRejected")).longValue() >= 1;
+            });
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
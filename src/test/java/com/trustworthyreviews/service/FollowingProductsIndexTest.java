@@ -0,0 +1,131 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the cached "reviewed by people I follow" product sets
+ */
+@DisplayName("FollowingProductsIndex Tests")
+class FollowingProductsIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private FollowingProductsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new FollowingProductsIndex(jdbcTemplate);
+        ReflectionTestUtils.setField(index, "enabled", true);
+
+        index.apply(
+                Map.of("alice", Set.of("bob", "carol"), "dave", Set.of("carol")),
+                new HashMap<>(Map.of("bob", bits(1, 2), "carol", bits(3), "alice", bits(9))));
+    }
+
+    private static BitSet bits(int... productIds) {
+        BitSet bits = new BitSet();
+        for (int productId : productIds) {
+            bits.set(productId);
+        }
+        return bits;
+    }
+
+    @Test
+    @DisplayName("Products reviewed by any followee are included")
+    void productsReviewedByFollowees_unionOfFollowees() {
+        assertEquals(bits(1, 2, 3), index.productsReviewedByFollowees("alice"));
+        assertEquals(bits(3), index.productsReviewedByFollowees("dave"));
+        assertTrue(index.productsReviewedByFollowees("nobody").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A review recorded while a reconcile reads survives the swap")
+    void refresh_reviewDuringRead_isReapplied() {
+        index.productsReviewedByFollowees("alice");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString("uid")).thenReturn("alice");
+            when(rs.getString("following")).thenReturn("bob");
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM relations"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            index.recordReview("bob", 7);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM product_reviews"), any(RowCallbackHandler.class));
+
+        index.refresh();
+
+        assertEquals(bits(7), index.productsReviewedByFollowees("alice"));
+    }
+
+    @Test
+    @DisplayName("A followee's new review invalidates only their followers")
+    void recordReview_invalidatesFollowers() {
+        index.productsReviewedByFollowees("alice");
+        index.productsReviewedByFollowees("dave");
+        assertEquals(2, index.cachedUsers());
+
+        index.recordReview("bob", 7);
+
+        assertEquals(1, index.cachedUsers());
+        assertEquals(bits(1, 2, 3, 7), index.productsReviewedByFollowees("alice"));
+        assertEquals(bits(3), index.productsReviewedByFollowees("dave"));
+    }
+
+    @Test
+    @DisplayName("Reconciliation invalidates users whose followees or followees' reviews changed")
+    void apply_invalidatesChangedUsers() {
+        index.productsReviewedByFollowees("alice");
+        index.productsReviewedByFollowees("dave");
+
+        int invalidated = index.apply(
+                Map.of("alice", Set.of("bob", "carol"), "dave", Set.of("bob")),
+                new HashMap<>(Map.of("bob", bits(1, 2), "carol", bits(3), "alice", bits(9))));
+
+        assertEquals(1, invalidated);
+        assertEquals(bits(1, 2), index.productsReviewedByFollowees("dave"));
+    }
+
+    @Test
+    @DisplayName("Refreshing one user reloads their followees")
+    void refreshUser_reloadsFollowees() {
+        index.productsReviewedByFollowees("alice");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("alice"))).thenReturn(List.of("carol"));
+
+        index.refreshUser("alice");
+
+        assertEquals(bits(3), index.productsReviewedByFollowees("alice"));
+    }
+
+    @Test
+    @DisplayName("Nothing is answered before the first load")
+    void productsReviewedByFollowees_notReady_returnsNull() {
+        FollowingProductsIndex empty = new FollowingProductsIndex(jdbcTemplate);
+        ReflectionTestUtils.setField(empty, "enabled", true);
+
+        assertNull(empty.productsReviewedByFollowees("alice"));
+    }
+}
@@ -1,5 +1,7 @@
 package com.trustworthyreviews.service;
 
+import com.netflix.hystrix.Hystrix;
+import com.trustworthyreviews.model.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,7 +11,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,26 +29,29 @@ class HystrixProductServiceTest {
 
     @BeforeEach
     void setUp() {
-        hystrixProductService = new HystrixProductService(productService);
+        // Circuit breakers and their metrics are global; start every scenario with closed circuits
+        Hystrix.reset();
+        // Record last known good results synchronously so a failure right after a success sees them
+        hystrixProductService = new HystrixProductService(productService, new LastKnownGood(100, 60_000, Runnable::run));
     }
 
     @Test
     @DisplayName("Scenario 1: Normal operation - getAllProducts succeeds")
     void testGetAllProducts_Success() {
         // Given
-        List<Map<String, Object>> expectedProducts = List.of(
-                Map.of("product_id", 1, "name", "Product 1", "avg_rating", 4.5),
-                Map.of("product_id", 2, "name", "Product 2", "avg_rating", 4.8)
+        List<Product> expectedProducts = List.of(
+                new Product(1, "Product 1", 4.5, null, null, null, null),
+                new Product(2, "Product 2", 4.8, null, null, null, null)
         );
         when(productService.getAllProducts()).thenReturn(expectedProducts);
 
         // When
-        List<Map<String, Object>> result = hystrixProductService.getAllProducts();
+        List<Product> result = hystrixProductService.getAllProducts();
 
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals(1, result.get(0).get("product_id"));
+        assertEquals(1, result.get(0).productId());
         verify(productService, times(1)).getAllProducts();
     }
 
@@ -59,7 +63,7 @@ class HystrixProductServiceTest {
                 .thenThrow(new RuntimeException("Database connection timeout"));
 
         // When
-        List<Map<String, Object>> result = hystrixProductService.getAllProducts();
+        List<Product> result = hystrixProductService.getAllProducts();
 
         // Then - Circuit breaker should return fallback (empty list)
         assertNotNull(result);
@@ -72,21 +76,16 @@ class HystrixProductServiceTest {
     void testGetProductById_Success() {
         // Given
         int productId = 1;
-        Map<String, Object> expectedProduct = Map.of(
-                "product_id", productId,
-                "name", "Test Product",
-                "avg_rating", 4.5,
-                "category", "Electronics"
-        );
+        Product expectedProduct = new Product(productId, "Test Product", 4.5, null, null, null, "Electronics");
         when(productService.getProductById(productId)).thenReturn(expectedProduct);
 
         // When
-        Map<String, Object> result = hystrixProductService.getProductById(productId);
+        Product result = hystrixProductService.getProductById(productId);
 
         // Then
         assertNotNull(result);
-        assertEquals(productId, result.get("product_id"));
-        assertEquals("Test Product", result.get("name"));
+        assertEquals(productId, result.productId());
+        assertEquals("Test Product", result.name());
         verify(productService, times(1)).getProductById(productId);
     }
 
@@ -99,7 +98,7 @@ class HystrixProductServiceTest {
                 .thenThrow(new RuntimeException("Query timeout"));
 
         // When
-        Map<String, Object> result = hystrixProductService.getProductById(productId);
+        Product result = hystrixProductService.getProductById(productId);
 
         // Then - Circuit breaker should return fallback (null)
         assertNull(result);
@@ -114,7 +113,7 @@ class HystrixProductServiceTest {
         when(productService.getProductById(productId)).thenReturn(null);
 
         // When
-        Map<String, Object> result = hystrixProductService.getProductById(productId);
+        Product result = hystrixProductService.getProductById(productId);
 
         // Then - Null is a valid response, not a failure
         assertNull(result);
@@ -126,14 +125,14 @@ class HystrixProductServiceTest {
     void testSearchProducts_Success() {
         // Given
         String query = "laptop";
-        List<Map<String, Object>> expectedProducts = List.of(
-                Map.of("product_id", 1, "name", "Gaming Laptop", "category", "Electronics"),
-                Map.of("product_id", 2, "name", "Business Laptop", "category", "Electronics")
+        List<Product> expectedProducts = List.of(
+                new Product(1, "Gaming Laptop", null, null, null, null, "Electronics"),
+                new Product(2, "Business Laptop", null, null, null, null, "Electronics")
         );
         when(productService.searchProducts(query)).thenReturn(expectedProducts);
 
         // When
-        List<Map<String, Object>> result = hystrixProductService.searchProducts(query);
+        List<Product> result = hystrixProductService.searchProducts(query);
 
         // Then
         assertNotNull(result);
@@ -150,7 +149,7 @@ class HystrixProductServiceTest {
                 .thenThrow(new RuntimeException("Database unavailable"));
 
         // When
-        List<Map<String, Object>> result = hystrixProductService.searchProducts(query);
+        List<Product> result = hystrixProductService.searchProducts(query);
 
         // Then
         assertNotNull(result);
@@ -166,7 +165,7 @@ class HystrixProductServiceTest {
         when(productService.searchProducts(query)).thenReturn(Collections.emptyList());
 
         // When
-        List<Map<String, Object>> result = hystrixProductService.searchProducts(query);
+        List<Product> result = hystrixProductService.searchProducts(query);
 
         // Then - Empty list is a valid response, not a failure
         assertNotNull(result);
@@ -178,14 +177,14 @@ class HystrixProductServiceTest {
     @DisplayName("Scenario 9: High traffic scenario - multiple concurrent requests")
     void testGetAllProducts_HighTraffic_MultipleRequests() {
         // Given
-        List<Map<String, Object>> expectedProducts = List.of(
-                Map.of("product_id", 1, "name", "Product 1")
+        List<Product> expectedProducts = List.of(
+                new Product(1, "Product 1", null, null, null, null, null)
         );
         when(productService.getAllProducts()).thenReturn(expectedProducts);
 
         // When - Simulate high traffic
         for (int i = 0; i < 10; i++) {
-            List<Map<String, Object>> result = hystrixProductService.getAllProducts();
+            List<Product> result = hystrixProductService.getAllProducts();
             assertNotNull(result);
         }
 
@@ -198,7 +197,7 @@ class HystrixProductServiceTest {
     void testCircuitBreaker_AlternatingSuccessAndFailure() {
         // Given
         int productId = 1;
-        Map<String, Object> successProduct = Map.of("product_id", productId, "name", "Product");
+        Product successProduct = new Product(productId, "Product", null, null, null, null, null);
         
         when(productService.getProductById(productId))
                 .thenReturn(successProduct)
@@ -207,16 +206,16 @@ class HystrixProductServiceTest {
                 .thenThrow(new RuntimeException("Error"));
 
         // When
-        Map<String, Object> result1 = hystrixProductService.getProductById(productId);
-        Map<String, Object> result2 = hystrixProductService.getProductById(productId);
-        Map<String, Object> result3 = hystrixProductService.getProductById(productId);
-        Map<String, Object> result4 = hystrixProductService.getProductById(productId);
+        Product result1 = hystrixProductService.getProductById(productId);
+        Product result2 = hystrixProductService.getProductById(productId);
+        Product result3 = hystrixProductService.getProductById(productId);
+        Product result4 = hystrixProductService.getProductById(productId);
 
         // Then
         assertNotNull(result1);
-        assertNull(result2); // Fallback on failure
+        assertEquals(successProduct, result2); // Last known good on failure
         assertNotNull(result3);
-        assertNull(result4); // Fallback on failure
+        assertEquals(successProduct, result4); // Last known good on failure
         verify(productService, times(4)).getProductById(productId);
     }
 }
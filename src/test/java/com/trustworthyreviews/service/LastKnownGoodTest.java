@@ -0,0 +1,100 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.Hystrix;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for last known good results served by fallbacks
+ */
+@DisplayName("LastKnownGood Tests")
+class LastKnownGoodTest {
+
+    private static final ProtectedCall.Operation SEARCH =
+            ProtectedCall.Operation.resident("LastKnownGoodTestSearch", 1000);
+
+    private final LastKnownGood lastKnownGood = new LastKnownGood(2, 60_000, Runnable::run);
+
+    @BeforeEach
+    void setUp() {
+        Hystrix.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private LastKnownGood.Result<List<String>> search(String query, boolean fail) {
+        return SEARCH.execute(lastKnownGood, LastKnownGood.key("Search", query), () -> {
+            if (fail) {
+                throw new IllegalStateException("database down");
+            }
+            return List.of(query + "-result");
+        }, List::of);
+    }
+
+    @Test
+    @DisplayName("A failing call serves the last result for the same arguments, with its age")
+    @SuppressWarnings("unchecked")
+    void failure_servesLastKnownGood() {
+        LastKnownGood.Result<List<String>> fresh = search("phone", false);
+        LastKnownGood.Result<List<String>> stale = search("phone", true);
+        LastKnownGood.Result<List<String>> empty = search("laptop", true);
+
+        assertFalse(fresh.isStale());
+        assertTrue(stale.isStale());
+        assertEquals(List.of("phone-result"), stale.value());
+        assertFalse(empty.isStale());
+        assertEquals(List.of(), empty.value());
+
+        Map<String, Object> stats = lastKnownGood.getStats();
+        assertEquals(1L, stats.get("staleServes"));
+        assertEquals(1L, stats.get("emptyFallbacks"));
+        Map<String, Object> search = (Map<String, Object>) ((Map<String, Object>) stats.get("byOperation")).get(SEARCH.getName());
+        assertEquals(1L, search.get("staleServes"));
+    }
+
+    @Test
+    @DisplayName("Entries are bounded, least recently used first out, and expire after the maximum age")
+    void entries_boundedAndExpire() throws InterruptedException {
+        lastKnownGood.record(LastKnownGood.key("Search", "a"), "a");
+        lastKnownGood.record(LastKnownGood.key("Search", "b"), "b");
+        assertNotNull(lastKnownGood.lookup(LastKnownGood.key("Search", "a")));
+        lastKnownGood.record(LastKnownGood.key("Search", "c"), "c");
+
+        assertEquals(2, lastKnownGood.size());
+        assertNotNull(lastKnownGood.lookup(LastKnownGood.key("Search", "a")));
+        assertNull(lastKnownGood.lookup(LastKnownGood.key("Search", "b")));
+
+        LastKnownGood shortLived = new LastKnownGood(10, 20, Runnable::run);
+        shortLived.record(LastKnownGood.key("Search", null), "all");
+        assertNotNull(shortLived.lookup(LastKnownGood.key("Search", null)));
+        Thread.sleep(50);
+        assertNull(shortLived.lookup(LastKnownGood.key("Search", null)));
+    }
+
+    @Test
+    @DisplayName("Serving a stale result marks the current request with the oldest stale age")
+    void served_marksRequestWithStaleAge() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals("fresh", LastKnownGood.served(LastKnownGood.Result.fresh("fresh")));
+        assertNull(request.getAttribute(LastKnownGood.STALE_AGE_ATTRIBUTE));
+
+        LastKnownGood.served(new LastKnownGood.Result<>("older", 5000));
+        LastKnownGood.served(new LastKnownGood.Result<>("newer", 1000));
+        assertEquals(5000L, request.getAttribute(LastKnownGood.STALE_AGE_ATTRIBUTE));
+    }
+}
@@ -0,0 +1,132 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.model.Product;
+import com.trustworthyreviews.model.ProductRowMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for swapping and patching the resident product catalog
+ */
+@DisplayName("ProductCatalog Tests")
+class ProductCatalogTest {
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog(null, new ObjectMapper());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+    }
+
+    private static Product product(int id, String name, Double rating) {
+        return new Product(id, name, rating, null, null, null, "Storage");
+    }
+
+    @Test
+    @DisplayName("Catalog is not ready until a snapshot is installed")
+    void isReady_afterInstall() {
+        assertFalse(catalog.isReady());
+        assertNull(catalog.snapshot());
+
+        assertTrue(catalog.install(List.of(product(1, "SSD", 4.0))));
+
+        assertTrue(catalog.isReady());
+        assertEquals(1, catalog.snapshot().version());
+    }
+
+    @Test
+    @DisplayName("Reloading unchanged content keeps the current snapshot")
+    void install_unchanged_keepsSnapshot() {
+        catalog.install(List.of(product(1, "SSD", 4.0)));
+        CatalogSnapshot first = catalog.snapshot();
+
+        assertFalse(catalog.install(List.of(product(1, "SSD", 4.0))));
+        assertSame(first, catalog.snapshot());
+
+        assertTrue(catalog.install(List.of(product(1, "SSD", 4.0), product(2, "HDD", null))));
+        assertEquals(2, catalog.snapshot().version());
+    }
+
+    @Test
+    @DisplayName("A rating patched while a reload reads the table survives the reload")
+    void refresh_patchDuringRead_isReapplied() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ProductCatalog loading = new ProductCatalog(jdbcTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(loading, "enabled", true);
+        loading.install(List.of(product(1, "SSD", 4.0), product(2, "HDD", 3.0)));
+        when(jdbcTemplate.query(anyString(), any(ProductRowMapper.class))).thenAnswer(invocation -> {
+            loading.updateAverageRating(1, 4.5);
+            return List.of(product(1, "SSD", 4.0), product(2, "HDD", 3.0), product(3, "NVMe", null));
+        });
+
+        loading.refresh();
+
+        assertEquals(3, loading.snapshot().size());
+        assertEquals(4.5, loading.snapshot().get(1).avgRating());
+    }
+
+    @Test
+    @DisplayName("Rating updates swap in a patched snapshot with a new version")
+    void updateAverageRating_swapsSnapshot() {
+        catalog.install(List.of(product(1, "SSD", 4.0), product(2, "HDD", 3.0)));
+        CatalogSnapshot before = catalog.snapshot();
+
+        catalog.updateAverageRatingAfterCommit(2, 4.5);
+
+        CatalogSnapshot after = catalog.snapshot();
+        assertNotSame(before, after);
+        assertEquals(2, after.version());
+        assertEquals(4.5, after.get(2).avgRating());
+        assertEquals(2, after.allByRating().get(0).productId());
+        assertEquals(3.0, before.get(2).avgRating());
+    }
+
+    @Test
+    @DisplayName("ETags come from the body, so another instance with the same products issues the same tags")
+    void encodedProducts_etagFromBody() {
+        catalog.install(List.of(product(1, "SSD", 4.0)));
+        catalog.updateAverageRating(1, 4.5);
+        ProductCatalog other = new ProductCatalog(null, new ObjectMapper());
+        ReflectionTestUtils.setField(other, "enabled", true);
+        other.install(List.of(product(1, "SSD", 4.5)));
+
+        assertNotEquals(catalog.snapshot().version(), other.snapshot().version());
+        assertEquals(catalog.encodedProducts(null).etag(), other.encodedProducts(null).etag());
+        assertEquals(catalog.encodedProducts("Storage").etag(), other.encodedProducts("Storage").etag());
+        assertNotEquals(catalog.encodedProducts(null).etag(), catalog.encodedProducts("Nothing").etag());
+    }
+
+    @Test
+    @DisplayName("Unknown categories share one empty body instead of being cached one by one")
+    void encodedProducts_unknownCategory_sharesEmptyBody() {
+        catalog.install(List.of(product(1, "SSD", 4.0)));
+
+        EncodedResponse unknown = catalog.encodedProducts("no-such-category-1");
+        assertSame(unknown, catalog.encodedProducts("no-such-category-2"));
+        assertEquals("[]", new String(unknown.identity()));
+        assertNotSame(unknown, catalog.encodedProducts("Storage"));
+    }
+
+    @Test
+    @DisplayName("Disabled catalog never hands out a snapshot")
+    void disabled_returnsNoSnapshot() {
+        catalog.install(List.of(product(1, "SSD", 4.0)));
+        ReflectionTestUtils.setField(catalog, "enabled", false);
+
+        assertFalse(catalog.isReady());
+        assertNull(catalog.snapshot());
+    }
+}
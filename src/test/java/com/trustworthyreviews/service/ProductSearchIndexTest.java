@@ -0,0 +1,86 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BM25 product search index built from the catalog
+ */
+@DisplayName("ProductSearchIndex Tests")
+class ProductSearchIndexTest {
+
+    private ProductCatalog catalog;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog(null, new ObjectMapper());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        catalog.install(List.of(
+                new Product(1, "Samsung 990 Pro SSD", 4.5, "Fast NVMe storage", null, null, "Storage"),
+                new Product(2, "WD Black SN850X", 4.7, "NVMe SSD for gaming", null, null, "Storage"),
+                new Product(3, "GeForce RTX 5080", 4.8, "Graphics card with fast memory", null, null, "Graphics Card"),
+                new Product(4, "Samsung Odyssey G7", 4.1, "Curved gaming monitor", null, null, "Monitors")
+        ));
+        index = new ProductSearchIndex(catalog);
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::productId).toList();
+    }
+
+    @Test
+    @DisplayName("Name matches outrank description matches")
+    void search_nameMatch_ranksAboveDescriptionMatch() {
+        assertEquals(List.of(1, 2), ids(index.search("ssd")));
+    }
+
+    @Test
+    @DisplayName("Products matching more query terms rank first")
+    void search_moreTermsMatched_ranksHigher() {
+        assertEquals(4, index.search("samsung gaming").get(0).productId());
+    }
+
+    @Test
+    @DisplayName("Partial words match by prefix")
+    void search_prefix_expandsToIndexedTerms() {
+        assertEquals(List.of(3), ids(index.search("graph")));
+        assertEquals(List.of(4, 1), ids(index.search("sams")));
+        assertTrue(index.search("   ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Results are limited to the requested size")
+    void search_limit_truncates() {
+        assertEquals(1, index.search("nvme", 1).size());
+    }
+
+    @Test
+    @DisplayName("Sync only re-indexes products whose text changed")
+    void sync_appliesOnlyTextChanges() {
+        index.search("ssd");
+        catalog.updateAverageRating(1, 3.0);
+        assertEquals(0, index.sync(catalog.snapshot()));
+        assertEquals(3.0, index.search("990").get(0).avgRating());
+
+        catalog.install(List.of(
+                new Product(1, "Samsung 990 Pro SSD", 3.0, "Fast NVMe storage", null, null, "Storage"),
+                new Product(2, "WD Blue SN580", 4.2, "Budget NVMe SSD", null, null, "Storage"),
+                new Product(5, "Noctua NH-D15", 4.9, "Air cooler", null, null, "Cooling")
+        ));
+
+        assertEquals(4, index.sync(catalog.snapshot()));
+        assertEquals(3, index.size());
+        assertTrue(index.search("geforce").isEmpty());
+        assertEquals(List.of(2), ids(index.search("blue")));
+        assertEquals(List.of(5), ids(index.search("cooler")));
+    }
+}
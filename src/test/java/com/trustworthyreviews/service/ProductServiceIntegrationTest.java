@@ -1,6 +1,8 @@
 package com.trustworthyreviews.service;
 
 
+import com.trustworthyreviews.model.Product;
+import com.trustworthyreviews.model.ProductPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +12,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,32 +60,118 @@ class ProductServiceIntegrationTest {
 
    @Test
    void getAllProducts_returnsProducts() {
-       List<Map<String, Object>> products = productService.getAllProducts();
+       List<Product> products = productService.getAllProducts();
        assertEquals(1, products.size());
-       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", products.get(0).get("name"));
+       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", products.get(0).name());
    }
 
 
    @Test
    void getProductById_existingProduct_returnsProduct() {
-       Map<String, Object> product = productService.getProductById(1);
+       Product product = productService.getProductById(1);
        assertNotNull(product);
-       assertEquals(1, product.get("product_id"));
-       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", product.get("name"));
+       assertEquals(1, product.productId());
+       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", product.name());
    }
 
 
    @Test
    void getProductById_nonExistingProduct_returnsNull() {
-       Map<String, Object> product = productService.getProductById(999);
+       Product product = productService.getProductById(999);
        assertNull(product);
    }
 
 
    @Test
    void searchProducts_findsMatchingProduct() {
-       List<Map<String, Object>> products = productService.searchProducts("ASUS");
+       List<Product> products = productService.searchProducts("ASUS");
        assertEquals(1, products.size());
-       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", products.get(0).get("name"));
+       assertEquals("ASUS Prime Radeon RX 9070 XT Graphics Card", products.get(0).name());
+   }
+
+
+   @Test
+   void getProductsPage_byRating_walksEveryProductOnceWithTies() {
+       seedPagingProducts();
+
+       List<Object> seen = new ArrayList<>();
+       String cursor = null;
+       ProductPage page;
+       do {
+           page = productService.getProductsPage(null, null, false, ProductCursor.Sort.RATING, cursor, 2);
+           assertTrue(page.items().size() <= 2);
+           page.items().forEach(product -> seen.add(product.productId()));
+           cursor = page.nextCursor();
+       } while (page.hasMore());
+
+       assertEquals(List.of(1, 4, 3, 2, 6, 5), seen);
+       assertNull(page.nextCursor());
+   }
+
+
+   @Test
+   void getProductsPage_byNameInCategory_pagesWithStableTieBreak() {
+       seedPagingProducts();
+
+       ProductPage first = productService.getProductsPage("Storage", null, false, ProductCursor.Sort.NAME, null, 2);
+       assertEquals(List.of(4, 6), first.items().stream().map(Product::productId).toList());
+       assertTrue(first.hasMore());
+
+       ProductPage second = productService.getProductsPage("Storage", null, false, ProductCursor.Sort.NAME, first.nextCursor(), 2);
+       assertEquals(List.of(3), second.items().stream().map(Product::productId).toList());
+       assertFalse(second.hasMore());
+   }
+
+
+   @Test
+   void getProductsPage_byName_walksMixedCaseAndNullNamesOnceInCatalogOrder() {
+       seedPagingProducts();
+       jdbcTemplate.update("""
+           INSERT INTO PRODUCTS (PRODUCT_ID, NAME, AVG_RATING, DESCRIPTION, IMAGE, LINK, CATEGORY) VALUES
+           (7, NULL, 4.0, '', '', '', 'Storage'),
+           (8, 'samsung 870 evo', 4.0, '', '', '', 'Storage'),
+           (9, 'SAMSUNG 870 EVO', 4.0, '', '', '', 'Storage'),
+           (10, NULL, NULL, '', '', '', 'Storage'),
+           (11, 'ADATA_Legend', 4.0, '', '', '', 'Storage'),
+           (12, 'adata legend', 4.0, '', '', '', 'Storage')
+       """);
+
+       List<Integer> seen = new ArrayList<>();
+       String cursor = null;
+       ProductPage page;
+       do {
+           page = productService.getProductsPage(null, null, false, ProductCursor.Sort.NAME, cursor, 2);
+           page.items().forEach(product -> seen.add(product.productId()));
+           cursor = page.nextCursor();
+       } while (page.hasMore());
+
+       List<Integer> catalogOrder = productService.getAllProducts().stream()
+               .sorted(CatalogSnapshot.BY_NAME)
+               .map(Product::productId)
+               .toList();
+       assertEquals(catalogOrder, seen);
+       assertEquals(List.of(12, 11, 1, 2, 5, 9, 8, 4, 6, 3, 7, 10), seen);
+   }
+
+
+   @Test
+   void getProductsPage_cursorForOtherSort_isRejected() {
+       seedPagingProducts();
+       ProductPage byName = productService.getProductsPage(null, null, false, ProductCursor.Sort.NAME, null, 1);
+
+       assertThrows(IllegalArgumentException.class, () ->
+               productService.getProductsPage(null, null, false, ProductCursor.Sort.RATING, byName.nextCursor(), 1));
+   }
+
+
+   private void seedPagingProducts() {
+       jdbcTemplate.update("""
+           INSERT INTO PRODUCTS (PRODUCT_ID, NAME, AVG_RATING, DESCRIPTION, IMAGE, LINK, CATEGORY) VALUES
+           (2, 'Corsair RM850x', 4.0, 'psu', '', '', 'Power Supply'),
+           (3, 'WD Black SN850X', 4.5, 'ssd', '', '', 'Storage'),
+           (4, 'Samsung 990 Pro', 4.5, 'ssd', '', '', 'Storage'),
+           (5, 'Noctua NH-D15', NULL, 'cooler', '', '', 'Cooling'),
+           (6, 'Samsung 990 Pro', 3.0, 'ssd', '', '', 'Storage')
+       """);
    }
 }
@@ -0,0 +1,131 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the prefix trie behind product autocomplete
+ */
+@DisplayName("ProductSuggester Tests")
+class ProductSuggesterTest {
+
+    private ProductCatalog catalog;
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog(null, new ObjectMapper());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        catalog.install(List.of(
+                new Product(1, "Samsung 990 Pro", 4.5, null, null, null, "Storage"),
+                new Product(2, "Samsung Odyssey G7", 4.1, null, null, null, "Monitors"),
+                new Product(3, "Sabrent Rocket 4", 4.6, null, null, null, "Storage"),
+                new Product(4, "GeForce RTX 5080", 4.8, null, null, null, "Graphics Card"),
+                new Product(5, "Crucial T705", null, null, null, null, "Storage"),
+                new Product(6, "Résumé Monitor Arm", 3.9, null, null, null, "Accessories")
+        ));
+        suggester = new ProductSuggester(catalog);
+        suggester.rebuild(catalog.snapshot());
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::productId).toList();
+    }
+
+    @Test
+    @DisplayName("Prefixes inside and across compressed edges return the best rated products")
+    void suggest_prefix_returnsTopByRating() {
+        assertEquals(List.of(3, 1, 2), ids(suggester.suggest("sa", 10)));
+        assertEquals(List.of(1, 2), ids(suggester.suggest("Samsung", 10)));
+        assertEquals(List.of(1), ids(suggester.suggest("samsung 9", 10)));
+        assertEquals(List.of(3, 1), ids(suggester.suggest("sa", 2)));
+        assertTrue(suggester.suggest("samsungx", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Later words of a name and categories also match")
+    void suggest_wordsAndCategories_match() {
+        assertEquals(List.of(4), ids(suggester.suggest("RTX", 10)));
+        assertEquals(List.of(3, 1, 5), ids(suggester.suggest("stor", 10)));
+        assertEquals(List.of(2, 6), ids(suggester.suggest("monitor", 10)));
+    }
+
+    @Test
+    @DisplayName("Prefixes are normalised like the indexed names")
+    void suggest_normalisesCaseAccentsAndPunctuation() {
+        assertEquals(List.of(6), ids(suggester.suggest("resume", 10)));
+        assertEquals(List.of(4), ids(suggester.suggest("  geforce-rtx ", 10)));
+        assertTrue(suggester.suggest("   ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Suggestions carry the current rating before the trie is rebuilt")
+    void suggest_readsProductsFromCurrentSnapshot() {
+        catalog.updateAverageRating(1, 2.0);
+
+        assertEquals(2.0, suggester.suggest("samsung 990", 10).get(0).avgRating());
+    }
+
+    @Test
+    @DisplayName("A rating patch re-ranks suggestions from the existing trie")
+    void suggest_ratingPatch_reranksFromExistingTrie() {
+        assertEquals(List.of(1, 2), ids(suggester.suggest("samsung", 10)));
+
+        catalog.updateAverageRating(2, 5.0);
+
+        assertEquals(List.of(2, 1), ids(suggester.suggest("samsung", 10)));
+        assertEquals(List.of(2), ids(suggester.suggest("samsung", 1)));
+    }
+
+    @Test
+    @DisplayName("A rating patch makes the trie stale once the rating-rebuild interval has passed")
+    void isStale_ratingPatch_afterInterval() {
+        ProductSuggester.Trie built = suggester.trie();
+        assertFalse(suggester.isStale(built, catalog.snapshot()));
+
+        catalog.updateAverageRating(5, 4.9);
+        assertFalse(suggester.isStale(built, catalog.snapshot()));
+
+        ReflectionTestUtils.setField(suggester, "ratingRebuildIntervalMs", 0L);
+        assertTrue(suggester.isStale(built, catalog.snapshot()));
+    }
+
+    @Test
+    @DisplayName("A product whose rating rises into a node's top list is suggested after the rebuild")
+    void rebuild_afterRatingRise_suggestsRisenProduct() {
+        ReflectionTestUtils.setField(suggester, "maxResults", 2);
+        suggester.rebuild(catalog.snapshot());
+        assertEquals(List.of(3, 1), ids(suggester.suggest("stor", 10)));
+
+        catalog.updateAverageRating(5, 4.9);
+        assertEquals(List.of(3, 1), ids(suggester.suggest("stor", 10)));
+
+        suggester.rebuild(catalog.snapshot());
+        assertEquals(List.of(5, 3), ids(suggester.suggest("stor", 10)));
+    }
+
+    @Test
+    @DisplayName("Every node keeps no more than the configured number of products")
+    void rebuild_largeCatalog_capsTopPerNode() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            products.add(new Product(i, "Widget " + i, (double) (i % 50) / 10, null, null, null, "Widgets"));
+        }
+        catalog.install(products);
+        suggester.rebuild(catalog.snapshot());
+
+        List<Product> top = suggester.suggest("wid", 100);
+        assertEquals(suggester.getMaxResults(), top.size());
+        assertEquals(4.9, top.get(0).avgRating());
+        assertEquals(List.of(100), ids(suggester.suggest("widget 100", 10)));
+    }
+}
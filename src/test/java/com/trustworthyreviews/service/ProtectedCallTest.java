@@ -0,0 +1,138 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for lambda-based protected calls and their isolation.
+ *
+ * The benchmark compares the per-call overhead of operations with a command class that
+ * builds its Setter per call, as the per-method commands did; run it with
+ * {@code mvn test -Dtest=ProtectedCallTest -Dbenchmark=true}.
+ */
+@DisplayName("ProtectedCall Tests")
+class ProtectedCallTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProtectedCallTest.class);
+
+    @Test
+    @DisplayName("Resident operations run on the caller's thread")
+    void resident_runsOnCallerThread() {
+        ProtectedCall.Operation operation = ProtectedCall.Operation.resident("ProtectedCallTestResident", 1000);
+
+        String thread = operation.execute(() -> Thread.currentThread().getName(), () -> "fallback");
+
+        assertEquals(ExecutionIsolationStrategy.SEMAPHORE, operation.getIsolation());
+        assertEquals(Thread.currentThread().getName(), thread);
+    }
+
+    @Test
+    @DisplayName("Database operations run on the thread pool of their bulkhead")
+    void database_runsOnHystrixThreadPool() {
+        ProtectedCall.Operation operation = ProtectedCall.Operation.database(
+                "ProtectedCallTestDatabase", ProtectedCall.Bulkhead.POINT_READS, 1000);
+
+        String thread = operation.execute(() -> Thread.currentThread().getName(), () -> "fallback");
+
+        assertEquals(ExecutionIsolationStrategy.THREAD, operation.getIsolation());
+        assertTrue(thread.startsWith("hystrix-DatabasePointReads-"), thread);
+    }
+
+    @Test
+    @DisplayName("Failures and timeouts return the fallback")
+    void failureAndTimeout_returnFallback() {
+        ProtectedCall.Operation failing = ProtectedCall.Operation.resident("ProtectedCallTestFailing", 1000);
+        ProtectedCall.Operation slow = ProtectedCall.Operation.database(
+                "ProtectedCallTestSlow", ProtectedCall.Bulkhead.POINT_READS, 100);
+        AtomicInteger fallbacks = new AtomicInteger();
+
+        String failed = failing.execute(() -> {
+            throw new IllegalStateException("boom");
+        }, () -> "fallback-" + fallbacks.incrementAndGet());
+        String timedOut = slow.execute(() -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        }, () -> "fallback-" + fallbacks.incrementAndGet());
+
+        assertEquals("fallback-1", failed);
+        assertEquals("fallback-2", timedOut);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: per-call overhead, command class vs database and resident operations")
+    void benchmark_perCallOverhead() {
+        int calls = 50_000;
+        ProtectedCall.Operation database = ProtectedCall.Operation.database(
+                "ProtectedCallTestBenchmarkDatabase", ProtectedCall.Bulkhead.POINT_READS, 3000);
+        ProtectedCall.Operation resident = ProtectedCall.Operation.resident("ProtectedCallTestBenchmarkResident", 1000);
+
+        double commandMicros = 0;
+        double databaseMicros = 0;
+        double residentMicros = 0;
+        for (int round = 0; round < 3; round++) {
+            commandMicros = microsPerCall(calls, () -> new TrivialCommand().execute());
+            databaseMicros = microsPerCall(calls, () -> database.execute(() -> 1, () -> 0));
+            residentMicros = microsPerCall(calls, () -> resident.execute(() -> 1, () -> 0));
+        }
+
+        log.info("Command class:      {} us/call", String.format("%.2f", commandMicros));
+        log.info("Database operation: {} us/call", String.format("%.2f", databaseMicros));
+        log.info("Resident operation: {} us/call", String.format("%.2f", residentMicros));
+
+        assertTrue(residentMicros < databaseMicros, "resident calls should not pay for a thread hand-off");
+    }
+
+    private static double microsPerCall(int calls, Supplier<Integer> call) {
+        long started = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += call.get();
+        }
+        assertEquals(calls, sum);
+        return (System.nanoTime() - started) / 1e3 / calls;
+    }
+
+    /** Thread-isolated command that builds its Setter per call, like the per-method command classes */
+    private static class TrivialCommand extends HystrixCommand<Integer> {
+
+        TrivialCommand() {
+            super(Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("Database"))
+                    .andCommandKey(HystrixCommandKey.Factory.asKey("ProtectedCallTestBenchmarkCommand"))
+                    .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                            .withCircuitBreakerEnabled(true)
+                            .withCircuitBreakerRequestVolumeThreshold(10)
+                            .withCircuitBreakerErrorThresholdPercentage(50)
+                            .withCircuitBreakerSleepWindowInMilliseconds(5000)
+                            .withExecutionTimeoutInMilliseconds(3000)
+                            .withFallbackEnabled(true)));
+        }
+
+        @Override
+        protected Integer run() {
+            return 1;
+        }
+
+        @Override
+        protected Integer getFallback() {
+            return 0;
+        }
+    }
+}
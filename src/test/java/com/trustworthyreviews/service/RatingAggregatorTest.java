@@ -0,0 +1,197 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trustworthyreviews.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for buffered review rating totals
+ */
+@DisplayName("RatingAggregator Tests")
+class RatingAggregatorTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ProductCatalog catalog;
+    private RatingAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("""
+            INSERT INTO products (product_id, name, avg_rating, category, review_count, rating_sum, rating_4) VALUES
+            (1, 'Samsung 990 Pro', 4.0, 'Storage', 2, 8, 2),
+            (2, 'Noctua NH-D15', NULL, 'Cooling', 0, 0, 0)
+        """);
+
+        catalog = new ProductCatalog(jdbcTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        catalog.refresh();
+
+        aggregator = new RatingAggregator(jdbcTemplate, new DataSourceTransactionManager(database), catalog);
+        ReflectionTestUtils.setField(aggregator, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private Map<String, Object> stored(int productId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT review_count, rating_sum, avg_rating, rating_3, rating_5 FROM products WHERE product_id = ?", productId);
+    }
+
+    @Test
+    @DisplayName("Buffered ratings are merged into reads before they are written")
+    void addRating_buffersAndMergesIntoReads() {
+        aggregator.addRating(1, 1);
+
+        assertEquals(4.0, ((Number) stored(1).get("avg_rating")).doubleValue());
+        assertEquals(3.0, aggregator.withPending(new Product(1, "Samsung 990 Pro", 4.0, null, null, null, "Storage")).avgRating());
+        assertEquals(3.0, catalog.snapshot().get(1).avgRating());
+        assertEquals(1, aggregator.pendingProducts());
+    }
+
+    @Test
+    @DisplayName("A flush writes each product's accumulated count and sum once")
+    void flush_writesAccumulatedTotals() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                int rating = i % 2 == 0 ? 5 : 3;
+                futures.add(pool.submit(() -> aggregator.addRating(2, rating)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        aggregator.addRating(1, 5);
+
+        aggregator.flush();
+
+        Map<String, Object> hot = stored(2);
+        assertEquals(400, ((Number) hot.get("review_count")).intValue());
+        assertEquals(1600L, ((Number) hot.get("rating_sum")).longValue());
+        assertEquals(4.0, ((Number) hot.get("avg_rating")).doubleValue());
+        assertEquals(200, ((Number) hot.get("rating_3")).intValue());
+        assertEquals(200, ((Number) hot.get("rating_5")).intValue());
+        assertEquals(3, ((Number) stored(1).get("review_count")).intValue());
+        assertEquals(0, aggregator.pendingProducts());
+        assertEquals(4.0, catalog.snapshot().get(2).avgRating());
+    }
+
+    @Test
+    @DisplayName("Histograms combine the stored counts with buffered ratings")
+    void histogram_mergesStoredAndBuffered() {
+        aggregator.addRating(1, 5);
+        aggregator.addRating(1, 1);
+
+        RatingHistogram histogram = aggregator.histogram(1);
+        assertEquals(RatingHistogram.of(1, 0, 0, 2, 1), histogram);
+        assertEquals(4L, histogram.total());
+        assertEquals(3.5, histogram.average());
+
+        aggregator.flush();
+
+        assertEquals(histogram, aggregator.histogram(1));
+        assertEquals(RatingHistogram.EMPTY, aggregator.histogram(2));
+        assertNull(aggregator.histogram(99));
+    }
+
+    @Test
+    @DisplayName("A flush failing on one product writes none of them, so the retry counts each once")
+    void flush_partialFailure_rollsBackWholeBatch() {
+        aggregator.addRating(1, 2);
+        aggregator.addRating(2, 5);
+        jdbcTemplate.execute("ALTER TABLE products ADD CONSTRAINT no_reviews_for_2 CHECK (product_id <> 2 OR review_count = 0)");
+
+        aggregator.flush();
+
+        assertEquals(2, ((Number) stored(1).get("review_count")).intValue());
+        assertEquals(2, aggregator.pendingProducts());
+
+        jdbcTemplate.execute("ALTER TABLE products DROP CONSTRAINT no_reviews_for_2");
+        aggregator.flush();
+
+        assertEquals(3, ((Number) stored(1).get("review_count")).intValue());
+        assertEquals(10L, ((Number) stored(1).get("rating_sum")).longValue());
+        assertEquals(1, ((Number) stored(2).get("review_count")).intValue());
+        assertEquals(0, aggregator.pendingProducts());
+    }
+
+    @Test
+    @DisplayName("A failed flush keeps the ratings for the next one")
+    void flush_failure_retainsRatings() {
+        aggregator.addRating(1, 2);
+        jdbcTemplate.execute("ALTER TABLE products RENAME TO products_offline");
+
+        aggregator.flush();
+
+        assertEquals(1, aggregator.pendingProducts());
+        assertEquals(10.0 / 3, aggregator.withPending(catalog.snapshot().get(1)).avgRating(), 1e-9);
+
+        jdbcTemplate.execute("ALTER TABLE products_offline RENAME TO products");
+        aggregator.flush();
+
+        assertEquals(3, ((Number) stored(1).get("review_count")).intValue());
+        assertEquals(10L, ((Number) stored(1).get("rating_sum")).longValue());
+    }
+
+    @Test
+    @DisplayName("Inserting a review returns its id and adds its rating, now or on commit")
+    void insertReview_returnsIdAndAddsRating() {
+        String insert = "INSERT INTO product_reviews (product_id, review_rating, review_desc, uid) VALUES (?, ?, ?, ?)";
+
+        Integer buffered = aggregator.insertReview(insert,
+                new Object[]{1, 5, null, "11111111-1111-1111-1111-111111111111"}, 1, 5);
+        assertNotNull(buffered);
+        assertEquals(1, aggregator.pendingProducts());
+
+        ReflectionTestUtils.setField(aggregator, "enabled", false);
+        Integer written = aggregator.insertReview(insert,
+                new Object[]{2, 3, "Quiet", "11111111-1111-1111-1111-111111111111"}, 2, 3);
+        assertEquals(buffered + 1, written);
+        assertEquals(1, ((Number) stored(2).get("review_count")).intValue());
+        assertEquals(3.0, catalog.snapshot().get(2).avgRating());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_reviews", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Synchronous mode writes each rating immediately")
+    void addRating_disabled_writesImmediately() {
+        ReflectionTestUtils.setField(aggregator, "enabled", false);
+
+        aggregator.addRating(1, 1);
+
+        assertEquals(3.0, ((Number) stored(1).get("avg_rating")).doubleValue());
+        assertEquals(3.0, catalog.snapshot().get(1).avgRating());
+        assertEquals(0, aggregator.pendingProducts());
+    }
+}
@@ -0,0 +1,115 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for verifying rating counters against product_reviews
+ */
+@DisplayName("RatingReconciler Tests")
+class RatingReconcilerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private RatingAggregator aggregator;
+    private RatingReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        jdbcTemplate.update("""
+            INSERT INTO products (product_id, name, avg_rating, review_count, rating_sum, rating_4, rating_5) VALUES
+            (1, 'Consistent', 4.5, 2, 9, 1, 1),
+            (2, 'Drifted', 5.0, 1, 5, 0, 1),
+            (3, 'Recently reviewed', NULL, 0, 0, 0, 0),
+            (4, 'No reviews', 3.0, 1, 3, 0, 0)
+        """);
+        jdbcTemplate.update("""
+            INSERT INTO product_reviews (product_id, review_rating, uid, created_at) VALUES
+            (1, 4, 'u1', TIMESTAMP '2025-01-01 00:00:00'),
+            (1, 5, 'u2', TIMESTAMP '2025-01-01 00:00:00'),
+            (2, 5, 'u1', TIMESTAMP '2025-01-01 00:00:00'),
+            (2, 1, 'u2', TIMESTAMP '2025-01-01 00:00:00'),
+            (3, 2, 'u1', CURRENT_TIMESTAMP)
+        """);
+
+        ProductCatalog catalog = new ProductCatalog(jdbcTemplate, new ObjectMapper());
+        aggregator = new RatingAggregator(jdbcTemplate, new DataSourceTransactionManager(database), catalog);
+        ReflectionTestUtils.setField(aggregator, "enabled", true);
+        reconciler = new RatingReconciler(jdbcTemplate, aggregator, catalog);
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private Map<String, Object> stored(int productId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT review_count, rating_sum, avg_rating, rating_1, rating_5 FROM products WHERE product_id = ?",
+                productId);
+    }
+
+    @Test
+    @DisplayName("Drifted counters are corrected; consistent and recently reviewed products are left alone")
+    void reconcileNextBatch_correctsDrift() {
+        assertEquals(2, reconciler.reconcileNextBatch());
+
+        Map<String, Object> drifted = stored(2);
+        assertEquals(2, ((Number) drifted.get("review_count")).intValue());
+        assertEquals(6L, ((Number) drifted.get("rating_sum")).longValue());
+        assertEquals(1, ((Number) drifted.get("rating_1")).intValue());
+        assertEquals(3.0, ((Number) drifted.get("avg_rating")).doubleValue());
+
+        Map<String, Object> empty = stored(4);
+        assertEquals(0, ((Number) empty.get("review_count")).intValue());
+        assertNull(empty.get("avg_rating"));
+
+        assertEquals(0, ((Number) stored(3).get("review_count")).intValue());
+        assertEquals(4.5, ((Number) stored(1).get("avg_rating")).doubleValue());
+        assertEquals(RatingHistogram.of(1, 0, 0, 0, 1), aggregator.histogram(2));
+    }
+
+    @Test
+    @DisplayName("Products are checked in bounded batches that wrap around")
+    void reconcileNextBatch_walksInBatches() {
+        ReflectionTestUtils.setField(reconciler, "batchSize", 1);
+
+        assertEquals(0, reconciler.reconcileNextBatch());
+        assertEquals(1, reconciler.reconcileNextBatch());
+        assertEquals(0, reconciler.reconcileNextBatch());
+        assertEquals(1, reconciler.reconcileNextBatch());
+        assertEquals(0, reconciler.reconcileNextBatch());
+        assertEquals(0, reconciler.reconcileNextBatch());
+    }
+
+    @Test
+    @DisplayName("Products with buffered ratings are skipped")
+    void reconcileNextBatch_skipsPendingProducts() {
+        aggregator.addRating(2, 5);
+
+        assertEquals(1, reconciler.reconcileNextBatch());
+
+        assertEquals(1, ((Number) stored(2).get("review_count")).intValue());
+    }
+}
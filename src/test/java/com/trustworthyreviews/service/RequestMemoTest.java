@@ -0,0 +1,96 @@
+package com.trustworthyreviews.service;
+
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for results remembered within one request
+ */
+@DisplayName("RequestMemo Tests")
+class RequestMemoTest {
+
+    private HystrixRequestContext context;
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.shutdown();
+            HystrixRequestContext.setContextOnCurrentThread(null);
+        }
+    }
+
+    @Test
+    @DisplayName("Outside a request every call is computed")
+    void outsideRequest_computesEveryCall() {
+        AtomicInteger computed = new AtomicInteger();
+
+        RequestMemo.get(List.of("GetUserById", "a"), computed::incrementAndGet);
+        RequestMemo.get(List.of("GetUserById", "a"), computed::incrementAndGet);
+
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    @DisplayName("Within a request a key is computed once, also for null results and on other threads")
+    void withinRequest_computesEachKeyOnce() throws Exception {
+        context = HystrixRequestContext.initializeContext();
+        AtomicInteger computed = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Supplier<Integer> degree = () -> RequestMemo.get(List.of("DegreeOfSeparation", "a", "b"), () -> {
+                computed.incrementAndGet();
+                try {
+                    assertTrue(release.await(2, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 2;
+            });
+            List<CompletableFuture<Integer>> lookups = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                lookups.add(CompletableFuture.supplyAsync(RequestMemo.inCurrentRequest(degree), executor));
+            }
+            release.countDown();
+            for (CompletableFuture<Integer> lookup : lookups) {
+                assertEquals(2, lookup.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, computed.get());
+
+        RequestMemo.get(List.of("GetUserById", "missing"), () -> null);
+        assertNull(RequestMemo.get(List.of("GetUserById", "missing"), () -> {
+            throw new AssertionError("null result was not remembered");
+        }));
+    }
+
+    @Test
+    @DisplayName("Failures are not remembered, and a new request starts empty")
+    void failuresAndNewRequests_computeAgain() {
+        context = HystrixRequestContext.initializeContext();
+        assertThrows(IllegalStateException.class, () -> RequestMemo.get(List.of("GetUserById", "a"), () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("first", RequestMemo.get(List.of("GetUserById", "a"), () -> "first"));
+
+        context.shutdown();
+        context = HystrixRequestContext.initializeContext();
+        assertEquals("second", RequestMemo.get(List.of("GetUserById", "a"), () -> "second"));
+    }
+}
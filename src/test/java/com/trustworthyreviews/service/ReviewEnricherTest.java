@@ -0,0 +1,145 @@
+package com.trustworthyreviews.service;
+
+import com.trustworthyreviews.model.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for concurrent review enrichment with a deadline
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReviewEnricher Tests")
+class ReviewEnricherTest {
+
+    private static final String VIEWER = "viewer";
+
+    @Mock
+    private UserService userService;
+
+    private ReviewEnricher enricher;
+
+    @AfterEach
+    void tearDown() {
+        if (enricher != null) {
+            enricher.shutdown();
+        }
+    }
+
+    private static List<Review> reviews(String... uids) {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < uids.length; i++) {
+            reviews.add(new Review(i + 1, 1, 4, null, uids[i], new Timestamp(0), null, null, null, null, null));
+        }
+        return reviews;
+    }
+
+    @Test
+    @DisplayName("Reviewers are fetched in one batch, their relation lookups run concurrently, and every review is filled in")
+    void enrich_runsLookupsConcurrently() {
+        enricher = new ReviewEnricher(userService, 8, 64, 5000);
+        when(userService.getUsersByIds(Set.of("a", "b", "c", VIEWER))).thenAnswer(invocation -> {
+            Map<String, Map<String, Object>> users = new HashMap<>();
+            for (String uid : invocation.<Set<String>>getArgument(0)) {
+                users.put(uid, Map.of("email", uid + "@example.com", "display_name", uid.toUpperCase()));
+            }
+            return users;
+        });
+        CountDownLatch started = new CountDownLatch(3);
+        when(userService.getDegreeOfSeparation(eq(VIEWER), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            // only returns once all three degree lookups are running at the same time
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            return 2;
+        });
+        when(userService.calculateCombinedJaccardSimilarity(eq(VIEWER), anyString())).thenReturn(0.12345);
+
+        List<Review> reviews = reviews("a", "b", "c", VIEWER, "a");
+        assertFalse(enricher.enrich(reviews, VIEWER));
+
+        assertEquals("B", reviews.get(1).displayName());
+        assertEquals(2, reviews.get(0).degreeOfSeparation());
+        assertEquals(0.123, reviews.get(2).similarityScore());
+        assertTrue(reviews.get(3).isOwnReview());
+        assertEquals("a@example.com", reviews.get(4).email());
+        verify(userService, times(1)).getUsersByIds(anyCollection());
+        verify(userService, never()).getUserById(anyString());
+        verify(userService, never()).getDegreeOfSeparation(VIEWER, VIEWER);
+    }
+
+    @Test
+    @DisplayName("Lookups still running at the deadline are left out and the result is partial")
+    void enrich_deadline_returnsPartial() {
+        enricher = new ReviewEnricher(userService, 4, 64, 200);
+        when(userService.getUsersByIds(anyCollection())).thenReturn(Map.of("slow", Map.of("email", "x@example.com")));
+        when(userService.getDegreeOfSeparation(eq(VIEWER), anyString())).thenReturn(1);
+        when(userService.calculateCombinedJaccardSimilarity(VIEWER, "slow")).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return 0.9;
+        });
+        when(userService.calculateCombinedJaccardSimilarity(VIEWER, "fast")).thenReturn(0.5);
+
+        List<Review> reviews = reviews("slow", "fast");
+        long started = System.nanoTime();
+        assertTrue(enricher.enrich(reviews, VIEWER));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1500);
+        assertNull(reviews.get(0).similarityScore());
+        assertEquals(1, reviews.get(0).degreeOfSeparation());
+        assertEquals("x@example.com", reviews.get(0).email());
+        assertEquals(0.5, reviews.get(1).similarityScore());
+    }
+
+    @Test
+    @DisplayName("When the pool is full lookups wait for room instead of being rejected")
+    void enrich_fullPool_waitsForRoom() {
+        enricher = new ReviewEnricher(userService, 1, 1, 5000);
+        when(userService.getUsersByIds(anyCollection())).thenReturn(Map.of());
+        when(userService.getDegreeOfSeparation(eq(VIEWER), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(10);
+            return 3;
+        });
+        when(userService.calculateCombinedJaccardSimilarity(eq(VIEWER), anyString())).thenReturn(0.5);
+
+        String[] uids = new String[20];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = "reviewer-" + i;
+        }
+        List<Review> reviews = reviews(uids);
+        assertFalse(enricher.enrich(reviews, VIEWER));
+
+        for (Review review : reviews) {
+            assertEquals(3, review.degreeOfSeparation());
+            assertEquals(0.5, review.similarityScore());
+        }
+    }
+
+    @Test
+    @DisplayName("Lookups that get no room before the deadline make the result partial")
+    void enrich_noRoomBeforeDeadline_returnsPartial() {
+        enricher = new ReviewEnricher(userService, 1, 1, 200);
+        when(userService.getUsersByIds(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return Map.of();
+        });
+
+        long started = System.nanoTime();
+        assertTrue(enricher.enrich(reviews("a", "b", "c"), VIEWER));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 900);
+    }
+}
@@ -0,0 +1,138 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bulk review import
+ */
+@DisplayName("ReviewImportService Tests")
+class ReviewImportServiceTest {
+
+    private static final String ALICE = "11111111-1111-1111-1111-111111111111";
+    private static final String BOB = "22222222-2222-2222-2222-222222222222";
+    private static final String CAROL = "33333333-3333-3333-3333-333333333333";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReviewImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("""
+            INSERT INTO products (product_id, name, avg_rating, review_count, rating_sum, rating_4) VALUES
+            (1, 'Samsung 990 Pro', 4.0, 1, 4, 1),
+            (2, 'Noctua NH-D15', NULL, 0, 0, 0)
+        """);
+        jdbcTemplate.update("INSERT INTO product_reviews (product_id, review_rating, uid) VALUES (1, 4, ?)", ALICE);
+
+        ProductCatalog catalog = new ProductCatalog(jdbcTemplate, new ObjectMapper());
+        RatingAggregator aggregator = new RatingAggregator(jdbcTemplate, new DataSourceTransactionManager(database), catalog);
+        RatingReconciler reconciler = new RatingReconciler(jdbcTemplate, aggregator, catalog);
+        FollowingProductsIndex followingIndex = new FollowingProductsIndex(jdbcTemplate);
+        importService = new ReviewImportService(jdbcTemplate, new DataSourceTransactionManager(database),
+                reconciler, followingIndex, new TrustWeightedRatings(jdbcTemplate, followingIndex), new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, Object> stored(int productId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT review_count, rating_sum, avg_rating, rating_2, rating_5 FROM products WHERE product_id = ?",
+                productId);
+    }
+
+    @Test
+    @DisplayName("NDJSON rows are inserted in chunks and the touched products' counters recomputed once")
+    void importReviews_ndjson_insertsAndRecomputes() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"product_id\": 1, \"uid\": \"" + BOB + "\", \"rating\": 5, \"review_text\": \"Fast\"}",
+                "{\"product_id\": 1, \"uid\": \"" + ALICE + "\", \"rating\": 1}",
+                "{\"product_id\": 2, \"uid\": \"" + BOB + "\", \"rating\": 2, \"created_at\": \"2025-03-01T10:00:00Z\"}",
+                "{\"product_id\": 2, \"uid\": \"not-a-uuid\", \"rating\": 3}",
+                "{\"product_id\": 2, \"uid\": \"" + CAROL + "\", \"rating\": 6}",
+                "not json",
+                "{\"product_id\": 99, \"uid\": \"" + CAROL + "\", \"rating\": 4}");
+
+        ReviewImportService.ImportReport report =
+                importService.importReviews(input(ndjson), ReviewImportService.Format.NDJSON, 0);
+
+        assertTrue(report.completed());
+        assertEquals(7, report.rowsRead());
+        assertEquals(2, report.inserted());
+        assertEquals(2, report.duplicates());
+        assertEquals(3, report.rejected());
+        assertEquals(7, report.nextOffset());
+        assertEquals(2, report.productsRecomputed());
+        assertEquals(List.of(3L, 4L, 5L), report.rejects().stream().map(ReviewImportService.Reject::offset).toList());
+
+        Map<String, Object> first = stored(1);
+        assertEquals(2, ((Number) first.get("review_count")).intValue());
+        assertEquals(9L, ((Number) first.get("rating_sum")).longValue());
+        assertEquals(4.5, ((Number) first.get("avg_rating")).doubleValue());
+        assertEquals(1, ((Number) first.get("rating_5")).intValue());
+        assertEquals(1, ((Number) stored(2).get("rating_2")).intValue());
+        assertEquals("Fast", jdbcTemplate.queryForObject(
+                "SELECT review_desc FROM product_reviews WHERE product_id = 1 AND uid = ?", String.class, BOB));
+    }
+
+    @Test
+    @DisplayName("CSV rows support quoted fields and resume from an offset")
+    void importReviews_csv_resumesFromOffset() throws Exception {
+        String csv = String.join("\n",
+                "product_id,uid,rating,review_text",
+                "2," + ALICE + ",5,\"Quiet, and \"\"cool\"\"\"",
+                "2," + BOB + ",4,",
+                "2," + CAROL + ",3,Fine");
+
+        ReviewImportService.ImportReport report =
+                importService.importReviews(input(csv), ReviewImportService.Format.CSV, 1);
+
+        assertEquals(1, report.startOffset());
+        assertEquals(2, report.rowsRead());
+        assertEquals(2, report.inserted());
+        assertEquals(3, report.nextOffset());
+        assertEquals(2, ((Number) stored(2).get("review_count")).intValue());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_reviews WHERE uid = ? AND product_id = 2", Integer.class, ALICE));
+
+        report = importService.importReviews(input(csv), ReviewImportService.Format.CSV, 0);
+
+        assertEquals(1, report.inserted());
+        assertEquals(2, report.duplicates());
+        assertEquals("Quiet, and \"cool\"", jdbcTemplate.queryForObject(
+                "SELECT review_desc FROM product_reviews WHERE product_id = 2 AND uid = ?", String.class, ALICE));
+        assertEquals(4.0, ((Number) stored(2).get("avg_rating")).doubleValue());
+    }
+}
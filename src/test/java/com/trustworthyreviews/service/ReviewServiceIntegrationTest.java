@@ -1,5 +1,7 @@
 package com.trustworthyreviews.service;
 
+import com.trustworthyreviews.model.Review;
+import com.trustworthyreviews.model.ReviewPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -83,6 +85,26 @@ class ReviewServiceIntegrationTest {
    }
 
 
+   @Test
+   void addReview_updatesRunningTotalsAndAverage() {
+       reviewService.addReview(1, "00000000-0000-0000-0000-000000000001", 5, "Amazing!");
+       reviewService.addReview(1, "00000000-0000-0000-0000-000000000002", 2, "Meh");
+
+
+       assertThrows(IllegalStateException.class, () ->
+               reviewService.addReview(1, "00000000-0000-0000-0000-000000000002", 1, "Again")
+       );
+
+
+       Map<String, Object> product = jdbcTemplate.queryForMap(
+               "SELECT review_count, rating_sum, avg_rating FROM products WHERE product_id = ?", 1
+       );
+       assertEquals(2, ((Number) product.get("review_count")).intValue());
+       assertEquals(7L, ((Number) product.get("rating_sum")).longValue());
+       assertEquals(3.5, ((Number) product.get("avg_rating")).doubleValue());
+   }
+
+
    @Test
    void getReviewsForProduct_returnsReviewsWithUserData() {
        reviewService.addReview(1, "00000000-0000-0000-0000-000000000001", 5, "Amazing!");
@@ -105,6 +127,98 @@ class ReviewServiceIntegrationTest {
    }
 
 
+   @Test
+   void getReviewsPage_newestFirst_walksAllReviewsOnce() {
+       jdbcTemplate.update("INSERT INTO products (product_id, name, avg_rating) VALUES (?, ?, ?)", 2, "Busy product", 0.0);
+       for (int i = 1; i <= 5; i++) {
+           jdbcTemplate.update(
+                   "INSERT INTO product_reviews (review_id, product_id, review_rating, uid, created_at) VALUES (?, ?, ?, ?, ?)",
+                   100 + i, 2, 4, "00000000-0000-0000-0000-00000000010" + i,
+                   java.sql.Timestamp.valueOf(i <= 2 ? "2025-01-01 00:00:00" : "2025-01-0" + i + " 00:00:00"));
+       }
+
+
+       ReviewPage first = reviewService.getReviewsPage(2, null, ReviewCursor.Sort.NEWEST, null, 2);
+       assertEquals(List.of(105, 104), first.items().stream().map(Review::reviewId).toList());
+       assertTrue(first.hasMore());
+
+
+       ReviewPage second = reviewService.getReviewsPage(2, null, ReviewCursor.Sort.NEWEST, first.nextCursor(), 2);
+       assertEquals(List.of(103, 102), second.items().stream().map(Review::reviewId).toList());
+
+
+       ReviewPage last = reviewService.getReviewsPage(2, null, ReviewCursor.Sort.NEWEST, second.nextCursor(), 2);
+       assertEquals(List.of(101), last.items().stream().map(Review::reviewId).toList());
+       assertFalse(last.hasMore());
+       assertNull(last.nextCursor());
+   }
+
+
+   @Test
+   void getReviewsPage_similarity_ordersByCachedScore() {
+       String viewer = "00000000-0000-0000-0000-000000000001";
+       reviewService.addReview(1, viewer, 5, "Mine");
+       reviewService.addReview(1, "00000000-0000-0000-0000-000000000002", 2, "Bob");
+       reviewService.addReview(1, "00000000-0000-0000-0000-000000000003", 3, "Carol");
+       reviewService.addReview(1, "00000000-0000-0000-0000-000000000004", 4, "Dave");
+       jdbcTemplate.update(
+               "INSERT INTO user_similarity_cache (uuid1, uuid2, similarity_score, product_similarity, rating_similarity) VALUES (?, ?, ?, ?, ?)",
+               viewer, "00000000-0000-0000-0000-000000000002", 0.5, 1.0, 0.0);
+       jdbcTemplate.update(
+               "INSERT INTO user_similarity_cache (uuid1, uuid2, similarity_score, product_similarity, rating_similarity) VALUES (?, ?, ?, ?, ?)",
+               viewer, "00000000-0000-0000-0000-000000000003", 0.4, 0.4, 0.4);
+
+       // Dave has no cached score yet and sorts as 0; the page only reads the cache
+       ReviewPage first = reviewService.getReviewsPage(1, viewer, ReviewCursor.Sort.SIMILARITY, null, 2);
+       assertEquals(List.of(viewer, "00000000-0000-0000-0000-000000000002"),
+               first.items().stream().map(Review::uid).toList());
+       assertTrue(first.items().get(0).isOwnReview());
+
+
+       ReviewPage second = reviewService.getReviewsPage(1, viewer, ReviewCursor.Sort.SIMILARITY, first.nextCursor(), 2);
+       assertEquals(List.of("00000000-0000-0000-0000-000000000003", "00000000-0000-0000-0000-000000000004"),
+               second.items().stream().map(Review::uid).toList());
+       assertFalse(second.hasMore());
+   }
+
+
+   @Test
+   void getReviewsPage_cursorForOtherSort_rejected() {
+       String token = new ReviewCursor(ReviewCursor.Sort.NEWEST, null,
+               java.sql.Timestamp.valueOf("2025-01-01 00:00:00"), 1).encode();
+
+
+       assertThrows(IllegalArgumentException.class, () ->
+               reviewService.getReviewsPage(1, "00000000-0000-0000-0000-000000000001",
+                       ReviewCursor.Sort.SIMILARITY, token, 2));
+   }
+
+
+   @Test
+   void getFeed_pagesReviewsByFollowees() {
+       String viewer = "00000000-0000-0000-0000-000000000001";
+       String bob = "00000000-0000-0000-0000-000000000002";
+       jdbcTemplate.update("DELETE FROM relations");
+       jdbcTemplate.update("INSERT INTO relations (uid, following) VALUES (?, ?)", viewer, bob);
+       jdbcTemplate.update("INSERT INTO products (product_id, name, avg_rating) VALUES (?, ?, ?)", 2, "Second", 0.0);
+       Integer older = (Integer) reviewService.addReview(1, bob, 4, "First").get("review_id");
+       reviewService.addReview(1, viewer, 5, "Mine");
+       Integer newer = (Integer) reviewService.addReview(2, bob, 3, "Second").get("review_id");
+
+
+       ReviewPage first = reviewService.getFeed(viewer, null, 1);
+       assertEquals(List.of(newer), first.items().stream().map(Review::reviewId).toList());
+       assertEquals("Second", first.items().get(0).reviewDesc());
+       assertTrue(first.hasMore());
+
+
+       ReviewPage second = reviewService.getFeed(viewer, first.nextCursor(), 1);
+       assertEquals(List.of(older), second.items().stream().map(Review::reviewId).toList());
+       assertFalse(second.hasMore());
+       assertTrue(reviewService.getFeed(bob, null, 10).items().isEmpty());
+   }
+
+
    @Test
    void getReviewSummary_returnsCorrectStats() {
        reviewService.addReview(1, "00000000-0000-0000-0000-000000000001", 5, "Amazing!");
@@ -0,0 +1,208 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-user review timelines
+ */
+@DisplayName("ReviewTimeline Tests")
+class ReviewTimelineTest {
+
+    private static final String ALICE = "11111111-1111-1111-1111-111111111111";
+    private static final String BOB = "22222222-2222-2222-2222-222222222222";
+    private static final String CAROL = "33333333-3333-3333-3333-333333333333";
+    private static final String DAVE = "44444444-4444-4444-4444-444444444444";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReviewTimeline timeline;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        // Alice follows Bob and Carol; Dave follows Carol
+        jdbcTemplate.update("INSERT INTO relations (uid, following) VALUES (?, ?), (?, ?), (?, ?)",
+                ALICE, BOB, ALICE, CAROL, DAVE, CAROL);
+
+        timeline = newTimeline();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private ReviewTimeline newTimeline() {
+        ReviewTimeline created = new ReviewTimeline(jdbcTemplate, new FollowingProductsIndex(jdbcTemplate));
+        ReflectionTestUtils.setField(created, "enabled", true);
+        ReflectionTestUtils.setField(created, "capacity", 3);
+        return created;
+    }
+
+    private int review(int productId, String uid) {
+        jdbcTemplate.update("INSERT INTO product_reviews (product_id, review_rating, uid) VALUES (?, 4, ?)", productId, uid);
+        return jdbcTemplate.queryForObject("SELECT MAX(review_id) FROM product_reviews", Integer.class);
+    }
+
+    @Test
+    @DisplayName("New reviews are pushed to loaded timelines and paged newest first")
+    void recordReview_fansOutToFollowers() {
+        int first = review(1, BOB);
+        timeline.recordReview(BOB, first);
+        assertEquals(List.of(first), timeline.page(ALICE, null, 10));
+
+        int second = review(2, CAROL);
+        timeline.recordReview(CAROL, second);
+        int third = review(3, BOB);
+        timeline.recordReview(BOB, third);
+
+        assertEquals(List.of(third, second), timeline.page(ALICE, null, 2));
+        assertEquals(List.of(first), timeline.page(ALICE, second, 2));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, DAVE));
+
+        assertEquals(List.of(second), timeline.page(DAVE, null, 2));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, DAVE));
+    }
+
+    @Test
+    @DisplayName("Timelines keep the newest entries up to capacity and survive a restart")
+    void timeline_boundedAndPersisted() {
+        timeline.page(ALICE, null, 10);
+        int[] ids = new int[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = review(i + 1, BOB);
+            timeline.recordReview(BOB, ids[i]);
+        }
+
+        assertEquals(List.of(ids[4], ids[3], ids[2]), timeline.page(ALICE, null, 10));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+
+        ReviewTimeline restarted = newTimeline();
+        assertEquals(List.of(ids[4], ids[3]), restarted.page(ALICE, null, 2));
+        assertEquals(1, restarted.loadedTimelines());
+    }
+
+    @Test
+    @DisplayName("Reviews by accounts above the fan-out threshold are pulled on read")
+    void page_pullsReviewsAboveThreshold() {
+        ReflectionTestUtils.setField(timeline, "fanoutThreshold", 1);
+        int pushed = review(1, BOB);
+        timeline.recordReview(BOB, pushed);
+        int pulled = review(2, CAROL);
+        timeline.recordReview(CAROL, pulled);
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE review_id = ?", Integer.class, pulled));
+        assertEquals(List.of(pulled, pushed), timeline.page(ALICE, null, 10));
+        assertEquals(List.of(pulled), timeline.page(DAVE, null, 10));
+    }
+
+    @Test
+    @DisplayName("An empty timeline is seeded from the followees' existing reviews")
+    void page_seedsEmptyTimeline() {
+        int older = review(1, CAROL);
+        int newer = review(2, BOB);
+
+        assertEquals(List.of(newer, older), timeline.page(ALICE, null, 10));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+    }
+
+    @Test
+    @DisplayName("A stored timeline catches up on reviews written while it was not loaded, within capacity")
+    void page_catchesUpStoredTimeline() {
+        int older = review(1, CAROL);
+        timeline.page(ALICE, null, 10);
+        int missedBob = review(2, BOB);
+        int missedCarol = review(3, CAROL);
+
+        ReviewTimeline restarted = newTimeline();
+        restarted.recordReview(BOB, missedBob);
+        restarted.recordReview(CAROL, missedCarol);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+
+        assertEquals(List.of(missedCarol, missedBob, older), restarted.page(ALICE, null, 10));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+
+        int newest = review(4, BOB);
+        restarted.recordReview(BOB, newest);
+        ReviewTimeline again = newTimeline();
+        assertEquals(List.of(newest, missedCarol, missedBob), again.page(ALICE, null, 10));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+    }
+
+    @Test
+    @DisplayName("A loaded timeline catches up on reviews it was not sent and on newly followed users")
+    void page_loadedTimelineCatchesUp() {
+        String eve = "55555555-5555-5555-5555-555555555555";
+        int eveOlder = review(1, eve);
+        int bobFirst = review(2, BOB);
+        assertEquals(List.of(bobFirst), timeline.page(ALICE, null, 10));
+
+        // written on another instance or imported, so never pushed here
+        int bobElsewhere = review(3, BOB);
+        assertEquals(List.of(bobElsewhere, bobFirst), timeline.page(ALICE, null, 10));
+
+        jdbcTemplate.update("INSERT INTO relations (uid, following) VALUES (?, ?)", ALICE, eve);
+        assertEquals(List.of(bobElsewhere, bobFirst, eveOlder), timeline.page(ALICE, null, 10));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM review_timelines WHERE uid = ?", Integer.class, ALICE));
+    }
+
+    @Test
+    @DisplayName("Only the most recently read timelines stay loaded")
+    void page_evictsLeastRecentlyRead() {
+        ReflectionTestUtils.setField(timeline, "maxLoaded", 1);
+        int carol = review(1, CAROL);
+
+        timeline.page(ALICE, null, 10);
+        timeline.page(DAVE, null, 10);
+
+        assertEquals(1, timeline.loadedTimelines());
+        assertEquals(List.of(carol), timeline.page(ALICE, null, 10));
+    }
+
+    @Test
+    @DisplayName("The ring keeps ids in descending order and drops the oldest when full")
+    void ring_ordersAndEvicts() {
+        ReviewTimeline.Ring ring = new ReviewTimeline.Ring(3);
+        assertEquals(-1, ring.add(5));
+        assertEquals(-1, ring.add(9));
+        assertEquals(-1, ring.add(7));
+        assertEquals(-1, ring.add(9));
+        assertArrayEquals(new int[]{9, 7, 5}, ring.toArray());
+
+        assertEquals(5, ring.add(8));
+        assertEquals(2, ring.add(2));
+        assertEquals(7, ring.add(10));
+        assertArrayEquals(new int[]{10, 9, 8}, ring.toArray());
+        assertTrue(ring.contains(9));
+        assertFalse(ring.contains(7));
+        assertEquals(List.of(8), ring.page(9, 5));
+    }
+}
@@ -0,0 +1,188 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.trustworthyreviews.model.ProductRowMapper;
+import com.trustworthyreviews.model.Review;
+import com.trustworthyreviews.model.ReviewRowMapper;
+import com.trustworthyreviews.model.UserSummary;
+import com.trustworthyreviews.model.UserSummaryRowMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Typed rows must serialise exactly like the column maps they replaced.
+ *
+ * The benchmark compares heap per row and serialisation throughput of both; run it with
+ * {@code mvn test -Dtest=RowMappingTest -Dbenchmark=true}.
+ */
+@DisplayName("Typed row mapping Tests")
+class RowMappingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RowMappingTest.class);
+
+    private static final String PRODUCT_SQL = """
+        SELECT product_id AS "product_id", name AS "name", avg_rating AS "avg_rating",
+               description AS "description", image AS "image", link AS "link", category AS "category"
+        FROM products ORDER BY product_id
+    """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Product JSON matches the column map, including null ratings")
+    void product_serialisesLikeColumnMap() throws Exception {
+        jdbcTemplate.update("""
+            INSERT INTO products (product_id, name, avg_rating, description, image, link, category) VALUES
+            (1, 'Samsung 990 Pro', 4.5, 'SSD', 'ssd.jpg', 'http://example.com', 'Storage'),
+            (2, 'Noctua NH-D15', NULL, NULL, NULL, NULL, 'Cooling')
+        """);
+
+        assertEquals(
+                objectMapper.writeValueAsString(jdbcTemplate.queryForList(PRODUCT_SQL)),
+                objectMapper.writeValueAsString(jdbcTemplate.query(PRODUCT_SQL, ProductRowMapper.INSTANCE)));
+    }
+
+    @Test
+    @DisplayName("Review JSON matches the column map with the same enrichment applied")
+    void review_serialisesLikeColumnMap() throws Exception {
+        jdbcTemplate.update("""
+            INSERT INTO product_reviews (review_id, product_id, review_rating, review_desc, uid, created_at) VALUES
+            (1, 1, 5, 'Great', '00000000-0000-0000-0000-000000000001', TIMESTAMP '2025-01-02 03:04:05'),
+            (2, 1, 3, NULL, '00000000-0000-0000-0000-000000000002', TIMESTAMP '2025-01-03 03:04:05')
+        """);
+        String sql = """
+            SELECT r.review_id AS "review_id", r.product_id AS "product_id", r.review_rating AS "review_rating",
+                   r.review_desc AS "review_desc", r.uid AS "uid", r.created_at AS "created_at"
+            FROM product_reviews r WHERE r.product_id = ? ORDER BY r.review_id
+        """;
+
+        List<Map<String, Object>> maps = jdbcTemplate.queryForList(sql, 1);
+        maps.get(0).put("email", "alice@example.com");
+        maps.get(0).put("display_name", "Alice");
+        maps.get(0).put("similarity_score", 1.0);
+        maps.get(0).put("is_own_review", true);
+        maps.get(1).put("email", "bob@example.com");
+        maps.get(1).put("display_name", "Bob");
+        maps.get(1).put("degree_of_separation", 2);
+        maps.get(1).put("similarity_score", 0.25);
+
+        List<Review> reviews = jdbcTemplate.query(sql, ReviewRowMapper.INSTANCE, 1);
+        List<Review> enriched = List.of(
+                reviews.get(0).withReviewer("alice@example.com", "Alice").withRelation(null, 1.0, true),
+                reviews.get(1).withReviewer("bob@example.com", "Bob").withRelation(2, 0.25, null));
+
+        assertEquals(objectMapper.writeValueAsString(maps), objectMapper.writeValueAsString(enriched));
+    }
+
+    @Test
+    @DisplayName("User summary JSON matches the column map after metadata enrichment")
+    void userSummary_serialisesLikeEnrichedColumnMap() throws Exception {
+        jdbcTemplate.update("""
+            INSERT INTO users (id, email, display_name, raw_user_meta_data) VALUES
+            ('00000000-0000-0000-0000-000000000001', 'alice@example.com', NULL, '{"display_name":"Alice"}'),
+            ('00000000-0000-0000-0000-000000000002', 'bob@example.com', NULL, NULL)
+        """);
+        String sql = "SELECT id AS \"id\", email AS \"email\", raw_user_meta_data AS \"raw_user_meta_data\" FROM users ORDER BY email";
+
+        List<Map<String, Object>> maps = jdbcTemplate.queryForList(sql);
+        maps.get(0).put("display_name", "Alice");
+        maps.forEach(row -> row.remove("raw_user_meta_data"));
+
+        List<UserSummary> users = jdbcTemplate.query(sql, new UserSummaryRowMapper(objectMapper, false));
+
+        assertEquals(objectMapper.writeValueAsString(maps), objectMapper.writeValueAsString(users));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: heap per row and serialisation throughput, column maps vs records")
+    void benchmark_columnMapsVersusRecords() throws Exception {
+        int rows = 50_000;
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, "Product " + i, (i % 50) / 10.0, "Description of product " + i,
+                    "image-" + i + ".jpg", "https://example.com/p/" + i, "Category " + (i % 20)});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO products (product_id, name, avg_rating, description, image, link, category)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """, batch);
+
+        RowMapper<Map<String, Object>> columnMaps = new ColumnMapRowMapper();
+        for (int warmup = 0; warmup < 3; warmup++) {
+            objectMapper.writeValueAsBytes(jdbcTemplate.query(PRODUCT_SQL, columnMaps));
+            objectMapper.writeValueAsBytes(jdbcTemplate.query(PRODUCT_SQL, ProductRowMapper.INSTANCE));
+        }
+
+        long mapBytes = retainedBytes(() -> jdbcTemplate.query(PRODUCT_SQL, columnMaps));
+        long recordBytes = retainedBytes(() -> jdbcTemplate.query(PRODUCT_SQL, ProductRowMapper.INSTANCE));
+        double mapRowsPerSecond = serialisedRowsPerSecond(jdbcTemplate.query(PRODUCT_SQL, columnMaps));
+        double recordRowsPerSecond = serialisedRowsPerSecond(jdbcTemplate.query(PRODUCT_SQL, ProductRowMapper.INSTANCE));
+
+        log.info("Column maps: {} bytes/row retained, {} rows/s serialised", mapBytes / rows, Math.round(mapRowsPerSecond));
+        log.info("Records:     {} bytes/row retained, {} rows/s serialised", recordBytes / rows, Math.round(recordRowsPerSecond));
+
+        assertTrue(recordBytes < mapBytes, "records should retain less heap than column maps");
+    }
+
+    private static long retainedBytes(Supplier<List<?>> query) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        List<?> result = query.get();
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        assertFalse(result.isEmpty());
+        return after - before;
+    }
+
+    private double serialisedRowsPerSecond(List<?> rows) throws Exception {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        long started = System.nanoTime();
+        long serialised = 0;
+        while (System.nanoTime() < deadline) {
+            objectMapper.writeValueAsBytes(rows);
+            serialised += rows.size();
+        }
+        return serialised / ((System.nanoTime() - started) / 1e9);
+    }
+}
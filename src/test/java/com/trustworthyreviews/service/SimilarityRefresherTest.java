@@ -0,0 +1,95 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for keeping the similarity cache current in the background
+ */
+@DisplayName("SimilarityRefresher Tests")
+class SimilarityRefresherTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+    private SimilarityRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("""
+            INSERT INTO product_reviews (product_id, review_rating, uid, created_at) VALUES
+            (1, 5, 'u1', TIMESTAMP '2025-01-01 00:00:00'),
+            (1, 4, 'u2', TIMESTAMP '2025-01-01 00:00:00'),
+            (2, 3, 'u1', TIMESTAMP '2025-01-01 00:00:00'),
+            (2, 3, 'u3', TIMESTAMP '2025-01-01 00:00:00'),
+            (3, 1, 'u4', TIMESTAMP '2025-01-01 00:00:00')
+        """);
+        jdbcTemplate.update("""
+            INSERT INTO user_similarity_cache (uuid1, uuid2, similarity_score, last_calculated) VALUES
+            ('u1', 'u3', 0.5, TIMESTAMP '2025-02-01 00:00:00')
+        """);
+
+        // Stores the score itself, as H2 lacks the upsert UserService uses
+        userService = mock(UserService.class);
+        when(userService.calculateCombinedJaccardSimilarity(anyString(), anyString(), eq(true))).thenAnswer(invocation -> {
+            String uid1 = invocation.getArgument(0);
+            String uid2 = invocation.getArgument(1);
+            jdbcTemplate.update("DELETE FROM user_similarity_cache WHERE uuid1 = ? AND uuid2 = ?", uid1, uid2);
+            jdbcTemplate.update("INSERT INTO user_similarity_cache (uuid1, uuid2, similarity_score, last_calculated) "
+                    + "VALUES (?, ?, 0.25, CURRENT_TIMESTAMP)", uid1, uid2);
+            return 0.25;
+        });
+
+        refresher = new SimilarityRefresher(jdbcTemplate, userService);
+        ReflectionTestUtils.setField(refresher, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Only co-reviewers with a missing or outdated score are scored, once each")
+    void refreshNextBatch_scoresMissingAndOutdatedPairs() {
+        assertEquals(1, refresher.refreshNextBatch());
+        verify(userService).calculateCombinedJaccardSimilarity("u1", "u2", true);
+        verify(userService, never()).calculateCombinedJaccardSimilarity("u1", "u3", true);
+
+        assertEquals(0, refresher.refreshNextBatch());
+
+        jdbcTemplate.update("INSERT INTO product_reviews (product_id, review_rating, uid, created_at) "
+                + "VALUES (4, 2, 'u3', TIMESTAMP '2025-03-01 00:00:00')");
+        assertEquals(1, refresher.refreshNextBatch());
+        verify(userService).calculateCombinedJaccardSimilarity("u1", "u3", true);
+    }
+
+    @Test
+    @DisplayName("Each run scores at most one batch of pairs")
+    void refreshNextBatch_boundedByBatchSize() {
+        jdbcTemplate.update("DELETE FROM user_similarity_cache");
+        ReflectionTestUtils.setField(refresher, "batchSize", 1);
+
+        assertEquals(1, refresher.refreshNextBatch());
+        assertEquals(1, refresher.refreshNextBatch());
+        assertEquals(0, refresher.refreshNextBatch());
+    }
+}
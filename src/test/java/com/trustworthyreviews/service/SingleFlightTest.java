@@ -0,0 +1,112 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for single-flight collapsing of identical in-flight calls
+ */
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Concurrent callers with the same key share one execution")
+    void execute_concurrentSameKey_sharesResult() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute("key", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "value";
+        })));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> flight.execute("key", () -> {
+                runs.incrementAndGet();
+                return "other";
+            })));
+        }
+        while (flight.getCollapsed() < callers - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(callers - 1, flight.getCollapsed());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Completed executions are not cached")
+    void execute_sequentialCalls_runEachTime() {
+        SingleFlight<Integer, Integer> flight = new SingleFlight<>("test");
+        AtomicInteger runs = new AtomicInteger();
+
+        flight.execute(1, runs::incrementAndGet);
+        flight.execute(1, runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+        assertEquals(0, flight.getCollapsed());
+    }
+
+    @Test
+    @DisplayName("Exceptions propagate to the caller and do not poison the key")
+    void execute_failure_propagates() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", flight.execute("key", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Shared list and row results cannot be modified by one of the callers")
+    void sharedResults_areUnmodifiable() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("username", "alice");
+        row.put("display_name", null);
+        SingleFlight<String, List<Map<String, Object>>> flight = new SingleFlight<>("test");
+
+        List<Map<String, Object>> rows = flight.execute("key", () -> SingleFlight.sharedRows(new ArrayList<>(List.of(row))));
+
+        assertThrows(UnsupportedOperationException.class, () -> rows.add(Map.of()));
+        assertThrows(UnsupportedOperationException.class, () -> rows.get(0).put("username", "mallory"));
+        assertNull(rows.get(0).get("display_name"));
+        assertThrows(UnsupportedOperationException.class, () -> SingleFlight.sharedList(new ArrayList<>(List.of(1))).clear());
+        assertNull(SingleFlight.sharedRows(null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.trustworthyreviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.trustworthyreviews.config.SupabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SupabaseAdminClient against a local stub of the admin users API
+ */
+@DisplayName("SupabaseAdminClient Tests")
+class SupabaseAdminClientTest {
+
+    private static final String KNOWN_USER = "00000000-0000-0000-0000-000000000001";
+    private static final String SLOW_USER = "00000000-0000-0000-0000-000000000002";
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/admin/users/", exchange -> {
+            hits.incrementAndGet();
+            String userId = exchange.getRequestURI().getPath().replaceAll(".*/", "");
+            int status = 404;
+            String body = "{\"msg\":\"User not found\"}";
+
+            if (KNOWN_USER.equals(userId) || SLOW_USER.equals(userId)) {
+                if (SLOW_USER.equals(userId)) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                status = 200;
+                body = "{\"id\":\"" + userId + "\",\"email\":\"alice@example.com\","
+                        + "\"user_metadata\":{\"display_name\":\"Alice\"}}";
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private SupabaseAdminClient newClient(int maxConcurrent) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        SupabaseConfig.SupabaseProperties properties =
+                new SupabaseConfig.SupabaseProperties(url, "anon", "service-role", null);
+        return new SupabaseAdminClient(properties, new ObjectMapper(),
+                Duration.ofSeconds(3), maxConcurrent, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Known user is fetched and mapped to id, email and display_name")
+    void fetchUser_existingUser_returnsUser() {
+        SupabaseAdminClient client = newClient(4);
+
+        Optional<Map<String, Object>> user = client.fetchUser(KNOWN_USER);
+
+        assertTrue(user.isPresent());
+        assertEquals(KNOWN_USER, user.get().get("id"));
+        assertEquals("alice@example.com", user.get().get("email"));
+        assertEquals("Alice", user.get().get("display_name"));
+    }
+
+    @Test
+    @DisplayName("404 responses are cached so repeated lookups do not hit the API")
+    void fetchUser_missingUser_isNegativelyCached() {
+        SupabaseAdminClient client = newClient(4);
+        String missing = "00000000-0000-0000-0000-0000000000ff";
+
+        assertTrue(client.fetchUser(missing).isEmpty());
+        assertTrue(client.fetchUser(missing).isEmpty());
+        assertTrue(client.fetchUser(missing).isEmpty());
+
+        assertEquals(1, hits.get());
+        assertEquals(2L, client.getStats().get("notFoundCacheHits"));
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups for the same user share one request")
+    void fetchUserAsync_concurrentSameUser_coalesced() throws Exception {
+        SupabaseAdminClient client = newClient(4);
+
+        List<CompletableFuture<Optional<Map<String, Object>>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(client.fetchUserAsync(SLOW_USER));
+        }
+        release.countDown();
+
+        for (CompletableFuture<Optional<Map<String, Object>>> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isPresent());
+        }
+        assertEquals(1, hits.get());
+        assertEquals(9L, client.getStats().get("coalesced"));
+    }
+
+    @Test
+    @DisplayName("Bulkhead rejects lookups beyond the concurrency limit")
+    void fetchUserAsync_bulkheadFull_rejects() throws Exception {
+        SupabaseAdminClient client = newClient(1);
+
+        CompletableFuture<Optional<Map<String, Object>>> slow = client.fetchUserAsync(SLOW_USER);
+        Optional<Map<String, Object>> rejected = client.fetchUserAsync(KNOWN_USER).get(1, TimeUnit.SECONDS);
+
+        assertTrue(rejected.isEmpty());
+        assertEquals(1L, client.getStats().get("rejected"));
+
+        release.countDown();
+        assertTrue(slow.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(client.fetchUser(KNOWN_USER).isPresent());
+    }
+
+    @Test
+    @DisplayName("Unconfigured client returns empty without making requests")
+    void fetchUser_notConfigured_returnsEmpty() {
+        SupabaseAdminClient client = new SupabaseAdminClient(null, new ObjectMapper());
+
+        assertFalse(client.isConfigured());
+        assertTrue(client.fetchUser(KNOWN_USER).isEmpty());
+        assertEquals(0, hits.get());
+    }
+}
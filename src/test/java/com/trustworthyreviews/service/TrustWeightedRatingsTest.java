@@ -0,0 +1,154 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for personalized trust-weighted product ratings
+ */
+@DisplayName("TrustWeightedRatings Tests")
+class TrustWeightedRatingsTest {
+
+    private static final String VIEWER = "11111111-1111-1111-1111-111111111111";
+    private static final String FRIEND = "22222222-2222-2222-2222-222222222222";
+    private static final String TWIN = "33333333-3333-3333-3333-333333333333";
+    private static final String STRANGER = "44444444-4444-4444-4444-444444444444";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private FollowingProductsIndex followingIndex;
+    private TrustWeightedRatings ratings;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO relations (uid, following) VALUES (?, ?)", VIEWER, FRIEND);
+        // The viewer and TWIN rated products 2 and 3 alike; product 1 is the one being summarized
+        jdbcTemplate.update("""
+            INSERT INTO product_reviews (product_id, review_rating, uid) VALUES
+            (1, 5, ?), (1, 2, ?), (1, 1, ?),
+            (2, 4, ?), (2, 4, ?), (3, 2, ?), (3, 1, ?)
+        """, FRIEND, TWIN, STRANGER, VIEWER, TWIN, VIEWER, TWIN);
+
+        followingIndex = new FollowingProductsIndex(jdbcTemplate);
+        ReflectionTestUtils.setField(followingIndex, "enabled", true);
+        followingIndex.refresh();
+        ratings = new TrustWeightedRatings(jdbcTemplate, followingIndex);
+        ReflectionTestUtils.setField(ratings, "enabled", true);
+        ratings.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Reviews are weighted by similarity and follow-graph distance")
+    void rating_weightsBySimilarityAndDistance() {
+        double friend = TrustWeightedRatings.weight(0, 1);
+        // TWIN shares two of three products with the viewer and rated both within a star
+        double twin = TrustWeightedRatings.weight((2.0 / 3 + 1.0) / 2, null);
+        double stranger = TrustWeightedRatings.weight(0, null);
+        double expected = (friend * 5 + twin * 2 + stranger * 1) / (friend + twin + stranger);
+
+        TrustWeightedRatings.Personalized personalized = ratings.rating(VIEWER, 1);
+
+        assertEquals(Math.round(expected * 100.0) / 100.0, personalized.rating());
+        assertEquals(3, personalized.reviews());
+        assertEquals(2, personalized.connectedReviewers());
+    }
+
+    @Test
+    @DisplayName("A new review replaces the cached rating of its product")
+    void recordReview_invalidatesCachedRating() {
+        TrustWeightedRatings.Personalized before = ratings.rating(VIEWER, 2);
+        assertEquals(4.0, before.rating());
+        assertSame(before, ratings.rating(VIEWER, 2));
+
+        ratings.recordReview(FRIEND, 2, 1);
+
+        TrustWeightedRatings.Personalized after = ratings.rating(VIEWER, 2);
+        assertEquals(2, after.reviews());
+        assertTrue(after.rating() < before.rating());
+    }
+
+    @Test
+    @DisplayName("A refresh reads only newer reviews and drops only the entries they affect")
+    void refresh_catchesUpAndInvalidatesChangedProducts() {
+        TrustWeightedRatings.Personalized first = ratings.rating(VIEWER, 1);
+        TrustWeightedRatings.Personalized second = ratings.rating(VIEWER, 2);
+        jdbcTemplate.update("INSERT INTO product_reviews (product_id, review_rating, uid) VALUES (2, 1, ?)", STRANGER);
+
+        ratings.refresh();
+
+        assertSame(first, ratings.rating(VIEWER, 1));
+        assertEquals(2, ratings.rating(VIEWER, 2).reviews());
+        assertNotSame(second, ratings.rating(VIEWER, 2));
+    }
+
+    @Test
+    @DisplayName("A full reload picks up deleted reviews")
+    void refresh_fullReload_dropsDeletedReviews() {
+        assertEquals(3, ratings.rating(VIEWER, 1).reviews());
+        jdbcTemplate.update("DELETE FROM product_reviews WHERE product_id = 1 AND uid = ?", STRANGER);
+
+        ratings.refresh();
+        assertEquals(3, ratings.rating(VIEWER, 1).reviews());
+
+        ReflectionTestUtils.setField(ratings, "fullReloadIntervalMs", 0L);
+        ratings.refresh();
+        assertEquals(2, ratings.rating(VIEWER, 1).reviews());
+    }
+
+    @Test
+    @DisplayName("The cache keeps at most its configured size and refreshes sweep expired entries")
+    void cache_boundedAndSwept() {
+        ReflectionTestUtils.setField(ratings, "cacheMaxEntries", 2);
+        ratings.rating(VIEWER, 1);
+        ratings.rating(VIEWER, 2);
+        ratings.rating(TWIN, 1);
+        assertEquals(2, ratings.cachedEntries());
+
+        ReflectionTestUtils.setField(ratings, "cacheTtlMs", 0L);
+        ratings.refresh();
+        assertEquals(0, ratings.cachedEntries());
+    }
+
+    @Test
+    @DisplayName("Similarity matches the combined Jaccard measure")
+    void similarity_matchesCombinedJaccard() {
+        assertEquals(1.0, TrustWeightedRatings.similarity(Map.of(2, 4, 3, 2), Map.of(2, 4, 3, 1)));
+        // one of three products shared, rated three stars apart
+        assertEquals((1.0 / 3 + 0) / 2, TrustWeightedRatings.similarity(Map.of(1, 5, 2, 4), Map.of(1, 2, 3, 3)), 1e-9);
+        assertEquals(0.0, TrustWeightedRatings.similarity(Map.of(), Map.of(1, 5)));
+    }
+
+    @Test
+    @DisplayName("Degrees of separation come from one walk of the follow graph")
+    void degreesOfSeparation_walksGraph() {
+        jdbcTemplate.update("INSERT INTO relations (uid, following) VALUES (?, ?)", FRIEND, TWIN);
+        followingIndex.refresh();
+
+        assertEquals(Map.of(FRIEND, 1, TWIN, 2),
+                followingIndex.degreesOfSeparation(VIEWER, Set.of(FRIEND, TWIN, STRANGER), 6));
+        assertEquals(Map.of(FRIEND, 1), followingIndex.degreesOfSeparation(VIEWER, Set.of(FRIEND, TWIN), 1));
+    }
+}
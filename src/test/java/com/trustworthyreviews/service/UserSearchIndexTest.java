@@ -0,0 +1,94 @@
+package com.trustworthyreviews.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the resident trigram index behind user search
+ */
+@DisplayName("UserSearchIndex Tests")
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex();
+        index.update(List.of(
+                user("1", "alice@example.com", "Alice"),
+                user("2", "bob@example.com", "Bob"),
+                user("3", "malice@example.com", "Mallory"),
+                user("4", "carol@test.org", "Caroline Alicia")
+        ));
+    }
+
+    private static Map<String, Object> user(String id, String email, String displayName) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", id);
+        user.put("email", email);
+        user.put("display_name", displayName);
+        return user;
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> users) {
+        List<Object> ids = new ArrayList<>();
+        users.forEach(user -> ids.add(user.get("id")));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Substring query matches email and display name, prefix matches first")
+    void search_substring_ranksPrefixMatchesFirst() {
+        List<Map<String, Object>> result = index.search("ALIC");
+
+        assertEquals(List.of("1", "4", "3"), ids(result));
+    }
+
+    @Test
+    @DisplayName("Short queries are answered without trigrams")
+    void search_shortQuery_scansDocuments() {
+        assertEquals(List.of("2"), ids(index.search("bo")));
+        assertEquals(4, index.search("e").size());
+    }
+
+    @Test
+    @DisplayName("Results are limited to the requested page size")
+    void search_limit_truncates() {
+        assertEquals(2, index.search("example", 2).size());
+        assertTrue(index.search("nobody-here").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Incremental update adds, changes and removes documents")
+    void update_appliesOnlyDifferences() {
+        int changes = index.update(List.of(
+                user("1", "alice@example.com", "Alice"),
+                user("2", "robert@example.com", "Bob"),
+                user("4", "carol@test.org", "Caroline Alicia"),
+                user("5", "dave@example.com", "Dave")
+        ));
+
+        assertEquals(3, changes);
+        assertEquals(4, index.size());
+        assertTrue(index.search("malice").isEmpty());
+        assertTrue(index.search("bob@").isEmpty());
+        assertEquals(List.of("2"), ids(index.search("robert")));
+        assertEquals(List.of("5"), ids(index.search("dave")));
+    }
+
+    @Test
+    @DisplayName("Returned rows are copies and cannot corrupt the index")
+    void search_returnsCopies() {
+        index.search("bob").get(0).put("email", "changed");
+
+        assertEquals("bob@example.com", index.search("bob").get(0).get("email"));
+    }
+}
@@ -8,14 +8,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -122,4 +127,33 @@ class UserServiceIntegrationTest {
        assertNotNull(profile);
        assertEquals("bob@example.com", profile.get("email"));
    }
+
+
+   @Test
+   void getUserProfileWithMetrics_slowMetric_returnsProfileWithoutIt() {
+       String alice = "00000000-0000-0000-0000-000000000001";
+       String bob = "00000000-0000-0000-0000-000000000002";
+       UserService profiles = spy(userService);
+       ReflectionTestUtils.setField(profiles, "metricTimeoutMs", 200L);
+       doReturn(new HashMap<>(Map.of("id", bob, "email", "bob@example.com"))).when(profiles).getUserById(bob);
+       doReturn(1).when(profiles).getDegreeOfSeparation(alice, bob);
+       doAnswer(invocation -> {
+           Thread.sleep(1500);
+           return 0.5;
+       }).when(profiles).calculateCombinedJaccardSimilarity(alice, bob);
+
+
+       long started = System.nanoTime();
+       Map<String, Object> profile = profiles.getUserProfileWithMetrics(bob, alice);
+
+
+       assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+       assertEquals("bob@example.com", profile.get("email"));
+       assertEquals(1, profile.get("degree_of_separation"));
+       assertFalse(profile.containsKey("similarity"));
+       @SuppressWarnings("unchecked")
+       Map<String, Object> meta = (Map<String, Object>) profile.get("meta");
+       assertEquals(List.of("similarity"), meta.get("timed_out"));
+       assertEquals(Set.of("profile", "degree_of_separation"), ((Map<?, ?>) meta.get("timings_ms")).keySet());
+   }
 }
@@ -12,7 +12,14 @@ CREATE TABLE IF NOT EXISTS products (
     description VARCHAR(255),
     image VARCHAR(255),
     link VARCHAR(255),
-    category VARCHAR(255)
+    category VARCHAR(255),
+    review_count INT NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    rating_1 INT NOT NULL DEFAULT 0,
+    rating_2 INT NOT NULL DEFAULT 0,
+    rating_3 INT NOT NULL DEFAULT 0,
+    rating_4 INT NOT NULL DEFAULT 0,
+    rating_5 INT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS product_reviews (
@@ -21,7 +28,8 @@ CREATE TABLE IF NOT EXISTS product_reviews (
     review_rating INT,
     review_desc VARCHAR(255),
     uid VARCHAR(36),
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT product_reviews_product_uid_key UNIQUE (product_id, uid)
 );
 
 CREATE TABLE IF NOT EXISTS relations (
@@ -39,3 +47,9 @@ CREATE TABLE IF NOT EXISTS user_similarity_cache (
     PRIMARY KEY (uuid1, uuid2)
 );
 
+
+CREATE TABLE IF NOT EXISTS review_timelines (
+    uid VARCHAR(36) NOT NULL,
+    review_id INT NOT NULL,
+    PRIMARY KEY (uid, review_id)
+);